@@ -0,0 +1,196 @@
+import com.backend.delivery_backend.service.TripPlanner;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Replays one synthetic order stream for a single restaurant twice: couriers taking READY orders one by one
+// (dispatch.batching.enabled=false) and the batching dispatcher grouping them into trips with TripPlanner.
+// Drops cluster around a few hotspots (apartment blocks, campuses) plus some scattered addresses.
+//
+//   mvn -q compile && java -cp target/classes bench/DispatchSimulation.java \
+//        --orders-per-hour 40 --couriers 12 --hours 4 [--window-seconds 60] [--max-orders 3] \
+//        [--max-delay-minutes 10] [--speed-kmh 20] [--radius-km 4] [--hotspots 6] [--seed 42]
+//
+// Prints orders per courier-hour (busy time), READY-to-door times and the delay batching added in each mode.
+public class DispatchSimulation {
+
+    private static final double ORIGIN_LAT = 41.015;
+    private static final double ORIGIN_LON = 28.979;
+    private static final double STEP_MINUTES = 0.25;
+
+    record SimOrder(String id, double readyMinute, TripPlanner.Drop drop) {
+    }
+
+    // toDoor: READY to delivered; extra: window wait plus detour caused by sharing the trip
+    record Result(int delivered, int trips, double busyMinutes, double endMinute, double[] toDoor, double[] extra) {
+    }
+
+    public static void main(String[] args) {
+        double ordersPerHour = 40;
+        int couriers = 12;
+        double hours = 4;
+        int windowSeconds = 60;
+        int maxOrders = 3;
+        int maxDelayMinutes = 10;
+        double speedKmh = 20;
+        double radiusKm = 4;
+        int hotspots = 6;
+        long seed = 42;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--orders-per-hour" -> ordersPerHour = Double.parseDouble(args[++i]);
+                case "--couriers" -> couriers = Integer.parseInt(args[++i]);
+                case "--hours" -> hours = Double.parseDouble(args[++i]);
+                case "--window-seconds" -> windowSeconds = Integer.parseInt(args[++i]);
+                case "--max-orders" -> maxOrders = Integer.parseInt(args[++i]);
+                case "--max-delay-minutes" -> maxDelayMinutes = Integer.parseInt(args[++i]);
+                case "--speed-kmh" -> speedKmh = Double.parseDouble(args[++i]);
+                case "--radius-km" -> radiusKm = Double.parseDouble(args[++i]);
+                case "--hotspots" -> hotspots = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+        // Same assumptions as CourierDispatcher: the window wait counts against the delay budget
+        Duration maxDetour = Duration.ofMinutes(maxDelayMinutes).minusSeconds(windowSeconds);
+        TripPlanner.Settings settings = new TripPlanner.Settings(maxOrders,
+                maxDetour.isNegative() ? Duration.ZERO : maxDetour, speedKmh, Duration.ofMinutes(3), 2.0, 3.0);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 18, 0);
+        List<SimOrder> orders = generate(new Random(seed), ordersPerHour, hours, radiusKm, hotspots, start);
+
+        Result single = simulate(orders, couriers, 0, false, settings, start);
+        Result batched = simulate(orders, couriers, windowSeconds / 60.0, true, settings, start);
+
+        System.out.printf("orders=%d couriers=%d hours=%.1f orders/hour=%.0f window=%ds max-orders=%d max-delay=%dmin%n",
+                orders.size(), couriers, hours, ordersPerHour, windowSeconds, maxOrders, maxDelayMinutes);
+        print("one-by-one", single);
+        print("batched", batched);
+        System.out.printf("orders per courier-hour: %.2fx%n",
+                perCourierHour(batched) / perCourierHour(single));
+    }
+
+    private static List<SimOrder> generate(Random random, double ordersPerHour, double hours, double radiusKm,
+                                           int hotspots, LocalDateTime start) {
+        double[][] spots = new double[Math.max(1, hotspots)][];
+        for (int i = 0; i < spots.length; i++) {
+            spots[i] = randomPoint(random, radiusKm);
+        }
+        List<SimOrder> orders = new ArrayList<>();
+        double minute = 0;
+        while (true) {
+            // Poisson geliş: üstel dağılımlı aralıklar
+            minute += -Math.log(1 - random.nextDouble()) * 60 / ordersPerHour;
+            if (minute > hours * 60) {
+                return orders;
+            }
+            double[] point;
+            if (random.nextDouble() < 0.7) {
+                double[] spot = spots[random.nextInt(spots.length)];
+                point = new double[]{spot[0] + random.nextGaussian() * 0.3, spot[1] + random.nextGaussian() * 0.3};
+            } else {
+                point = randomPoint(random, radiusKm);
+            }
+            String id = "order-" + orders.size();
+            double lat = ORIGIN_LAT + point[1] / 111.0;
+            double lon = ORIGIN_LON + point[0] / (111.0 * Math.cos(Math.toRadians(ORIGIN_LAT)));
+            LocalDateTime readyAt = start.plusNanos((long) (minute * 60_000_000_000L));
+            orders.add(new SimOrder(id, minute, new TripPlanner.Drop(id, readyAt, lat, lon, null, id)));
+        }
+    }
+
+    // km (x, y) relative to the restaurant, uniform over the disc
+    private static double[] randomPoint(Random random, double radiusKm) {
+        double r = radiusKm * Math.sqrt(random.nextDouble());
+        double angle = random.nextDouble() * 2 * Math.PI;
+        return new double[]{r * Math.cos(angle), r * Math.sin(angle)};
+    }
+
+    private static Result simulate(List<SimOrder> orders, int couriers, double windowMinutes, boolean batching,
+                                   TripPlanner.Settings settings, LocalDateTime start) {
+        double[] freeAt = new double[couriers];
+        List<SimOrder> waiting = new ArrayList<>();
+        List<Double> toDoor = new ArrayList<>();
+        List<Double> extra = new ArrayList<>();
+        int next = 0;
+        int trips = 0;
+        double busy = 0;
+        double minute = 0;
+        while (next < orders.size() || !waiting.isEmpty()) {
+            while (next < orders.size() && orders.get(next).readyMinute() <= minute) {
+                waiting.add(orders.get(next++));
+            }
+            boolean due = !waiting.isEmpty() && waiting.get(0).readyMinute() + windowMinutes <= minute;
+            int free = countFree(freeAt, minute);
+            if (due && free > 0) {
+                List<TripPlanner.Drop> drops = waiting.stream().map(SimOrder::drop).toList();
+                List<TripPlanner.Trip> planned = batching
+                        ? TripPlanner.plan(ORIGIN_LAT, ORIGIN_LON, drops, settings)
+                        : TripPlanner.oneByOne(ORIGIN_LAT, ORIGIN_LON, drops, settings);
+                for (TripPlanner.Trip trip : planned.subList(0, Math.min(free, planned.size()))) {
+                    int courier = firstFree(freeAt, minute);
+                    freeAt[courier] = minute + trip.minutes();
+                    busy += trip.minutes();
+                    trips++;
+                    for (int i = 0; i < trip.drops().size(); i++) {
+                        TripPlanner.Drop drop = trip.drops().get(i);
+                        SimOrder order = waiting.stream().filter(o -> o.id().equals(drop.orderId())).findFirst().orElseThrow();
+                        double solo = TripPlanner.oneByOne(ORIGIN_LAT, ORIGIN_LON, List.of(drop), settings)
+                                .get(0).arrivals().get(0);
+                        toDoor.add(minute - order.readyMinute() + trip.arrivals().get(i));
+                        double held = Math.min(minute - order.readyMinute(), windowMinutes);
+                        extra.add(held + trip.arrivals().get(i) - solo);
+                        waiting.remove(order);
+                    }
+                }
+            }
+            minute += STEP_MINUTES;
+        }
+        double end = Arrays.stream(freeAt).max().orElse(minute);
+        return new Result(toDoor.size(), trips, busy, end, sorted(toDoor), sorted(extra));
+    }
+
+    private static double[] sorted(List<Double> values) {
+        double[] array = values.stream().mapToDouble(Double::doubleValue).toArray();
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static int countFree(double[] freeAt, double minute) {
+        return (int) Arrays.stream(freeAt).filter(at -> at <= minute).count();
+    }
+
+    private static int firstFree(double[] freeAt, double minute) {
+        for (int i = 0; i < freeAt.length; i++) {
+            if (freeAt[i] <= minute) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No free courier");
+    }
+
+    private static double perCourierHour(Result result) {
+        return result.delivered() / (result.busyMinutes() / 60);
+    }
+
+    private static void print(String mode, Result result) {
+        System.out.printf("%-10s delivered=%d trips=%d orders/trip=%.2f busy=%.1fh orders/courier-hour=%.2f " +
+                        "last return=%.0fmin%n",
+                mode, result.delivered(), result.trips(), result.delivered() / (double) result.trips(),
+                result.busyMinutes() / 60, perCourierHour(result), result.endMinute());
+        System.out.printf("%-10s ready->door min: avg=%.1f p95=%.1f | added by batching min: avg=%.1f max=%.1f%n",
+                "", Arrays.stream(result.toDoor()).average().orElse(0), percentile(result.toDoor(), 95),
+                Arrays.stream(result.extra()).average().orElse(0),
+                result.extra().length == 0 ? 0 : result.extra()[result.extra().length - 1]);
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p / 100 * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,144 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Closed-loop HTTP load generator: N clients, each sends its next request as soon as the previous one returns.
+// Used to compare the default platform-thread Tomcat pool with the "virtual" profile.
+//
+//   java bench/LoadBench.java --url http://localhost:8080/api/public/search-restaurants \
+//        --clients 1000 --seconds 30 [--warmup 5] [--header "Authorization: Bearer <jwt>"]
+//
+// Prints throughput, error count (by status code or exception) and latency percentiles of successful requests.
+// A client that gets Retry-After waits that long before its next request, like a well-behaved client would.
+public class LoadBench {
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int clients = 1000;
+        int seconds = 30;
+        int warmup = 5;
+        List<String[]> headers = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url" -> url = args[++i];
+                case "--clients" -> clients = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--header" -> headers.add(args[++i].split(":\\s*", 2));
+                default -> throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+        if (url == null) {
+            throw new IllegalArgumentException("--url is required");
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET();
+        headers.forEach(h -> builder.header(h[0], h[1]));
+        HttpRequest request = builder.build();
+
+        if (warmup > 0) {
+            run(request, Math.min(clients, 50), warmup);
+        }
+        Result result = run(request, clients, seconds);
+
+        long[] latencies = result.latenciesMicros();
+        Arrays.sort(latencies);
+        System.out.printf("clients=%d seconds=%d requests=%d errors=%d throughput=%.1f req/s%n",
+                clients, seconds, latencies.length, result.errors(), latencies.length / (double) seconds);
+        if (result.errors() > 0) {
+            System.out.println("errors by kind: " + new TreeMap<>(result.errorsByKind()));
+        }
+        System.out.printf("latency ms: p50=%.1f p95=%.1f p99=%.1f max=%.1f%n",
+                percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99),
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1000.0);
+    }
+
+    private record Result(long[] latenciesMicros, long errors, Map<String, Long> errorsByKind) {
+    }
+
+    private static Result run(HttpRequest request, int clients, int seconds) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder errors = new LongAdder();
+        Map<String, LongAdder> errorsByKind = new ConcurrentHashMap<>();
+        long[][] samples = new long[clients][];
+        int[] counts = new int[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+
+        // İstemciler sanal thread'de çalışır, böylece 1000+ istemci ölçülen sunucuyu değil kendini sınırlamaz
+        try (HttpClient http = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+             ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                pool.submit(() -> {
+                    long[] local = new long[1024];
+                    int count = 0;
+                    try {
+                        while (running.get()) {
+                            long start = System.nanoTime();
+                            try {
+                                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                                if (response.statusCode() >= 400) {
+                                    errors.increment();
+                                    errorsByKind.computeIfAbsent(String.valueOf(response.statusCode()), k -> new LongAdder()).increment();
+                                    long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(0);
+                                    if (retryAfter > 0) {
+                                        Thread.sleep(retryAfter * 1000);
+                                    }
+                                    continue;
+                                }
+                            } catch (InterruptedException e) {
+                                return;
+                            } catch (Exception e) {
+                                errors.increment();
+                                errorsByKind.computeIfAbsent(e.getClass().getSimpleName(), k -> new LongAdder()).increment();
+                                continue;
+                            }
+                            if (count == local.length) {
+                                local = Arrays.copyOf(local, local.length * 2);
+                            }
+                            local[count++] = (System.nanoTime() - start) / 1000;
+                        }
+                    } finally {
+                        samples[client] = local;
+                        counts[client] = count;
+                        done.countDown();
+                    }
+                });
+            }
+            Thread.sleep(seconds * 1000L);
+            running.set(false);
+            done.await();
+        }
+
+        long[] all = new long[Arrays.stream(counts).sum()];
+        int offset = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(samples[c], 0, all, offset, counts[c]);
+            offset += counts[c];
+        }
+        Map<String, Long> byKind = new TreeMap<>();
+        errorsByKind.forEach((kind, count) -> byKind.put(kind, count.sum()));
+        return new Result(all, errors.sum(), byKind);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1000.0;
+    }
+}
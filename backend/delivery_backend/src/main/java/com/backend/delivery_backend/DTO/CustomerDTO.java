@@ -13,6 +13,8 @@ public class CustomerDTO {
     private String address;
     private String city;
     private String district;
+    private Double latitude;
+    private Double longitude;
     private String role;
    // private List<String> favoriteRestaurantIds;
    // private List<OrderDTO> pastOrders;
@@ -26,6 +28,8 @@ public class CustomerDTO {
         this.address = customer.getAddress();
         this.city = customer.getCity();
         this.district = customer.getDistrict();
+        this.latitude = customer.getLatitude();
+        this.longitude = customer.getLongitude();
         /*this.favoriteRestaurantIds = customer.getFavoriteRestaurants()
                 .stream()
                 .map(RestaurantOwner::getRestaurantId)
@@ -43,6 +47,8 @@ public class CustomerDTO {
     public String getAddress() { return address; }
     public String getCity() { return city; }
     public String getDistrict() { return district; }
+    public Double getLatitude() { return latitude; }
+    public Double getLongitude() { return longitude; }
     //public List<String> getFavoriteRestaurantIds() { return favoriteRestaurantIds; }
 
     public void setName(String name) { this.name = name; }
@@ -52,6 +58,8 @@ public class CustomerDTO {
     public void setAddress(String address) { this.address = address; }
     public void setCity(String city) { this.city = city; }
     public void setDistrict(String district) { this.district = district; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
    /* public void setFavoriteRestaurantIds(List<String> favoriteRestaurantIds) {
         this.favoriteRestaurantIds = favoriteRestaurantIds;
     }
@@ -0,0 +1,30 @@
+package com.backend.delivery_backend.DTO;
+
+import com.backend.delivery_backend.service.MenuSearchIndex.Hit;
+import lombok.Getter;
+
+// Dish search result with the owning restaurant's public state
+@Getter
+public class MenuItemSearchDTO {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final double price;
+    private final boolean available;
+    private final String restaurantId;
+    private final String restaurantName;
+    private final float restaurantRating;
+    private final boolean restaurantOpen;
+
+    public MenuItemSearchDTO(Hit hit) {
+        this.id = hit.item().itemId();
+        this.name = hit.item().name();
+        this.description = hit.item().description();
+        this.price = hit.item().price();
+        this.available = hit.item().available();
+        this.restaurantId = hit.restaurant().restaurantId();
+        this.restaurantName = hit.restaurant().name();
+        this.restaurantRating = hit.restaurant().rating();
+        this.restaurantOpen = hit.restaurant().open();
+    }
+}
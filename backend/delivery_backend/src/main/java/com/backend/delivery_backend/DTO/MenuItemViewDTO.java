@@ -0,0 +1,22 @@
+package com.backend.delivery_backend.DTO;
+
+import com.backend.delivery_backend.model.MenuItem;
+import lombok.Getter;
+
+// Public menu row: only the fields the menu page renders, no restaurant/owner graph
+@Getter
+public class MenuItemViewDTO {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final double price;
+    private final boolean available;
+
+    public MenuItemViewDTO(MenuItem item) {
+        this.id = item.getId();
+        this.name = item.getName();
+        this.description = item.getDescription();
+        this.price = item.getPrice();
+        this.available = item.isAvailable();
+    }
+}
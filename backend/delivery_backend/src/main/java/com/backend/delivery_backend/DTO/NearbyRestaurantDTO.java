@@ -0,0 +1,16 @@
+package com.backend.delivery_backend.DTO;
+
+import com.backend.delivery_backend.service.RestaurantSearchIndex.NearbyHit;
+import lombok.Getter;
+
+// Restaurant summary plus its distance to the query point
+@Getter
+public class NearbyRestaurantDTO extends RestaurantSummaryDTO {
+    private final double distanceKm;
+
+    public NearbyRestaurantDTO(NearbyHit hit) {
+        super(hit.document());
+        // Metre hassasiyeti yeterli
+        this.distanceKm = Math.round(hit.distanceKm() * 1000) / 1000.0;
+    }
+}
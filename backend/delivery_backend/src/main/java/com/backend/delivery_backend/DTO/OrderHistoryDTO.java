@@ -0,0 +1,35 @@
+package com.backend.delivery_backend.DTO;
+
+import com.backend.delivery_backend.ENUM.DeliveryType;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Customer order history row, built by a JPQL constructor expression; items are filled in per page
+@Getter
+public class OrderHistoryDTO {
+    private final String orderId;
+    private final LocalDateTime orderDate;
+    private final String deliveryAddress;
+    private final double totalAmount;
+    private final String orderStatus;
+    private final DeliveryType deliveryType;
+    private final double tipAmount;
+    private final List<Item> items = new ArrayList<>();
+
+    public record Item(String name, String description, double price, int quantity) {
+    }
+
+    public OrderHistoryDTO(String orderId, LocalDateTime orderDate, String deliveryAddress, double totalAmount,
+                           String orderStatus, DeliveryType deliveryType, double tipAmount) {
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.deliveryAddress = deliveryAddress;
+        this.totalAmount = totalAmount;
+        this.orderStatus = orderStatus;
+        this.deliveryType = deliveryType;
+        this.tipAmount = tipAmount;
+    }
+}
@@ -1,10 +1,29 @@
 package com.backend.delivery_backend.DTO;
 
+import com.backend.delivery_backend.ENUM.DeliveryType;
+
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 public class RestaurantOrderDTO {
+    public RestaurantOrderDTO() {
+    }
+
+    // Restoran geçmişi projeksiyonu; kalemler sayfa başına ayrı sorguyla eklenir
+    public RestaurantOrderDTO(String orderId, LocalDateTime orderDate, String deliveryAddress, double totalAmount,
+                              String orderStatus, DeliveryType deliveryType, String customerName) {
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.deliveryAddress = deliveryAddress;
+        this.totalAmount = totalAmount;
+        this.orderStatus = orderStatus;
+        this.deliveryType = deliveryType != null ? deliveryType.name() : null;
+        this.customerName = customerName != null ? customerName : "Unknown";
+        this.items = new ArrayList<>();
+    }
+
     public String getOrderId() {
         return orderId;
     }
@@ -0,0 +1,39 @@
+package com.backend.delivery_backend.DTO;
+
+import com.backend.delivery_backend.ENUM.DeliveryType;
+import com.backend.delivery_backend.service.RestaurantSearchIndex.Document;
+import lombok.Getter;
+
+// Public listing view of a restaurant: no credentials, no contact or account fields
+@Getter
+public class RestaurantSummaryDTO {
+    private final String restaurantId;
+    private final String name;
+    private final String address;
+    private final String city;
+    private final String district;
+    private final Double latitude;
+    private final Double longitude;
+    private final String cuisineType;
+    private final DeliveryType deliveryType;
+    private final float rating;
+    private final boolean open;
+    private final String businessHoursStart;
+    private final String businessHoursEnd;
+
+    public RestaurantSummaryDTO(Document document) {
+        this.restaurantId = document.restaurantId();
+        this.name = document.name();
+        this.address = document.address();
+        this.city = document.city();
+        this.district = document.district();
+        this.latitude = document.latitude();
+        this.longitude = document.longitude();
+        this.cuisineType = document.cuisineType();
+        this.deliveryType = document.deliveryType();
+        this.rating = document.rating();
+        this.open = document.open();
+        this.businessHoursStart = document.businessHoursStart();
+        this.businessHoursEnd = document.businessHoursEnd();
+    }
+}
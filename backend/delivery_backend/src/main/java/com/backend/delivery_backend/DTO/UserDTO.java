@@ -9,6 +9,8 @@ public class UserDTO {
 	private String city;
 	private String district;
 	private String address;
+	private Double latitude;
+	private Double longitude;
 	private String businessHoursStart;
 	private String businessHoursEnd;
 	private String cuisineType;
@@ -73,6 +75,12 @@ public class UserDTO {
 	public String getAddress() { return address; }
 	public void setAddress(String address) { this.address = address; }
 
+	public Double getLatitude() { return latitude; }
+	public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+	public Double getLongitude() { return longitude; }
+	public void setLongitude(Double longitude) { this.longitude = longitude; }
+
 	public String getBusinessHoursStart() { return businessHoursStart; }
 	public void setBusinessHoursStart(String businessHoursStart) { this.businessHoursStart = businessHoursStart; }
 
@@ -1,6 +1,13 @@
 package com.backend.delivery_backend.ENUM;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
 public enum OrderStatus {
+    PENDING_PAYMENT, // Kart ödemesi onay bekliyor, restorana henüz düşmedi
+    PAYMENT_FAILED,
     PENDING,
     IN_PROGRESS,
     PREPARING,
@@ -9,5 +16,40 @@ public enum OrderStatus {
     DELIVERED,
     CANCELLED, // A general cancelled status if you prefer
     // Add any other statuses your system uses
-    CANCELLED_BY_CUSTOMER
-}
\ No newline at end of file
+    CANCELLED_BY_CUSTOMER;
+
+    // Allowed transitions; terminal statuses have none
+    public Set<OrderStatus> allowedNext() {
+        return switch (this) {
+            case PENDING_PAYMENT -> EnumSet.of(PENDING, PAYMENT_FAILED, CANCELLED, CANCELLED_BY_CUSTOMER);
+            case PENDING -> EnumSet.of(IN_PROGRESS, PREPARING, CANCELLED, CANCELLED_BY_CUSTOMER);
+            case IN_PROGRESS -> EnumSet.of(PREPARING, READY, CANCELLED, CANCELLED_BY_CUSTOMER);
+            case PREPARING -> EnumSet.of(READY, CANCELLED);
+            // Gel-al siparişleri READY'den doğrudan DELIVERED olur
+            case READY -> EnumSet.of(PICKED_UP, DELIVERED);
+            case PICKED_UP -> EnumSet.of(DELIVERED);
+            case PAYMENT_FAILED, DELIVERED, CANCELLED, CANCELLED_BY_CUSTOMER -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return allowedNext().contains(next);
+    }
+
+    // Statuses an order may be in when moving to next, as stored in orders.order_status
+    public static List<String> sourcesOf(OrderStatus next) {
+        return Arrays.stream(values())
+                .filter(status -> status.canTransitionTo(next))
+                .map(Enum::name)
+                .toList();
+    }
+
+    // Accepts the values the dashboards send ("ACCEPTED", "picked up"); throws IllegalArgumentException otherwise
+    public static OrderStatus fromRequest(String value) {
+        String normalized = value.trim().toUpperCase().replace(' ', '_');
+        if (normalized.equals("ACCEPTED")) {
+            return IN_PROGRESS;
+        }
+        return valueOf(normalized);
+    }
+}
@@ -47,9 +47,11 @@ public class DataSeeder implements CommandLineRunner {
             customerDto.setPassword("user1");
             customerDto.setPhone("5550000001");
             customerDto.setRole("customer");
-            customerDto.setCity("Ankara");
-            customerDto.setDistrict("Çankaya");
+            customerDto.setCity("Istanbul");
+            customerDto.setDistrict("Kadikoy");
             customerDto.setAddress("Customer Adresi No: 1");
+            customerDto.setLatitude(40.9885);
+            customerDto.setLongitude(29.0289);
             userService.save(customerDto);
 
             // Seed Courier
@@ -72,16 +74,16 @@ public class DataSeeder implements CommandLineRunner {
 
     private void seedRestaurantsAndMenus() {
         String[][] restaurantData = {
-                {"Pizza Place", "pizza@demo.com", "Italian", "10:00", "23:00"},
-                {"Burger Joint", "burger@demo.com", "American", "11:00", "22:00"},
-                {"Sushi Bar", "sushi@demo.com", "Japanese", "12:00", "23:00"},
-                {"Taco Truck", "taco@demo.com", "Mexican", "10:00", "24:00"},
-                {"Kebapçı", "kebap@demo.com", "Turkish", "09:00", "23:59"},
-                {"Vegan Cafe", "vegan@demo.com", "Healthy", "08:00", "20:00"},
-                {"Curry House", "curry@demo.com", "Indian", "12:00", "23:00"},
-                {"Noodle Bowl", "noodle@demo.com", "Chinese", "11:00", "22:00"},
-                {"Steakhouse", "steak@demo.com", "American", "16:00", "23:30"},
-                {"Breakfast Diner", "diner@demo.com", "American", "06:00", "15:00"}
+                {"Pizza Place", "pizza@demo.com", "Italian", "10:00", "23:00", "40.9903", "29.0251"},
+                {"Burger Joint", "burger@demo.com", "American", "11:00", "22:00", "40.9871", "29.0297"},
+                {"Sushi Bar", "sushi@demo.com", "Japanese", "12:00", "23:00", "40.9922", "29.0317"},
+                {"Taco Truck", "taco@demo.com", "Mexican", "10:00", "24:00", "40.9857", "29.0362"},
+                {"Kebapçı", "kebap@demo.com", "Turkish", "09:00", "23:59", "40.9889", "29.0228"},
+                {"Vegan Cafe", "vegan@demo.com", "Healthy", "08:00", "20:00", "40.9818", "29.0574"},
+                {"Curry House", "curry@demo.com", "Indian", "12:00", "23:00", "40.9951", "29.0385"},
+                {"Noodle Bowl", "noodle@demo.com", "Chinese", "11:00", "22:00", "40.9774", "29.0548"},
+                {"Steakhouse", "steak@demo.com", "American", "16:00", "23:30", "40.9728", "29.0631"},
+                {"Breakfast Diner", "diner@demo.com", "American", "06:00", "15:00", "40.9842", "29.0267"}
         };
 
         for (int i = 0; i < restaurantData.length; i++) {
@@ -94,6 +96,8 @@ public class DataSeeder implements CommandLineRunner {
             restDto.setCity("Istanbul");
             restDto.setDistrict("Kadikoy");
             restDto.setAddress("Restaurant No: " + (i + 1));
+            restDto.setLatitude(Double.valueOf(restaurantData[i][5]));
+            restDto.setLongitude(Double.valueOf(restaurantData[i][6]));
             restDto.setBusinessHoursStart(restaurantData[i][3]);
             restDto.setBusinessHoursEnd(restaurantData[i][4]);
             restDto.setCuisineType(restaurantData[i][2]);
@@ -0,0 +1,85 @@
+package com.backend.delivery_backend.config;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Sadece "virtual" profilinde: aynı anda işlenen istek sayısını sınırlar (JDBC'nin önündeki sıra).
+// Sanal thread'lerde Tomcat 200 thread'de durmaz; sınır olmadan binlerce istek birden HikariCP kuyruğuna girer ve
+// connection-timeout dolunca 500 ile düşer. Burada bekleyen istek bağlantı tutmaz; sırası queue-timeout içinde
+// gelmezse 503 + Retry-After alır. Havuz yine de tükenirse (SQLTransientConnectionException) cevap 503 olur.
+// SSE akışları izni sadece ilk dispatch boyunca tutar.
+@Component
+@Profile("virtual")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestConcurrencyLimiter implements Filter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestConcurrencyLimiter.class);
+
+    private final Semaphore permits;
+    private final long queueTimeoutMillis;
+
+    public RequestConcurrencyLimiter(@Value("${requests.max-concurrent:40}") int maxConcurrent,
+                                     @Value("${requests.queue-timeout-millis:10000}") long queueTimeoutMillis) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+        this.queueTimeoutMillis = queueTimeoutMillis;
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            unavailable((HttpServletResponse) res);
+            return;
+        }
+        try {
+            chain.doFilter(req, res);
+        } catch (ServletException | RuntimeException e) {
+            if (!isPoolExhausted(e) || res.isCommitted()) {
+                throw e;
+            }
+            logger.debug("Connection pool exhausted, answering 503", e);
+            unavailable((HttpServletResponse) res);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static boolean isPoolExhausted(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void unavailable(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Server is busy, please retry.");
+    }
+}
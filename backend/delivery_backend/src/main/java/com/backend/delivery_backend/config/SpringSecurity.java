@@ -2,6 +2,7 @@ package com.backend.delivery_backend.config;
 
 import com.backend.delivery_backend.security.JwtFilter;
 import com.backend.delivery_backend.service.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -56,6 +57,12 @@ public class SpringSecurity {
 				.cors(Customizer.withDefaults())
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) //JWT için zorunlu
 				.authorizeHttpRequests(auth -> auth
+						// SSE/async cevabın devamı; yetki ilk istekte kontrol edildi
+						.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+						// Teklifler, durum ve heartbeat yalnızca giriş yapmış kuryeye ait; kurye id'si controller'da token ile eşleştirilir
+						.requestMatchers("/api/couriers/*/delivery-requests", "/api/couriers/*/delivery-requests/**",
+								"/api/couriers/*/status", "/api/couriers/*/heartbeat")
+						.hasRole("COURIER")
 						.requestMatchers(
 								"/api/register",
 								"/api/forgot-password",
@@ -84,6 +91,7 @@ public class SpringSecurity {
 						.allowedOrigins("http://localhost:3000")
 						.allowedMethods("*")
 						.allowedHeaders("*")
+						.exposedHeaders("X-Next-Cursor", "ETag", "Idempotent-Replayed")
 						.allowCredentials(true);
 			}
 		};
@@ -0,0 +1,14 @@
+package com.backend.delivery_backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+// Sadece "virtual" profilinde: @Async metotlar (şifre sıfırlama maili) sanal thread'lerde çalışır.
+// Varsayılan profilde @Async etkisizdir, mail eskisi gibi istek thread'inde gönderilir.
+// Class proxy: UserDetailsServiceImpl somut tipiyle inject ediliyor.
+@Configuration
+@Profile("virtual")
+@EnableAsync(proxyTargetClass = true)
+public class VirtualThreadsConfig {
+}
@@ -23,7 +23,13 @@ import java.util.Arrays; // Bu importun olduğundan emin olun
 import java.util.List;  // Bu importun olduğundan emin olun
 import java.util.stream.Collectors; // Bu importun olduğundan emin olun
 import com.backend.delivery_backend.service.ComplaintService;
+import com.backend.delivery_backend.service.SearchResultCache;
+import com.backend.delivery_backend.service.CourierPresenceRegistry;
+import com.backend.delivery_backend.service.DomainEventOutbox;
+import com.backend.delivery_backend.service.OutboxRelay;
+import com.backend.delivery_backend.service.RestaurantSuspended;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -48,8 +54,12 @@ public class AdminController {
     @Autowired private MenuItemRepository menuItemRepository;
     @Autowired private CourierRestaurantRequestRepository courierRestaurantRequestRepository;
     @Autowired private TokenRepository tokenRepository;
+    @Autowired private DomainEventOutbox domainEventOutbox;
+    @Autowired private OutboxRelay outboxRelay;
     @Autowired private UserDetailsServiceImpl userService; // Kullanıcı bulmak için eklendi
     @Autowired private ComplaintService complaintService;
+    @Autowired private SearchResultCache searchResultCache;
+    @Autowired private CourierPresenceRegistry courierPresence;
 
 
     @GetMapping("/all-users")
@@ -92,7 +102,8 @@ public class AdminController {
         List<String> finalStatuses = Arrays.asList(
                 OrderStatus.DELIVERED.name(),
                 OrderStatus.CANCELLED.name(),
-                OrderStatus.CANCELLED_BY_CUSTOMER.name() // <<--- BURAYA EKLENDİ
+                OrderStatus.CANCELLED_BY_CUSTOMER.name(), // <<--- BURAYA EKLENDİ
+                OrderStatus.PAYMENT_FAILED.name()
 
         );
 
@@ -182,7 +193,7 @@ public class AdminController {
 
                 // 3. Disassociate Couriers
                 List<Courier> assignedCouriers = courierRepository.findByRestaurantOwnerRestaurantId(owner.getRestaurantId());
-                for (Courier c : assignedCouriers) { logger.debug("AdminDelete: Disassociating courier {}", c.getCourierId()); c.setRestaurantOwner(null); courierRepository.save(c); }
+                for (Courier c : assignedCouriers) { logger.debug("AdminDelete: Disassociating courier {}", c.getCourierId()); c.setRestaurantOwner(null); courierRepository.save(c); courierPresence.assignRestaurant(c.getCourierId(), null); }
 
                 // 4. Delete CourierRestaurantRequests
                 List<CourierRestaurantRequest> crRequestsRestaurant = courierRestaurantRequestRepository.findByRestaurantRestaurantId(owner.getRestaurantId());
@@ -204,6 +215,7 @@ public class AdminController {
                 for (Order o : assignedOrders) { logger.debug("Admin unassigning courier {} from order {}", cour.getCourierId(), o.getOrderId()); o.setCourier(null); orderRepository.save(o); }
                 courierRestaurantRequestRepository.deleteAll(courierRestaurantRequestRepository.findByCourierCourierId(cour.getCourierId()));
                 courierRepository.delete(cour);
+                courierPresence.forget(cour.getCourierId());
                 break;
             // Admin silme case'i burada yok, yukarıda engellendi.
             default:
@@ -258,6 +270,7 @@ public class AdminController {
 
         boolean changed = false;
         String originalRole = userToUpdate.getRole().toUpperCase();
+        String previousAccountStatus = userToUpdate.getAccountStatus(); // Durum değişirse sipariş iptali için
 
         // --- General Updates ---
         if (updates.containsKey("name") && updates.get("name") instanceof String newName && !newName.isEmpty() && !newName.equals(userToUpdate.getName())) {
@@ -289,7 +302,6 @@ public class AdminController {
             if (updates.containsKey("city") && updates.get("city") instanceof String newCity && !newCity.equals(customer.getCity())) { customer.setCity(newCity); changed = true; }
             if (updates.containsKey("district") && updates.get("district") instanceof String newDistrict && !newDistrict.equals(customer.getDistrict())) { customer.setDistrict(newDistrict); changed = true; }
         } else if (userToUpdate instanceof RestaurantOwner ro) {
-            String previousAccountStatus = ro.getAccountStatus(); // Durum değişirse sipariş iptali için
             if (updates.containsKey("address") && updates.get("address") instanceof String newAddress && !newAddress.equals(ro.getAddress())) { ro.setAddress(newAddress); changed = true; }
             if (updates.containsKey("city") && updates.get("city") instanceof String newCity && !newCity.equals(ro.getCity())) { ro.setCity(newCity); changed = true; }
             if (updates.containsKey("district") && updates.get("district") instanceof String newDistrict && !newDistrict.equals(ro.getDistrict())) { ro.setDistrict(newDistrict); changed = true; }
@@ -311,7 +323,8 @@ public class AdminController {
             // Durum değişti mi ve SUSPENDED mı oldu kontrolü
             if (changed && "SUSPENDED".equals(ro.getAccountStatus()) && !ro.getAccountStatus().equals(previousAccountStatus)) {
                 logger.info("Restaurant {} suspended by admin, cancelling pending orders.", ro.getName());
-                cancelPendingOrdersForRestaurant(ro.getRestaurantId());
+                // Açık siparişler bu istekte değil, outbox olayını alan OrderService'te iptal edilir
+                domainEventOutbox.append(new RestaurantSuspended(ro.getRestaurantId(), LocalDateTime.now()));
             }
 
         } else if (userToUpdate instanceof Courier) {
@@ -347,19 +360,6 @@ public class AdminController {
         }
     }
 
-    private void cancelPendingOrdersForRestaurant(String restaurantId) {
-        List<String> statusesToCancel = Arrays.asList("PENDING", "IN_PROGRESS", "PREPARING"); // İptal edilecek durumlar
-        List<Order> ordersToCancel = orderRepository.findByRestaurantRestaurantIdAndOrderStatusIn(restaurantId, statusesToCancel); // Yeni metot
-        if (!ordersToCancel.isEmpty()) {
-            logger.info("Cancelling {} orders for suspended/banned restaurant {}", ordersToCancel.size(), restaurantId);
-            for (Order order : ordersToCancel) {
-                order.setOrderStatus(OrderStatus.CANCELLED.name()); // Enum kullan
-                orderRepository.save(order);
-                // TODO: Müşteriyi bilgilendirme mekanizması eklenebilir (e-posta, bildirim vb.)
-            }
-        }
-    }
-
     // applyGeneralUserUpdates metodu AdminController.txt'deki gibi kalabilir.
     private void applyGeneralUserUpdates(User user, Map<String, Object> updates) {
         if (updates.containsKey("name") && updates.get("name") instanceof String newName) user.setName(newName);
@@ -467,5 +467,14 @@ public class AdminController {
         return ResponseEntity.ok(complaintService.getAllComplaints());
     }
 
+    // Arama cache'inin isabet oranı ve invalidation sayıları
+    @GetMapping("/search-cache/stats")
+    public ResponseEntity<SearchResultCache.Stats> getSearchCacheStats() {
+        return ResponseEntity.ok(searchResultCache.stats());
+    }
 
-}
\ No newline at end of file
+    @GetMapping("/outbox/stats")
+    public ResponseEntity<Map<String, Object>> getOutboxStats() {
+        return ResponseEntity.ok(outboxRelay.stats());
+    }
+}
@@ -5,6 +5,7 @@ import com.backend.delivery_backend.model.PasswordResetToken;
 import com.backend.delivery_backend.model.RestaurantOwner;
 import com.backend.delivery_backend.model.User;
 import com.backend.delivery_backend.security.JwtUtil;
+import com.backend.delivery_backend.security.StreamTicketService;
 import com.backend.delivery_backend.service.UserDetailsServiceImpl;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,10 +15,12 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
@@ -26,6 +29,7 @@ public class AuthController {
     @Autowired private AuthenticationManager authenticationManager;
     @Autowired private UserDetailsServiceImpl userDetailsService;
     @Autowired private JwtUtil jwtUtil;
+    @Autowired private StreamTicketService streamTicketService;
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody UserDTO userDTO) {
@@ -73,6 +77,15 @@ public class AuthController {
         }
     }
 
+    // SSE akışı açmak için kısa ömürlü, tek kullanımlık bilet: EventSource(url + "?ticket=" + ticket)
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<?> streamTicket(Authentication auth) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("ticket", streamTicketService.issue(auth.getName()));
+        response.put("expiresInSeconds", StreamTicketService.TTL_SECONDS);
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/logout")
     public ResponseEntity<?> logout() {
         // Logout işlemi sadece client-side'da token'ın silinmesi ile yapılır.
@@ -98,27 +111,29 @@ public class AuthController {
             }
 
             return ResponseEntity.ok("Registration successful");
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Registration failed: " + e.getMessage());
         }
     }
 
     @PostMapping("/forgot-password")
-    public ResponseEntity<?> forgotPassword(@RequestBody UserDTO userDTO) {
+    public CompletableFuture<ResponseEntity<?>> forgotPassword(@RequestBody UserDTO userDTO) {
         try {
             User user = userDetailsService.getUserByEmail(userDTO.getEmail());
             if (user == null) {
-                return ResponseEntity.status(404).body("User not found");
+                return CompletableFuture.completedFuture(ResponseEntity.status(404).body("User not found"));
             }
 
-            String result = userDetailsService.sendEmail(user);
-            if ("success".equals(result)) {
-                return ResponseEntity.ok("Reset email sent");
-            } else {
-                return ResponseEntity.internalServerError().body("Failed to send email");
-            }
+            // Mail gönderilirken servlet thread'i serbest kalır
+            return userDetailsService.sendEmailAsync(user)
+                    .<ResponseEntity<?>>thenApply(result -> "success".equals(result)
+                            ? ResponseEntity.ok("Reset email sent")
+                            : ResponseEntity.internalServerError().body("Failed to send email"))
+                    .exceptionally(e -> ResponseEntity.internalServerError().body("Server error: " + e.getMessage()));
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("Server error: " + e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().body("Server error: " + e.getMessage()));
         }
     }
 
@@ -1,10 +1,13 @@
 package com.backend.delivery_backend.controller;
 
 import com.backend.delivery_backend.DTO.DeliveryRequestDTO;
+import com.backend.delivery_backend.security.JwtUtil;
 import com.backend.delivery_backend.service.CourierService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Map;
 import com.backend.delivery_backend.ENUM.CourierStatus;
@@ -29,6 +32,9 @@ public class CourierController {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
     public CourierController(CourierService courierService) {
         this.courierService = courierService;
     }
@@ -60,10 +66,15 @@ public class CourierController {
 
     @PatchMapping("/{courierId}/delivery-requests/{requestId}")
     public ResponseEntity<?> handleDeliveryRequest(
-            @PathVariable Long courierId,
+            @PathVariable String courierId,
             @PathVariable Long requestId,
-            @RequestBody DeliveryRequestDTO dto) {
+            @RequestBody DeliveryRequestDTO dto,
+            Authentication auth,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
 
+        if (!isLoggedInCourier(auth, authorization, courierId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only answer your own delivery requests.");
+        }
         try {
             courierService.respondToDeliveryRequest(
                     courierId,
@@ -71,28 +82,50 @@ public class CourierController {
                     dto.getStatus());
 
             return ResponseEntity.ok("Request updated as " + dto.getStatus());
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
 
+    // Cevap bekleyen teslimat teklifleri (yenileri akışta "offer" olayı olarak da gelir)
+    @GetMapping("/{courierId}/delivery-requests")
+    public ResponseEntity<?> getPendingDeliveryRequests(@PathVariable String courierId, Authentication auth,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (!isLoggedInCourier(auth, authorization, courierId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only view your own delivery requests.");
+        }
+        return ResponseEntity.ok(courierService.pendingDeliveryRequests(courierId));
+    }
+
     @PatchMapping("/{courierId}/status")
-    public ResponseEntity<?> updateCourierStatus(@PathVariable String courierId, @RequestBody Map<String, String> payload) {
+    public ResponseEntity<?> updateCourierStatus(@PathVariable String courierId, @RequestBody Map<String, String> payload,
+                                                 Authentication auth,
+                                                 @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (!isLoggedInCourier(auth, authorization, courierId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only change your own status.");
+        }
         try {
-            String status = payload.get("status");
-            Courier courier = courierRepository.findByCourierId(courierId);
-
-            if (courier == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Courier not found");
-            }
-
-            CourierStatus newStatus = CourierStatus.valueOf(status);
-            courier.setStatus(newStatus);
-            courierRepository.save(courier);
-
+            courierService.updateCourierStatus(courierId, payload.get("status"));
             return ResponseEntity.ok("Status updated successfully");
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid status value");
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
+        }
+    }
+
+    // Kurye uygulaması açıkken periyodik çağrılır; courier.presence.stale-after-seconds boyunca
+    // hiç görülmeyen AVAILABLE kurye UNAVAILABLE yapılır
+    @PostMapping("/{courierId}/heartbeat")
+    public ResponseEntity<?> heartbeat(@PathVariable String courierId, Authentication auth,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (!isLoggedInCourier(auth, authorization, courierId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only send your own heartbeat.");
+        }
+        try {
+            return ResponseEntity.ok(courierService.heartbeat(courierId));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         }
     }
 
@@ -115,6 +148,13 @@ public class CourierController {
         return ResponseEntity.ok(activeOrders);
     }
 
-
-
+    // Path'teki kurye giriş yapmış kurye mi (başka kuryenin teklifleri/durumu değiştirilemez). Kurye id'si JWT'nin
+    // "id" claim'inden okunur; heartbeat gibi sık çağrılar için veritabanına gidilmez. Token'ı JwtFilter doğruladı.
+    private boolean isLoggedInCourier(Authentication auth, String authorization, String courierId) {
+        if (auth == null || authorization == null || !authorization.startsWith("Bearer ")
+                || auth.getAuthorities().stream().noneMatch(a -> "ROLE_COURIER".equals(a.getAuthority()))) {
+            return false;
+        }
+        return courierId.equals(jwtUtil.extractId(authorization.substring(7)));
+    }
 }
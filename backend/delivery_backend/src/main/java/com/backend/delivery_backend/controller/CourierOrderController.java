@@ -1,16 +1,26 @@
 package com.backend.delivery_backend.controller;
 
+import com.backend.delivery_backend.ENUM.OrderStatus;
 import com.backend.delivery_backend.model.Courier;
 import com.backend.delivery_backend.model.Order;
 import com.backend.delivery_backend.repository.CourierRepository;
 import com.backend.delivery_backend.repository.OrderRepository;
+import com.backend.delivery_backend.service.OrderService;
+import com.backend.delivery_backend.service.OrderUpdateHub;
+import com.backend.delivery_backend.service.ReadyOrderQueue;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/courier/orders")
@@ -22,6 +32,18 @@ public class CourierOrderController {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderUpdateHub orderUpdateHub;
+
+    @Autowired
+    private ReadyOrderQueue readyOrderQueue;
+
+    // Kurye yalnızca teslimat adımlarını işaretleyebilir
+    private static final Set<OrderStatus> COURIER_SETTABLE_STATUSES = EnumSet.of(OrderStatus.PICKED_UP, OrderStatus.DELIVERED);
+
     // ➔ Kuryeye atanmış siparişleri listele
     @GetMapping("/assigned")
     public ResponseEntity<?> getAssignedOrdersForCourier(Authentication auth) {
@@ -36,23 +58,24 @@ public class CourierOrderController {
         return ResponseEntity.ok(assignedOrders);
     }
 
+    // ➔ Canlı akış: kuryeye atanan siparişler ve restoranında hazır (READY) olan siparişler
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCourierOrders(Authentication auth) {
+        Courier courier = courierRepository.findByEmail(auth.getName());
+        if (courier == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Courier not found.");
+        }
+        if (courier.getRestaurantOwner() == null) {
+            return orderUpdateHub.subscribe(OrderUpdateHub.courierTopic(courier.getCourierId()));
+        }
+        return orderUpdateHub.subscribe(OrderUpdateHub.courierTopic(courier.getCourierId()),
+                OrderUpdateHub.availableForCouriersTopic(courier.getRestaurantOwner().getRestaurantId()));
+    }
+
     // ➔ Aktif siparişleri listele
     @GetMapping("/active")
     public ResponseEntity<?> getActiveOrdersForCourier(Authentication auth) {
-        String email = auth.getName();
-        Courier courier = courierRepository.findByEmail(email);
-
-        if (courier == null || courier.getRestaurantOwner() == null) {
-            return ResponseEntity.badRequest().body("Courier not assigned to any restaurant.");
-        }
-
-        String restaurantId = courier.getRestaurantOwner().getRestaurantId();
-
-        List<Order> activeOrders = orderRepository.findByRestaurantId(restaurantId).stream()
-                .filter(order -> "READY".equals(order.getOrderStatus()))
-                .toList();
-
-        return ResponseEntity.ok(activeOrders);
+        return readyOrdersForCourier(auth);
     }
 
     // ➔ Siparişi kabul et
@@ -65,46 +88,25 @@ public class CourierOrderController {
             return ResponseEntity.badRequest().body("Courier not assigned to any restaurant.");
         }
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found."));
-
-        // Sipariş kuryenin restoranına mı ait kontrolü
-        if (!order.getRestaurant().getRestaurantId().equals(courier.getRestaurantOwner().getRestaurantId())) {
-            return ResponseEntity.status(403).body("You can only accept orders from your own restaurant.");
-        }
-
-        // Sipariş başka bir kurye tarafından alınmış mı kontrolü
-        if (order.getCourier() != null) {
-            return ResponseEntity.badRequest().body("This order has already been accepted by another courier.");
-        }
-
-        // Siparişi kabul et
-        order.setCourier(courier);
-        orderRepository.save(order);
-
-        return ResponseEntity.ok("Order accepted successfully.");
+        return claim(orderId, courier);
     }
 
-    // CourierOrderController.java içine
     @GetMapping("/available")
     public ResponseEntity<?> getAvailableOrders(Authentication auth) {
-        String email = auth.getName();
-        Courier courier = courierRepository.findByEmail(email);
+        return readyOrdersForCourier(auth);
+    }
+
+    // İki liste de aynı kuyruk: kuryenin restoranında READY durumundaki siparişler
+    private ResponseEntity<?> readyOrdersForCourier(Authentication auth) {
+        Courier courier = courierRepository.findByEmail(auth.getName());
 
         if (courier == null || courier.getRestaurantOwner() == null) {
             return ResponseEntity.badRequest().body("Courier not assigned to any restaurant.");
         }
 
-        String restaurantId = courier.getRestaurantOwner().getRestaurantId();
-
-
-        // Bu restorana ait PENDING, IN_PROGRESS, PREPARING veya READY durumundaki siparişleri getir
-        List<Order> availableOrders = orderRepository.findByRestaurantId(restaurantId).stream()
-                .filter(order -> "READY".equals(order.getOrderStatus()))
-                .toList();
-
-        return ResponseEntity.ok(availableOrders);
+        return ResponseEntity.ok(readyOrderQueue.readyOrders(courier.getRestaurantOwner().getRestaurantId()));
     }
+
     @PatchMapping("/accept-available/{orderId}")
     public ResponseEntity<?> acceptAvailableOrder(@PathVariable String orderId, Authentication auth) {
         String email = auth.getName();
@@ -114,63 +116,41 @@ public class CourierOrderController {
             return ResponseEntity.badRequest().body("Courier not assigned to any restaurant.");
         }
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found."));
-
-        // Sipariş zaten bir kuryeye atanmış mı?
-        if (order.getCourier() != null) {
-            return ResponseEntity.badRequest().body("Order has already been accepted by another courier.");
-        }
+        return claim(orderId, courier);
+    }
 
-        // Sipariş kuryenin restoranına mı ait?
-        if (!order.getRestaurant().getRestaurantId().equals(courier.getRestaurantOwner().getRestaurantId())) {
-            return ResponseEntity.status(403).body("You can only accept orders from your own restaurant.");
+    // İki endpoint de aynı atomik atamayı kullanır; aynı anda basan kuryelerden yalnızca biri kazanır
+    private ResponseEntity<?> claim(String orderId, Courier courier) {
+        try {
+            orderService.claimForCourier(orderId, courier);
+            return ResponseEntity.ok("Order accepted successfully.");
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         }
-
-        // Siparişi kendine ata
-        order.setCourier(courier);
-        orderRepository.save(order);
-
-        return ResponseEntity.ok("Order accepted successfully.");
     }
 
     @PatchMapping("/update-status/{orderId}")
-    public ResponseEntity<?> updateOrderStatus(@PathVariable String orderId, @RequestBody Map<String, String> requestBody) {
+    public ResponseEntity<?> updateOrderStatus(@PathVariable String orderId, @RequestBody Map<String, String> requestBody,
+                                               Authentication auth) {
         String newStatus = requestBody.get("status");
         
         if (newStatus == null) {
             return ResponseEntity.badRequest().body("Status field is required");
         }
-        
-        // If it's a JSON object containing status, just use the raw string value
-        if (newStatus.contains("{") || newStatus.contains(":")) {
-            try {
-                // Just take the plain string value without parsing as JSON
-                newStatus = newStatus.replaceAll("[{}\"]", "").replaceAll("status:", "").trim();
-            } catch (Exception e) {
-                // If there's an error, just proceed with the original value
-                System.err.println("Error parsing status: " + e.getMessage());
-            }
+
+        Courier courier = courierRepository.findByEmail(auth.getName());
+        if (courier == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Courier not found.");
         }
         
-        // Standardize the status format
-        newStatus = newStatus.replace("\"", "").toUpperCase().trim();
-        
-        // Special case for "picked up" format
-        if (newStatus.equals("PICKED UP")) {
-            newStatus = "PICKED_UP";
+        // Sadece kendisine atanmış siparişin durumu değişir
+        try {
+            OrderStatus updated = orderService.updateStatusForCourier(orderId, courier.getCourierId(), newStatus,
+                    COURIER_SETTABLE_STATUSES);
+            return ResponseEntity.ok("Order status updated successfully to " + updated.name());
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         }
-        
-        // Log the final status value for debugging
-        System.out.println("Setting order status to: " + newStatus);
-        
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found."));
-
-        order.setOrderStatus(newStatus);
-        orderRepository.save(order);
-
-        return ResponseEntity.ok("Order status updated successfully to " + newStatus);
     }
 
 
@@ -4,6 +4,7 @@ import com.backend.delivery_backend.DTO.FeedbackDTO;
 import com.backend.delivery_backend.model.*;
 import com.backend.delivery_backend.repository.*;
 import com.backend.delivery_backend.service.FeedbackService;
+import com.backend.delivery_backend.service.RestaurantActivity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -35,6 +36,9 @@ public class FeedbackController {
     @Autowired
     private FeedbackService feedbackService;
 
+    @Autowired
+    private RestaurantActivity restaurantActivity;
+
     // DTO for restaurant rating and review
     public static class RestaurantRatingRequest {
         private int rating;
@@ -107,6 +111,9 @@ public class FeedbackController {
         feedback.setCreatedAt(LocalDateTime.now());
 
         feedbackRepository.save(feedback);
+        if (request.getRating() > 0) {
+            restaurantActivity.recordFeedback(order.getRestaurant().getRestaurantId(), feedback.getCreatedAt());
+        }
 
         // Update restaurant rating average
         List<Feedback> restaurantFeedbacks = feedbackRepository.findAll().stream()
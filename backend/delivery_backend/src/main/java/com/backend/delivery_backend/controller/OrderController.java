@@ -1,16 +1,25 @@
 package com.backend.delivery_backend.controller;
 
+import com.backend.delivery_backend.DTO.OrderHistoryDTO;
 import com.backend.delivery_backend.DTO.RestaurantOrderDTO;
 import com.backend.delivery_backend.ENUM.DeliveryType;
+import com.backend.delivery_backend.ENUM.OrderStatus;
 import com.backend.delivery_backend.model.*;
 import com.backend.delivery_backend.repository.*;
+import com.backend.delivery_backend.service.ActiveOrderIndex;
+import com.backend.delivery_backend.service.IdempotencyStore;
+import com.backend.delivery_backend.service.OrderHistoryService;
 import com.backend.delivery_backend.service.OrderService;
+import com.backend.delivery_backend.service.OrderUpdateHub;
 import com.backend.delivery_backend.DTO.CardInfoDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.backend.delivery_backend.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -23,6 +32,7 @@ import java.util.Map;
 import java.util.List; // For getOrderHistory if you add it here
 import com.backend.delivery_backend.model.Order;
 
+import java.time.LocalDate;
 import java.util.*;
 
 @RestController
@@ -33,9 +43,16 @@ public class OrderController {
     @Autowired private CartRepository cartRepository;
     @Autowired private OrderRepository orderRepository;
     @Autowired private OrderService orderService;
+    @Autowired private OrderHistoryService orderHistoryService;
+    @Autowired private ActiveOrderIndex activeOrderIndex;
+    @Autowired private IdempotencyStore idempotencyStore;
+    @Autowired private OrderUpdateHub orderUpdateHub;
     @Autowired private MenuItemRepository menuItemRepository;
     @Autowired private RestaurantOwnerRepository restaurantOwnerRepository;
 
+    private static final Set<OrderStatus> OWNER_SETTABLE_STATUSES = EnumSet.of(OrderStatus.IN_PROGRESS,
+            OrderStatus.PREPARING, OrderStatus.READY, OrderStatus.PICKED_UP, OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
 
     @PreAuthorize("hasRole('CUSTOMER')")
     @PostMapping("/create")
@@ -44,67 +61,41 @@ public class OrderController {
                                          @RequestParam String paymentMethod,
                                          @RequestParam DeliveryType deliveryType,
                                          @RequestParam(required = false) Double tipAmount,
-                                         @RequestBody(required = false) CardInfoDTO cardInfo) {
-        String email = auth.getName();
-        Customer customer = customerRepository.findByEmail(email);
-        if (customer == null) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Customer not found");
-        }
-
-        // Müşteri ban edilmişse sipariş veremez
-        if ("BANNED".equals(customer.getAccountStatus())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body("Your account has been banned. You cannot place orders.");
-        }
-
-        // Askıya alınan müşteri sipariş veremez
-        if ("SUSPENDED".equals(customer.getAccountStatus())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body("Your account has been suspended. You cannot place orders at this time.");
-        }
-
-        Cart cart = cartRepository.findByCustomerId(customer.getCustomerId());
-        if (cart == null || cart.getItems().isEmpty()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Cart is empty");
-        }
-
-        // Sepetteki ilk ürünün restoranını kontrol et
-        MenuItem firstItem = cart.getItems().keySet().iterator().next();
-        RestaurantOwner restaurant = firstItem.getRestaurant();
-
-        // Restoran ban edilmiş veya askıya alınmışsa sipariş verilemez
-        if ("BANNED".equals(restaurant.getAccountStatus()) || "SUSPENDED".equals(restaurant.getAccountStatus())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body("The restaurant is currently unavailable. Your order cannot be processed.");
+                                         @RequestBody(required = false) CardInfoDTO cardInfo,
+                                         @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return placeOrder(auth.getName(), deliveryAddress, paymentMethod, deliveryType, tipAmount, cardInfo);
         }
+        // Aynı anahtarla tekrar gelen istek (çift tıklama, yeniden deneme) ilk cevabı alır, yeni sipariş açılmaz
+        String fingerprint = String.join("|", deliveryAddress, paymentMethod, deliveryType.name(),
+                String.valueOf(tipAmount), cardInfo != null ? String.valueOf(cardInfo.getCardNumber()) : "");
+        return idempotencyStore.execute(auth.getName(), idempotencyKey, fingerprint,
+                () -> placeOrder(auth.getName(), deliveryAddress, paymentMethod, deliveryType, tipAmount, cardInfo));
+    }
 
-        // Eğer ödeme yöntemi kredi kartıysa, kart bilgisi kontrolü yap
-        if (paymentMethod.equalsIgnoreCase("CREDIT_CARD")) {
-            if (cardInfo == null ||
-                    cardInfo.getCardNumber() == null ||
-                    cardInfo.getExpiryDate() == null ||
-                    cardInfo.getCvv() == null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body("Card info is required for credit card payment");
-            }
+    private ResponseEntity<?> placeOrder(String email, String deliveryAddress, String paymentMethod,
+                                         DeliveryType deliveryType, Double tipAmount, CardInfoDTO cardInfo) {
+        // Doğrulama, kayıt ve sepet temizliği OrderService'te tek transaction içinde
+        Order order;
+        try {
+            order = orderService.createOrder(
+                    email,
+                    deliveryAddress,
+                    paymentMethod,
+                    deliveryType,
+                    cardInfo != null ? cardInfo.getCardNumber() : null,
+                    cardInfo != null ? cardInfo.getExpiryDate() : null,
+                    cardInfo != null ? cardInfo.getCvv() : null,
+                    tipAmount
+            );
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         }
 
-        // Siparişi oluştur
-        Order order = orderService.createOrder(
-                customer,
-                cart,
-                deliveryAddress,
-                paymentMethod,
-                deliveryType,
-                cardInfo != null ? cardInfo.getCardNumber() : null,
-                cardInfo != null ? cardInfo.getExpiryDate() : null,
-                cardInfo != null ? cardInfo.getCvv() : null,
-                tipAmount
-        );
-
         return ResponseEntity.ok(Map.of(
                 "message", "Order placed successfully",
                 "orderId", order.getOrderId(),
+                "status", order.getOrderStatus(),
                 "total", order.getTotalAmount(),
                 "tip", order.getTipAmount()
         ));
@@ -134,7 +125,9 @@ public class OrderController {
 
     @PreAuthorize("hasRole('CUSTOMER')")
     @GetMapping("/history")
-    public ResponseEntity<?> getOrderHistory(Authentication auth) {
+    public ResponseEntity<?> getOrderHistory(Authentication auth,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) String cursor) {
         String email = auth.getName();
         Customer customer = customerRepository.findByEmail(email);
 
@@ -142,39 +135,21 @@ public class OrderController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Customer not found");
         }
 
-        Set<Order> orders = customer.getOrders();
-
-        if (orders == null || orders.isEmpty()) {
-            return ResponseEntity.ok(Collections.emptyList());
+        // limit/cursor yoksa eski davranış: tüm geçmiş tek JSON dizi olarak (en yeni sipariş önce)
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(orderHistoryService.fullCustomerHistory(customer.getCustomerId()));
         }
 
-        List<Map<String, Object>> response = new ArrayList<>();
-        for (Order order : orders) {
-            Map<String, Object> orderData = new LinkedHashMap<>();
-            orderData.put("orderId", order.getOrderId());
-            orderData.put("orderDate", order.getOrderDate());
-            orderData.put("deliveryAddress", order.getDeliveryAddress());
-            orderData.put("totalAmount", order.getTotalAmount());
-            orderData.put("orderStatus", order.getOrderStatus());
-            orderData.put("deliveryType", order.getDeliveryType());
-            orderData.put("tipAmount", order.getTipAmount());
-
-            List<Map<String, Object>> itemsList = new ArrayList<>();
-            for (Map.Entry<MenuItem, Integer> entry : order.getItems().entrySet()) {
-                MenuItem item = entry.getKey();
-                Map<String, Object> itemMap = new HashMap<>();
-                itemMap.put("name", item.getName());
-                itemMap.put("description", item.getDescription());
-                itemMap.put("price", item.getPrice());
-                itemMap.put("quantity", entry.getValue());
-                itemsList.add(itemMap);
-            }
-            orderData.put("items", itemsList);
-
-            response.add(orderData);
+        OrderHistoryService.Page<OrderHistoryDTO> page;
+        try {
+            page = orderHistoryService.customerHistory(customer.getCustomerId(), limit, cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-
-        return ResponseEntity.ok(response);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("results", page.items());
+        body.put("nextCursor", page.nextCursor());
+        return ResponseEntity.ok(body);
     }
 
     @PreAuthorize("hasRole('CUSTOMER')")
@@ -248,6 +223,27 @@ public class OrderController {
     // In OrderController.java - Need to add this method
 
 
+    // Sipariş geçmişini yoklamak yerine: müşterinin siparişlerindeki her değişiklik SSE ile gelir
+    @PreAuthorize("hasRole('CUSTOMER')")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCustomerOrders(Authentication auth) {
+        Customer customer = customerRepository.findByEmail(auth.getName());
+        if (customer == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Customer not found");
+        }
+        return orderUpdateHub.subscribe(OrderUpdateHub.customerTopic(customer.getCustomerId()));
+    }
+
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    @GetMapping(value = "/stream/restaurant", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRestaurantOrders(Authentication auth) {
+        RestaurantOwner owner = restaurantOwnerRepository.findByEmail(auth.getName());
+        if (owner == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Restaurant not found");
+        }
+        return orderUpdateHub.subscribe(OrderUpdateHub.restaurantTopic(owner.getRestaurantId()));
+    }
+
     // In OrderController.java - Add this method
     @PreAuthorize("hasRole('RESTAURANT_OWNER')")
     @PatchMapping("/status/{orderId}")
@@ -261,23 +257,12 @@ public class OrderController {
                 return ResponseEntity.badRequest().body("Status field is required");
             }
 
-            Optional<Order> orderOpt = orderRepository.findById(orderId);
-            if (orderOpt.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Order not found");
-            }
-
-            Order order = orderOpt.get();
-
-            // Eğer "ACCEPTED" geldiyse, veritabanına "IN_PROGRESS" olarak yaz
-            if (newStatus.equalsIgnoreCase("ACCEPTED")) {
-                order.setOrderStatus("IN_PROGRESS");
-            } else {
-                order.setOrderStatus(newStatus);
-            }
-
-            orderRepository.save(order);
-            return ResponseEntity.ok("Order status updated to " + order.getOrderStatus());
+            // "ACCEPTED" veritabanına IN_PROGRESS olarak yazılır
+            OrderStatus updated = orderService.updateStatus(orderId, newStatus, OWNER_SETTABLE_STATUSES);
+            return ResponseEntity.ok("Order status updated to " + updated.name());
 
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error updating order status: " + e.getMessage());
@@ -286,47 +271,45 @@ public class OrderController {
 
     @PreAuthorize("hasRole('RESTAURANT_OWNER')")
     @GetMapping("/history/restaurant/{restaurantId}")
-    public ResponseEntity<?> getPastOrdersByRestaurant(@PathVariable String restaurantId) {
-        List<Order> orders = orderRepository.findByRestaurantId(restaurantId)
-                .stream()
-                .sorted(Comparator.comparing(Order::getOrderDate).reversed())
-                .toList();
-        if (orders.isEmpty()) {
-            return ResponseEntity.ok(Collections.emptyList());
-        }
-
-        List<RestaurantOrderDTO> result = new ArrayList<>();
-
-        for (Order order : orders) {
-            RestaurantOrderDTO dto = new RestaurantOrderDTO();
-            dto.setOrderId(order.getOrderId());
-            dto.setOrderDate(order.getOrderDate());
-            dto.setDeliveryAddress(order.getDeliveryAddress());
-            dto.setTotalAmount(order.getTotalAmount());
-            dto.setOrderStatus(order.getOrderStatus());
-            dto.setDeliveryType(order.getDeliveryType().name());
-
-            if (order.getCustomer() != null) {
-                dto.setCustomerName(order.getCustomer().getName());
-            } else {
-                dto.setCustomerName("Unknown");
+    public ResponseEntity<?> getPastOrdersByRestaurant(@PathVariable String restaurantId,
+                                                       @RequestParam(required = false) List<String> status,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                       @RequestParam(required = false) Integer limit,
+                                                       @RequestParam(required = false) String cursor) {
+        // Filtreleme, sıralama ve sayfalama veritabanında; ödemesi onaylanmamış siparişler yine gösterilmez
+        try {
+            Set<OrderStatus> statuses = EnumSet.noneOf(OrderStatus.class);
+            if (status != null) {
+                status.forEach(value -> statuses.add(OrderStatus.fromRequest(value)));
             }
+            OrderHistoryService.RestaurantFilter filter = new OrderHistoryService.RestaurantFilter(statuses, from, to);
 
-            List<Map<String, Object>> itemList = new ArrayList<>();
-            for (Map.Entry<MenuItem, Integer> entry : order.getItems().entrySet()) {
-                Map<String, Object> item = new HashMap<>();
-                item.put("name", entry.getKey().getName());
-                item.put("price", entry.getKey().getPrice());
-                item.put("quantity", entry.getValue());
-                item.put("description", entry.getKey().getDescription());
-                itemList.add(item);
+            // limit/cursor yoksa eski davranış: tek JSON dizi
+            if (limit == null && cursor == null) {
+                return ResponseEntity.ok(orderHistoryService.fullRestaurantHistory(restaurantId, filter));
             }
-
-            dto.setItems(itemList);
-            result.add(dto);
+            OrderHistoryService.Page<RestaurantOrderDTO> page =
+                    orderHistoryService.restaurantHistory(restaurantId, filter, limit, cursor);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("results", page.items());
+            body.put("nextCursor", page.nextCursor());
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
+    }
 
-        return ResponseEntity.ok(result);
+    // Mutfak panosu: aktif siparişler duruma göre gruplu, sadece bellekten okunur
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    @GetMapping("/active/restaurant/{restaurantId}")
+    public ResponseEntity<?> getActiveOrdersByRestaurant(@PathVariable String restaurantId, Authentication auth) {
+        // Restoran girişten bulunur, başka restoranın panosu okunamaz
+        RestaurantOwner owner = restaurantOwnerRepository.findByEmail(auth.getName());
+        if (owner == null || !owner.getRestaurantId().equals(restaurantId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only view your own restaurant's orders.");
+        }
+        return ResponseEntity.ok(activeOrderIndex.board(owner.getRestaurantId()));
     }
 
     @PatchMapping("/restaurants/{id}/toggle-status")
@@ -2,11 +2,13 @@ package com.backend.delivery_backend.controller;
 
 import com.backend.delivery_backend.model.*;
 import com.backend.delivery_backend.repository.*;
+import com.backend.delivery_backend.service.CourierPresenceRegistry;
 import com.backend.delivery_backend.DTO.CustomerDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 import org.springframework.http.HttpStatus;
@@ -35,6 +37,7 @@ public class ProfileController {
     @Autowired private MenuItemRepository menuItemRepository;
     @Autowired private CourierRestaurantRequestRepository courierRestaurantRequestRepository;
     @Autowired private TokenRepository tokenRepository;
+    @Autowired private CourierPresenceRegistry courierPresence;
     // @Autowired private FeedbackRepository feedbackRepository; // Eğer siparişle ilişkili feedback varsa
 
     // ... (getProfile, updateProfile, favorites metodları aynı kalacak) ...
@@ -65,6 +68,14 @@ public class ProfileController {
     public ResponseEntity<?> updateProfile(Authentication auth, @RequestBody Map<String, Object> updates) {
         String email = auth.getName();
 
+        try {
+            return applyUpdates(email, updates);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
+        }
+    }
+
+    private ResponseEntity<?> applyUpdates(String email, Map<String, Object> updates) {
         Customer c = customerRepository.findByEmail(email);
         if (c != null) {
             applyCustomerUpdates(c, updates);
@@ -95,6 +106,8 @@ public class ProfileController {
         if (updates.containsKey("city")) c.setCity((String) updates.get("city"));
         if (updates.containsKey("district")) c.setDistrict((String) updates.get("district"));
         if (updates.containsKey("address")) c.setAddress((String) updates.get("address"));
+        if (updates.containsKey("latitude")) c.setLatitude(toCoordinate("latitude", updates.get("latitude"), 90));
+        if (updates.containsKey("longitude")) c.setLongitude(toCoordinate("longitude", updates.get("longitude"), 180));
     }
 
     private void applyCourierUpdates(Courier c, Map<String, Object> updates) {
@@ -108,6 +121,8 @@ public class ProfileController {
         if (updates.containsKey("city")) ro.setCity((String) updates.get("city"));
         if (updates.containsKey("district")) ro.setDistrict((String) updates.get("district"));
         if (updates.containsKey("address")) ro.setAddress((String) updates.get("address"));
+        if (updates.containsKey("latitude")) ro.setLatitude(toCoordinate("latitude", updates.get("latitude"), 90));
+        if (updates.containsKey("longitude")) ro.setLongitude(toCoordinate("longitude", updates.get("longitude"), 180));
         if (updates.containsKey("businessHoursStart")) ro.setBusinessHoursStart((String) updates.get("businessHoursStart"));
         if (updates.containsKey("businessHoursEnd")) ro.setBusinessHoursEnd((String) updates.get("businessHoursEnd"));
         // Add cuisineType and deliveryType if they are updatable from profile
@@ -123,6 +138,26 @@ public class ProfileController {
          **/
     }
 
+    // JSON'dan sayı veya metin olarak gelebilir, null ya da boş metin konumu siler; geçersiz değer 400 döner
+    private Double toCoordinate(String field, Object value, double limit) {
+        if (value == null || value.toString().isBlank()) return null;
+        double coordinate;
+        if (value instanceof Number number) {
+            coordinate = number.doubleValue();
+        } else {
+            try {
+                coordinate = Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + " must be a number.");
+            }
+        }
+        if (!Double.isFinite(coordinate) || Math.abs(coordinate) > limit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    field + " must be between -" + (int) limit + " and " + (int) limit + ".");
+        }
+        return coordinate;
+    }
+
     // FAVORITES
     @PreAuthorize("hasRole('CUSTOMER')")
     @PostMapping("/favorites/add")
@@ -193,7 +228,8 @@ public class ProfileController {
         List<String> finalStatuses = Arrays.asList(
                 OrderStatus.DELIVERED.name(),
                 OrderStatus.CANCELLED.name(),
-                OrderStatus.CANCELLED_BY_CUSTOMER.name() // <<--- BURAYA EKLENDİ
+                OrderStatus.CANCELLED_BY_CUSTOMER.name(), // <<--- BURAYA EKLENDİ
+                OrderStatus.PAYMENT_FAILED.name()
 
         );
 
@@ -332,6 +368,7 @@ public class ProfileController {
                     logger.debug("Disassociating courier {} from restaurant {}", c.getCourierId(), owner.getRestaurantId());
                     c.setRestaurantOwner(null);
                     courierRepository.save(c);
+                    courierPresence.assignRestaurant(c.getCourierId(), null);
                 }
 
                 // 4. Delete CourierRestaurantRequests (Bu zaten yapılıyor ve doğru)
@@ -379,6 +416,7 @@ public class ProfileController {
                     courierRestaurantRequestRepository.deleteAll(crRequestsCourier);
                 }
                 courierRepository.delete(cour);
+                courierPresence.forget(cour.getCourierId());
                 break;
         }
 
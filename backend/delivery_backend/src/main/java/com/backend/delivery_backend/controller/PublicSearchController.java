@@ -1,23 +1,56 @@
 package com.backend.delivery_backend.controller;
 
-import com.backend.delivery_backend.ENUM.DeliveryType;
-import com.backend.delivery_backend.model.RestaurantOwner;
-import com.backend.delivery_backend.repository.RestaurantOwnerRepository;
+import com.backend.delivery_backend.DTO.MenuItemSearchDTO;
+import com.backend.delivery_backend.DTO.NearbyRestaurantDTO;
+import com.backend.delivery_backend.model.Customer;
+import com.backend.delivery_backend.repository.CustomerRepository;
+import com.backend.delivery_backend.service.MenuSearchIndex;
+import com.backend.delivery_backend.service.RestaurantRanker;
+import com.backend.delivery_backend.service.RestaurantSearchIndex;
+import com.backend.delivery_backend.service.SearchResultCache;
+import com.backend.delivery_backend.service.SuggestionIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalTime;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/public")
 public class PublicSearchController {
 
     @Autowired
-    private RestaurantOwnerRepository restaurantOwnerRepository;
+    private RestaurantSearchIndex restaurantSearchIndex;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private RestaurantRanker restaurantRanker;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private MenuSearchIndex menuSearchIndex;
+
+    private static final int DEFAULT_NEARBY_COUNT = 20;
+    private static final int MAX_NEARBY_COUNT = 100;
+    private static final double MAX_NEARBY_RADIUS_KM = 50;
+    private static final int DEFAULT_SUGGESTIONS = 10;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int DEFAULT_MENU_RESULTS = 50;
+    private static final int MAX_MENU_RESULTS = 100;
 
     @GetMapping("/search-restaurants")
     public ResponseEntity<?> searchRestaurants(@RequestParam(required = false) String keyword,
@@ -26,70 +59,145 @@ public class PublicSearchController {
                                                @RequestParam(required = false) String sortBy,
                                                @RequestParam(required = false) String cuisineType,
                                                @RequestParam(required = false) String deliveryType,
-                                               @RequestParam(required = false) Float topRated) {
-
-        Stream<RestaurantOwner> stream = restaurantOwnerRepository.findAll().stream()
-                // Sadece onaylanmış restoranları göster
-                .filter(RestaurantOwner::isApproved)
-                // Ban veya suspended edilmiş restoranları gösterme
-                .filter(r -> !"BANNED".equals(r.getAccountStatus()) && !"SUSPENDED".equals(r.getAccountStatus()))
-                .filter(r -> {
-                    if (keyword != null &&
-                            !(r.getName().toLowerCase().contains(keyword.toLowerCase()) ||
-                                    r.getAddress().toLowerCase().contains(keyword.toLowerCase()))) {
-                        return false;
-                    }
-
-                    if (minRating != null && r.getRating() < minRating) {
-                        return false;
-                    }
-
-                    if (Boolean.TRUE.equals(openNow) &&
-                            !isOpenNow(r.getBusinessHoursStart(), r.getBusinessHoursEnd())) {
-                        return false;
-                    }
-
-                    if (cuisineType != null &&
-                            (r.getCuisineType() == null ||
-                                    !r.getCuisineType().equalsIgnoreCase(cuisineType))) {
-                        return false;
-                    }
-
-                    if (deliveryType != null &&
-                            (r.getDeliveryType() == null ||
-                                    !(r.getDeliveryType().name().equalsIgnoreCase(deliveryType) ||
-                                            r.getDeliveryType() == DeliveryType.BOTH))) {
-                        return false;
-                    }
-
-                    if (topRated != null && r.getRating() < topRated) {
-                        return false;
-                    }
-
-                    return true;
-                });
-
-        // Sıralama
-        if (sortBy != null) {
-            switch (sortBy.toLowerCase()) {
-                case "rating" -> stream = stream.sorted(Comparator.comparing(RestaurantOwner::getRating).reversed());
-                case "name" -> stream = stream.sorted(Comparator.comparing(RestaurantOwner::getName));
-                default -> {}
+                                               @RequestParam(required = false) Float topRated,
+                                               @RequestParam(defaultValue = "false") boolean includeFacets,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Double lat,
+                                               @RequestParam(required = false) Double lon) {
+
+        RestaurantSearchIndex.Result searchResult = search(keyword, minRating, openNow, cuisineType, deliveryType,
+                topRated, includeFacets);
+        if (RestaurantRanker.isRelevanceSort(sortBy)) {
+            return RestaurantListings.respond(
+                    () -> restaurantRanker.page(searchResult.documents(), limit, cursor, lat, lon),
+                    limit != null || cursor != null, searchResult.facets());
+        }
+        return RestaurantListings.respond(searchResult.documents(), sortBy, limit, cursor, searchResult.facets());
+    }
+
+    // format=ndjson: aynı arama, satır satır akış olarak
+    @GetMapping(value = "/search-restaurants", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamRestaurants(@RequestParam(required = false) String keyword,
+                                                                   @RequestParam(required = false) Float minRating,
+                                                                   @RequestParam(required = false) Boolean openNow,
+                                                                   @RequestParam(required = false) String sortBy,
+                                                                   @RequestParam(required = false) String cuisineType,
+                                                                   @RequestParam(required = false) String deliveryType,
+                                                                   @RequestParam(required = false) Float topRated,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Double lat,
+                                                                   @RequestParam(required = false) Double lon) {
+
+        RestaurantSearchIndex.Result searchResult = search(keyword, minRating, openNow, cuisineType, deliveryType,
+                topRated, false);
+        if (RestaurantRanker.isRelevanceSort(sortBy)) {
+            return RestaurantListings.streamNdjson(objectMapper,
+                    () -> restaurantRanker.page(searchResult.documents(), limit, cursor, lat, lon));
+        }
+        return RestaurantListings.streamNdjson(objectMapper, searchResult.documents(), sortBy, limit, cursor);
+    }
+
+    // lat/lon verilmezse giriş yapmış müşterinin kayıtlı konumu kullanılır
+    @GetMapping("/restaurants/nearby")
+    public ResponseEntity<?> nearbyRestaurants(@RequestParam(required = false) Double lat,
+                                               @RequestParam(required = false) Double lon,
+                                               @RequestParam(required = false) Double radiusKm,
+                                               @RequestParam(required = false) Integer k,
+                                               @RequestParam(required = false) String keyword,
+                                               @RequestParam(required = false) Float minRating,
+                                               @RequestParam(required = false) Boolean openNow,
+                                               @RequestParam(required = false) String cuisineType,
+                                               @RequestParam(required = false) String deliveryType,
+                                               Authentication authentication) {
+        if ((lat == null || lon == null) && authentication != null) {
+            Customer customer = customerRepository.findByEmail(authentication.getName());
+            if (customer != null) {
+                lat = customer.getLatitude();
+                lon = customer.getLongitude();
             }
         }
+        if (lat == null || lon == null) {
+            return ResponseEntity.badRequest().body("lat and lon are required");
+        }
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            return ResponseEntity.badRequest().body("lat must be in [-90, 90] and lon in [-180, 180]");
+        }
+        if (radiusKm != null && radiusKm <= 0) {
+            return ResponseEntity.badRequest().body("radiusKm must be positive");
+        }
+        int count = k == null ? DEFAULT_NEARBY_COUNT : Math.max(1, Math.min(k, MAX_NEARBY_COUNT));
+
+        List<NearbyRestaurantDTO> results = restaurantSearchIndex.nearby(
+                        new RestaurantSearchIndex.Query(keyword, minRating, Boolean.TRUE.equals(openNow), cuisineType, deliveryType),
+                        lat, lon, radiusKm, count, MAX_NEARBY_RADIUS_KM)
+                .stream()
+                .map(NearbyRestaurantDTO::new)
+                .toList();
+        return ResponseEntity.ok(results);
+    }
+
+    // Her tuş vuruşunda çağrılır; restoran, mutfak ve menü ürünü adları, yazım hatasına toleranslı
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(@RequestParam String q,
+                                     @RequestParam(required = false) Integer limit) {
+        int count = limit == null ? DEFAULT_SUGGESTIONS : Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return ResponseEntity.ok(suggestionIndex.suggest(q, count));
+    }
+
+    // Tüm restoranlarda yemek araması; sortBy "price", "priceDesc" veya "rating", varsayılan alaka sırası
+    @GetMapping("/search-menu-items")
+    public ResponseEntity<?> searchMenuItems(@RequestParam(required = false) String keyword,
+                                             @RequestParam(required = false) Double minPrice,
+                                             @RequestParam(required = false) Double maxPrice,
+                                             @RequestParam(defaultValue = "true") boolean availableOnly,
+                                             @RequestParam(defaultValue = "false") boolean openOnly,
+                                             @RequestParam(required = false) String sortBy,
+                                             @RequestParam(required = false) Integer limit) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return ResponseEntity.badRequest().body("minPrice must not be greater than maxPrice");
+        }
+        int count = limit == null ? DEFAULT_MENU_RESULTS : Math.max(1, Math.min(limit, MAX_MENU_RESULTS));
 
-        List<RestaurantOwner> results = stream.toList();
+        List<MenuItemSearchDTO> results = menuSearchIndex.search(
+                        new MenuSearchIndex.Query(keyword, minPrice, maxPrice, availableOnly, openOnly))
+                .stream()
+                .sorted(menuItemOrder(sortBy))
+                .limit(count)
+                .map(MenuItemSearchDTO::new)
+                .toList();
         return ResponseEntity.ok(results);
     }
 
-    private boolean isOpenNow(String start, String end) {
-        try {
-            LocalTime now = LocalTime.now();
-            LocalTime startTime = LocalTime.parse(start);
-            LocalTime endTime = LocalTime.parse(end);
-            return !now.isBefore(startTime) && !now.isAfter(endTime);
-        } catch (Exception e) {
-            return false;
+    private static Comparator<MenuSearchIndex.Hit> menuItemOrder(String sortBy) {
+        Comparator<MenuSearchIndex.Hit> byPrice = Comparator.comparingDouble(hit -> hit.item().price());
+        Comparator<MenuSearchIndex.Hit> byId = Comparator.comparing(hit -> hit.item().itemId());
+        if ("price".equalsIgnoreCase(sortBy)) {
+            return byPrice.thenComparing(byId);
+        }
+        if ("priceDesc".equalsIgnoreCase(sortBy)) {
+            return byPrice.reversed().thenComparing(byId);
+        }
+        if ("rating".equalsIgnoreCase(sortBy)) {
+            return Comparator.comparingDouble((MenuSearchIndex.Hit hit) -> hit.restaurant().rating()).reversed()
+                    .thenComparing(byPrice).thenComparing(byId);
+        }
+        // Adında geçenler açıklamasında geçenlerden önce
+        return Comparator.comparing((MenuSearchIndex.Hit hit) -> !hit.nameMatch()).thenComparing(byPrice).thenComparing(byId);
+    }
+
+    private RestaurantSearchIndex.Result search(String keyword, Float minRating, Boolean openNow, String cuisineType,
+                                                String deliveryType, Float topRated, boolean includeFacets) {
+        // minRating ve topRated aynı eşik filtresi, büyük olanı geçerli
+        Float ratingThreshold = minRating;
+        if (topRated != null && (ratingThreshold == null || topRated > ratingThreshold)) {
+            ratingThreshold = topRated;
         }
+
+        // Filtreler index'teki bitset kesişimleriyle cevaplanır, veritabanına gidilmez; aynı filtreler cache'ten döner
+        return searchResultCache.search(
+                new RestaurantSearchIndex.Query(keyword, ratingThreshold, Boolean.TRUE.equals(openNow), cuisineType, deliveryType),
+                includeFacets);
     }
-}
\ No newline at end of file
+}
@@ -6,10 +6,19 @@ import com.backend.delivery_backend.model.MenuItem;
 import com.backend.delivery_backend.model.RestaurantOwner;
 import com.backend.delivery_backend.repository.RestaurantOwnerRepository;
 import com.backend.delivery_backend.service.RestaurantOwnerService;
+import com.backend.delivery_backend.service.MenuSnapshotCache;
+import com.backend.delivery_backend.service.RestaurantSearchIndex;
+import com.backend.delivery_backend.service.CourierPresenceRegistry;
+import com.backend.delivery_backend.service.SearchResultCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.HttpStatus; // HttpStatus ekle
 import com.backend.delivery_backend.service.RestaurantOwnerService.OperationBlockedException; // MenuItemInUseException yerine
 import java.util.List;
@@ -43,6 +52,16 @@ public class RestaurantController {
     private final RestaurantOwnerRepository restaurantOwnerRepository;
     @Autowired
     private CourierRepository courierRepository;
+    @Autowired
+    private CourierPresenceRegistry courierPresence;
+    @Autowired
+    private RestaurantSearchIndex restaurantSearchIndex;
+    @Autowired
+    private SearchResultCache searchResultCache;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache;
 
     public RestaurantController(RestaurantOwnerService restaurantOwnerService,RestaurantOwnerRepository restaurantOwnerRepository ) {
         this.restaurantOwnerService = restaurantOwnerService;
@@ -50,45 +69,47 @@ public class RestaurantController {
     }
 
     @GetMapping("/{id}/menu")
-    public ResponseEntity<?> getMenu(@PathVariable String id) {
-        // First check if the restaurant exists
-        Optional<RestaurantOwner> restaurant = restaurantOwnerRepository.findById(id);
+    public ResponseEntity<?> getMenu(@PathVariable String id,
+                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Restoran durumu index'ten okunur, menü hazır JSON snapshot'tan döner; değişmediyse DB'ye hiç gidilmez
+        Optional<RestaurantSearchIndex.Document> restaurant = restaurantSearchIndex.get(id);
         if (restaurant.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Restaurant not found");
         }
 
-        RestaurantOwner restaurantOwner = restaurant.get();
-
         // If restaurant is not approved, return 403 Forbidden
-        if (!restaurantOwner.isApproved()) {
+        if (!restaurant.get().approved()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Restaurant is pending approval");
         }
 
-        // Bu kısmı kaldırmanız/değiştirmeniz gerekiyor:
-    /* If restaurant is banned or suspended, return 403 Forbidden
-    if ("BANNED".equals(restaurantOwner.getAccountStatus()) || "SUSPENDED".equals(restaurantOwner.getAccountStatus())) {
-        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Restaurant is currently unavailable");
-    }
-    */
-
-        // Yeni kod: Askıya alınmış restoranlara kendi menülerini görüntüleme izni verelim
-        // Sadece BANNED olanlar için kısıtlama kalsın
-        if ("BANNED".equals(restaurantOwner.getAccountStatus())) {
+        // Askıya alınmış restoranlar kendi menülerini görebilir, sadece BANNED olanlar için kısıtlama var
+        if ("BANNED".equals(restaurant.get().accountStatus())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Restaurant is currently unavailable");
         }
 
-        List<MenuItem> items = restaurantOwnerService.getMenuItemsByRestaurant(id);
-        return ResponseEntity.ok(items);
+        MenuSnapshotCache.Snapshot menu = menuSnapshotCache.get(id);
+        if (menu.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(menu.etag()).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(menu.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(menu.json());
     }
 
     @GetMapping("/api/restaurants/{restaurantId}/available-couriers")
     public List<CourierDTO> getAvailableCouriers(@PathVariable String restaurantId) {
-        List<Courier> couriers = courierRepository.findByRestaurantOwnerRestaurantId(restaurantId)
-                .stream()
-                .filter(c -> c.getStatus() == CourierStatus.AVAILABLE)
-                .toList();
-
-        return couriers.stream().map(CourierDTO::new).collect(Collectors.toList());
+        // Kim müsait bellekten okunur; kolondaki durum asenkron yazıldığı için geride kalabilir
+        List<String> available = courierPresence.available(restaurantId).stream()
+                .map(CourierPresenceRegistry.CourierPresence::courierId).toList();
+        List<Courier> couriers = courierRepository.findAllById(available);
+
+        return couriers.stream().map(courier -> {
+            CourierDTO dto = new CourierDTO(courier);
+            dto.setStatus(CourierStatus.AVAILABLE);
+            return dto;
+        }).collect(Collectors.toList());
     }
 
     @PatchMapping("/{id}/toggle-status")
@@ -170,12 +191,22 @@ public class RestaurantController {
     }
 
     @GetMapping("/public")
-    public ResponseEntity<?> getAllApprovedRestaurants() {
-        List<RestaurantOwner> restaurants = restaurantOwnerRepository.findByApprovedTrue();
-        // Hesap durumu aktif olan restoranları filtrele
-        restaurants = restaurants.stream()
-                .filter(r -> !"BANNED".equals(r.getAccountStatus()) && !"SUSPENDED".equals(r.getAccountStatus()))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(restaurants);
+    public ResponseEntity<?> getAllApprovedRestaurants(@RequestParam(required = false) String sortBy,
+                                                       @RequestParam(required = false) Integer limit,
+                                                       @RequestParam(required = false) String cursor) {
+        return RestaurantListings.respond(activeRestaurants(), sortBy, limit, cursor, null);
+    }
+
+    @GetMapping(value = "/public", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamApprovedRestaurants(@RequestParam(required = false) String sortBy,
+                                                                           @RequestParam(required = false) Integer limit,
+                                                                           @RequestParam(required = false) String cursor) {
+        return RestaurantListings.streamNdjson(objectMapper, activeRestaurants(), sortBy, limit, cursor);
+    }
+
+    // Onaylı ve aktif (BANNED/SUSPENDED olmayan) restoranlar index'ten gelir
+    private List<RestaurantSearchIndex.Document> activeRestaurants() {
+        return searchResultCache.search(
+                new RestaurantSearchIndex.Query(null, null, false, null, null), false).documents();
     }
 }
\ No newline at end of file
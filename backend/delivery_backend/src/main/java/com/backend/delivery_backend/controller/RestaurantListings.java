@@ -0,0 +1,102 @@
+package com.backend.delivery_backend.controller;
+
+import com.backend.delivery_backend.DTO.RestaurantSummaryDTO;
+import com.backend.delivery_backend.service.RestaurantKeyset;
+import com.backend.delivery_backend.service.RestaurantSearchIndex.Document;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Shared response shaping for restaurant lists: sorting, keyset paging, slim DTOs and NDJSON streaming
+final class RestaurantListings {
+
+    static final String NDJSON = "application/x-ndjson";
+    private static final int FLUSH_EVERY = 50;
+
+    private RestaurantListings() {
+    }
+
+    // limit/cursor yoksa eski davranış: tüm liste tek JSON dizi olarak döner
+    static ResponseEntity<?> respond(List<Document> documents, String sortBy, Integer limit, String cursor,
+                                     Map<String, Map<String, Integer>> facets) {
+        return respond(() -> select(documents, sortBy, limit, cursor), limit != null || cursor != null, facets);
+    }
+
+    // selector may throw IllegalArgumentException for a bad cursor, answered with 400
+    static ResponseEntity<?> respond(Supplier<RestaurantKeyset.Page> selector, boolean paged,
+                                     Map<String, Map<String, Integer>> facets) {
+        RestaurantKeyset.Page page;
+        try {
+            page = selector.get();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        List<RestaurantSummaryDTO> results = page.items().stream().map(RestaurantSummaryDTO::new).toList();
+        if (!paged && facets == null) {
+            return ResponseEntity.ok(results);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("results", results);
+        if (paged) {
+            body.put("nextCursor", page.nextCursor());
+        }
+        if (facets != null) {
+            body.put("facets", facets);
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    // Her satır üretildiği anda yazılır; sonraki sayfa imleci header ile döner
+    static ResponseEntity<StreamingResponseBody> streamNdjson(ObjectMapper objectMapper, List<Document> documents,
+                                                              String sortBy, Integer limit, String cursor) {
+        return streamNdjson(objectMapper, () -> select(documents, sortBy, limit, cursor));
+    }
+
+    static ResponseEntity<StreamingResponseBody> streamNdjson(ObjectMapper objectMapper,
+                                                              Supplier<RestaurantKeyset.Page> selector) {
+        RestaurantKeyset.Page page;
+        try {
+            page = selector.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        List<Document> rows = page.items();
+        StreamingResponseBody body = out -> {
+            int written = 0;
+            for (Document document : rows) {
+                out.write(objectMapper.writeValueAsBytes(new RestaurantSummaryDTO(document)));
+                out.write('\n');
+                if (++written % FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        };
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON));
+        if (page.nextCursor() != null) {
+            builder.header("X-Next-Cursor", page.nextCursor());
+        }
+        return builder.body(body);
+    }
+
+    private static RestaurantKeyset.Page select(List<Document> documents, String sortBy, Integer limit, String cursor) {
+        if (limit != null || cursor != null) {
+            return RestaurantKeyset.page(documents, sortBy, cursor,
+                    limit != null ? limit : RestaurantKeyset.DEFAULT_PAGE_SIZE);
+        }
+        if (RestaurantKeyset.isKeysetSort(sortBy)) {
+            documents = documents.stream().sorted(RestaurantKeyset.comparator(sortBy)).toList();
+        }
+        return new RestaurantKeyset.Page(documents, null);
+    }
+}
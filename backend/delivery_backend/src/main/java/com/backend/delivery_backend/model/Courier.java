@@ -19,7 +19,9 @@ public class Courier extends User {
     @JoinColumn(name = "restaurantId")
     private RestaurantOwner restaurantOwner;
 
+    // Güncel durum CourierPresenceRegistry'de; kolon oradan asenkron yazılır, entity save'leri ezmesin
     @Enumerated(EnumType.STRING)
+    @Column(updatable = false)
     private CourierStatus status = CourierStatus.UNAVAILABLE; // default olarak unavailable
 
 
@@ -18,6 +18,13 @@ public class Customer extends User {
     @Column(name = "district")
     private String district;
 
+    // Teslimat konumu (WGS84 derece), yakındaki restoranlar için varsayılan nokta
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
     @ManyToMany
     private Set<RestaurantOwner> favoriteRestaurants;
 
@@ -49,6 +56,12 @@ public class Customer extends User {
 
     public String getDistrict() { return district; }
     public void setDistrict(String district) { this.district = district; }
+
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
     @Override
     public String getId() {
         return this.customerId;
@@ -22,16 +22,26 @@ public class DeliveryRequest {
     @ManyToOne
     private Courier courier;
 
-    private Long orderId;
+    // Sipariş id'leri "order-<uuid>"; eski sayısal order_id kolonu kullanılmıyor
+    @Column(name = "order_ref")
+    private String orderId;
 //    @OneToOne
 //    private Order order;
 
     private LocalDateTime createdAt;
 
+    // Teklif bu zamana kadar cevaplanmazsa sıradaki kuryeye geçer
+    private LocalDateTime expiresAt;
+    private LocalDateTime answeredAt;
+    // REJECTED ama kurye cevaplamadı: süre doldu ya da sipariş başka yoldan alındı
+    private boolean expired;
+
+    // Birlikte teklif edilen siparişlerin (trip) istekleri aynı tripId'yi taşır ve birlikte cevaplanır
+    private String tripId;
+
     @PrePersist
     public void onCreate() {
         this.createdAt = LocalDateTime.now();
     }
 
 }
-
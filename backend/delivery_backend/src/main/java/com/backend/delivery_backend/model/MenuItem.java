@@ -1,5 +1,6 @@
 package com.backend.delivery_backend.model;
 
+import com.backend.delivery_backend.service.MenuItemIndexListener;
 import jakarta.persistence.*;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -7,6 +8,7 @@ import lombok.Setter;
 
 @Entity
 @Table(name = "menu_item")
+@EntityListeners(MenuItemIndexListener.class)
 @Getter
 @Setter
 public class MenuItem {
@@ -6,7 +6,12 @@ import java.time.LocalDateTime;
 import java.util.Map;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_date", columnList = "customer_id, order_date, order_id"),
+        @Index(name = "idx_orders_restaurant_date", columnList = "restaurant_id, order_date, order_id"),
+        @Index(name = "idx_orders_status_date", columnList = "order_status, order_date"),
+        @Index(name = "idx_orders_restaurant_status", columnList = "restaurant_id, order_status")
+})
 public class Order {
 
     @Id
@@ -46,6 +51,10 @@ public class Order {
 
     private double tipAmount = 0.0;
 
+    // Tam nesne kaydeden yollar (save) eşzamanlı değişikliği ezmek yerine hata alır
+    @Version
+    private long version;
+
     public String getOrderId() {
         return orderId;
     }
@@ -131,6 +140,10 @@ public class Order {
         this.restaurant = restaurant;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public Courier getCourier() {
         return courier;
     }
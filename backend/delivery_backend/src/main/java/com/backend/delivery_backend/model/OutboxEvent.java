@@ -0,0 +1,35 @@
+package com.backend.delivery_backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Domain event written in the same transaction as the change it describes; OutboxRelay delivers it after commit
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_unpublished", columnList = "published_at, id"))
+@Getter
+@Setter
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // DomainEvent sınıfının kısa adı (OrderPlaced, OrderStatusChanged, ...)
+    @Column(nullable = false, length = 64)
+    private String type;
+
+    @Column(nullable = false)
+    private String aggregateId;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // null: henüz dağıtılmadı
+    private LocalDateTime publishedAt;
+}
@@ -1,9 +1,11 @@
 package com.backend.delivery_backend.model;
 import com.backend.delivery_backend.ENUM.DeliveryType;
+import com.backend.delivery_backend.service.RestaurantIndexListener;
 import jakarta.persistence.*;
 
 @Entity
 @Table(name = "restaurant_owners")
+@EntityListeners(RestaurantIndexListener.class)
 public class RestaurantOwner extends User {
 
     @Column(nullable = false)
@@ -23,6 +25,13 @@ public class RestaurantOwner extends User {
     @Column(name = "district")
     private String district;
 
+    // Konum, yakındaki restoran araması için (WGS84 derece)
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
     @Id
     private String restaurantId;
 
@@ -76,6 +85,12 @@ public class RestaurantOwner extends User {
     public String getDistrict() { return district; }
     public void setDistrict(String district) { this.district = district; }
 
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+
     public String getAddress() { return address; }
     public void setAddress(String address) { this.address = address; }
 
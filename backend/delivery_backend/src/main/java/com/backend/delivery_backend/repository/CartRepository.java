@@ -2,7 +2,15 @@ package com.backend.delivery_backend.repository;
 
 import com.backend.delivery_backend.model.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface CartRepository extends JpaRepository<Cart, String> {
     Cart findByCustomerId(String customerId);
-}
\ No newline at end of file
+
+    // Checkout için müşteri, sepet satırları, ürünler ve restoranları tek sorguda
+    @Query("select distinct c from Cart c join fetch c.customer cu "
+            + "left join fetch c.items i left join fetch key(i) m left join fetch m.restaurant "
+            + "where cu.email = :email")
+    Cart findForCheckoutByCustomerEmail(@Param("email") String email);
+}
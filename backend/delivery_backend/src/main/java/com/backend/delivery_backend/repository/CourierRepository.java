@@ -1,11 +1,31 @@
 package com.backend.delivery_backend.repository;
 
+import com.backend.delivery_backend.ENUM.CourierStatus;
 import com.backend.delivery_backend.model.Courier;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 import java.util.List; // <-- BU SATIR
 
 public interface CourierRepository extends JpaRepository<Courier, String> {
     Courier findByEmail(String email);
     Courier findByCourierId(String courierId);
     List<Courier> findByRestaurantOwnerRestaurantId(String restaurantId);
+
+    // CourierPresenceRegistry satırları: [courierId, restaurantId, status]
+    @Query("select c.courierId, r.restaurantId, c.status from Courier c left join c.restaurantOwner r")
+    List<Object[]> findPresenceRows();
+
+    @Query("select c.courierId, r.restaurantId, c.status from Courier c left join c.restaurantOwner r " +
+            "where c.courierId = :courierId")
+    List<Object[]> findPresenceRowsByCourierId(@Param("courierId") String courierId);
+
+    // status kolonunu sadece CourierPresenceRegistry yazar
+    @Modifying
+    @Query("update Courier c set c.status = :status where c.courierId in :courierIds")
+    int updateStatusByCourierIdIn(@Param("courierIds") Collection<String> courierIds,
+                                  @Param("status") CourierStatus status);
 }
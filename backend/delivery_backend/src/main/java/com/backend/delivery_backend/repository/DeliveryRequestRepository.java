@@ -1,9 +1,42 @@
 package com.backend.delivery_backend.repository;
 
+import com.backend.delivery_backend.ENUM.RequestStatus;
 import com.backend.delivery_backend.model.DeliveryRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface DeliveryRequestRepository extends JpaRepository<DeliveryRequest, Long> {
 //    List<DeliveryRequest> findByCourierIdAndStatus(Long courierId, RequestStatus status);
-}
 
+    List<DeliveryRequest> findByCourierCourierIdAndStatus(String courierId, RequestStatus status);
+
+    // Cevap, zaman aşımı ve geri çekme yarışır; sadece hâlâ PENDING olanı değiştiren kazanır (1 satır)
+    @Modifying(flushAutomatically = true)
+    @Query("update DeliveryRequest r set r.status = :status, r.expired = :expired, r.answeredAt = :answeredAt " +
+            "where r.id = :id and r.status = :pending")
+    int answerIfPending(@Param("id") Long id, @Param("status") RequestStatus status,
+                        @Param("expired") boolean expired, @Param("answeredAt") LocalDateTime answeredAt,
+                        @Param("pending") RequestStatus pending);
+
+    // Trip'in istekleri hep birlikte cevaplanır; hepsi değişir ya da (biri zaten cevaplandıysa) hiçbiri
+    @Modifying(flushAutomatically = true)
+    @Query("update DeliveryRequest r set r.status = :status, r.expired = :expired, r.answeredAt = :answeredAt " +
+            "where r.tripId = :tripId and r.status = :pending")
+    int answerTripIfPending(@Param("tripId") String tripId, @Param("status") RequestStatus status,
+                            @Param("expired") boolean expired, @Param("answeredAt") LocalDateTime answeredAt,
+                            @Param("pending") RequestStatus pending);
+
+    List<DeliveryRequest> findByTripIdOrderById(String tripId);
+
+    // Yeniden başlatmada önceki çalışmadan kalan açık teklifler kapatılır
+    @Modifying
+    @Query("update DeliveryRequest r set r.status = :rejected, r.expired = true, r.answeredAt = :now " +
+            "where r.status = :pending")
+    int expireAllPending(@Param("now") LocalDateTime now, @Param("pending") RequestStatus pending,
+                         @Param("rejected") RequestStatus rejected);
+}
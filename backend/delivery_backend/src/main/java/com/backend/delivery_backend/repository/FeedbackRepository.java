@@ -2,7 +2,16 @@ package com.backend.delivery_backend.repository;
 
 import com.backend.delivery_backend.model.Feedback;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface FeedbackRepository extends JpaRepository<Feedback, String>{}
\ No newline at end of file
+public interface FeedbackRepository extends JpaRepository<Feedback, String>{
+
+    // [restaurantId, son puanlı yorumun zamanı]
+    @Query("select f.restaurant.restaurantId, max(f.createdAt) from Feedback f "
+            + "where f.restaurant is not null and f.restaurantRating > 0 group by f.restaurant.restaurantId")
+    List<Object[]> findLatestRatedFeedbackPerRestaurant();
+}
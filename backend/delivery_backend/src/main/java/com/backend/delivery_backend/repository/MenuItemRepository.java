@@ -3,6 +3,7 @@ package com.backend.delivery_backend.repository;
 import com.backend.delivery_backend.model.MenuItem;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +12,8 @@ import java.util.List;
 public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
     List<MenuItem> findByRestaurantRestaurantId(String restaurantId);
     Optional<MenuItem> findById(Long id);
+
+    // Index rebuild'leri için restoranlarla tek sorguda
+    @Query("select m from MenuItem m left join fetch m.restaurant")
+    List<MenuItem> findAllWithRestaurant();
 }
\ No newline at end of file
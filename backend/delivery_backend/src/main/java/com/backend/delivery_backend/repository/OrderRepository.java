@@ -1,9 +1,21 @@
 package com.backend.delivery_backend.repository;
 
+import com.backend.delivery_backend.DTO.OrderHistoryDTO;
+import com.backend.delivery_backend.DTO.RestaurantOrderDTO;
+import com.backend.delivery_backend.model.Courier;
 import com.backend.delivery_backend.model.Order;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, String> {
 
@@ -23,4 +35,134 @@ public interface OrderRepository extends JpaRepository<Order, String> {
     List<Order> findByRestaurantRestaurantIdAndOrderStatusNotIn(String restaurantId, List<String> statuses);
     List<Order> findByCourierCourierIdAndOrderStatusNotIn(String courierId, List<String> statuses);
     List<Order> findByRestaurantRestaurantIdAndOrderStatusIn(String restaurantId, List<String> statuses);
-}
\ No newline at end of file
+    List<Order> findByRestaurantRestaurantIdAndOrderStatus(String restaurantId, String orderStatus);
+
+    // Ödeme sonuçları için: sipariş ve ödeme tek sorguda, FOR UPDATE; aynı transaction'daki toplu CAS tam olarak
+    // burada PENDING_PAYMENT okunan satırları değiştirir
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o left join fetch o.payment where o.orderId in :orderIds")
+    List<Order> lockAllWithPaymentByOrderIdIn(@Param("orderIds") Collection<String> orderIds);
+
+    // Compare-and-set: tek UPDATE, sipariş beklenen durumlardan birinde değilse 0 döner
+    @Modifying(flushAutomatically = true)
+    @Query("update Order o set o.orderStatus = :next, o.version = o.version + 1 " +
+            "where o.orderId = :orderId and o.orderStatus in :expected")
+    int compareAndSetStatus(@Param("orderId") String orderId, @Param("expected") Collection<String> expected,
+                            @Param("next") String next);
+
+    // Toplu compare-and-set: verilen siparişlerden beklenen durumlarda olanlar tek UPDATE ile geçer
+    @Modifying(flushAutomatically = true)
+    @Query("update Order o set o.orderStatus = :next, o.version = o.version + 1 " +
+            "where o.orderId in :orderIds and o.orderStatus in :expected")
+    int compareAndSetStatusIn(@Param("orderIds") Collection<String> orderIds,
+                              @Param("expected") Collection<String> expected, @Param("next") String next);
+
+    // Kurye geçişleri: sipariş bu kuryeye atanmış değilse ya da durumu uymuyorsa 0 döner
+    @Modifying(flushAutomatically = true)
+    @Query("update Order o set o.orderStatus = :next, o.version = o.version + 1 " +
+            "where o.orderId = :orderId and o.courier.courierId = :courierId and o.orderStatus in :expected")
+    int compareAndSetStatusForCourier(@Param("orderId") String orderId, @Param("courierId") String courierId,
+                                      @Param("expected") Collection<String> expected, @Param("next") String next);
+
+    // Toplu CAS öncesi: aynı transaction'daki compareAndSetStatusForRestaurant tam olarak bu satırları değiştirir
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.restaurant.restaurantId = :restaurantId and o.orderStatus in :statuses")
+    List<Order> lockByRestaurantAndStatusIn(@Param("restaurantId") String restaurantId,
+                                            @Param("statuses") Collection<String> statuses);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Order o set o.orderStatus = :next, o.version = o.version + 1 " +
+            "where o.restaurant.restaurantId = :restaurantId and o.orderStatus in :expected")
+    int compareAndSetStatusForRestaurant(@Param("restaurantId") String restaurantId,
+                                         @Param("expected") Collection<String> expected, @Param("next") String next);
+
+    // Kurye ataması: courier_id hâlâ boşsa tek UPDATE ile alınır, aynı anda basan kuryelerden yalnızca biri 1 görür
+    @Modifying(flushAutomatically = true)
+    @Query("update Order o set o.courier = :courier, o.version = o.version + 1 " +
+            "where o.orderId = :orderId and o.courier is null and o.restaurant.restaurantId = :restaurantId " +
+            "and o.orderStatus in :claimable")
+    int claimForCourier(@Param("orderId") String orderId, @Param("courier") Courier courier,
+                        @Param("restaurantId") String restaurantId, @Param("claimable") Collection<String> claimable);
+
+    // [restaurantId, courierId, orderStatus]; claim reddedildiğinde sebebini bulmak için
+    @Query("select r.restaurantId, c.courierId, o.orderStatus from Order o left join o.restaurant r " +
+            "left join o.courier c where o.orderId = :orderId")
+    List<Object[]> findClaimStateByOrderId(@Param("orderId") String orderId);
+
+    // [customerId, restaurantId, courierId, orderStatus]; sipariş olaylarının hangi akışlara gideceği için
+    @Query("select cu.customerId, r.restaurantId, c.courierId, o.orderStatus from Order o left join o.customer cu " +
+            "left join o.restaurant r left join o.courier c where o.orderId = :orderId")
+    List<Object[]> findRoutingByOrderId(@Param("orderId") String orderId);
+
+    // Persistence context'teki kopyayı değil veritabanındaki güncel durumu okur
+    @Query("select o.orderStatus from Order o where o.orderId = :orderId")
+    Optional<String> findStatusByOrderId(@Param("orderId") String orderId);
+
+    // Müşteri geçmişi: (orderDate desc, orderId desc) sırasıyla, sadece listede gösterilen kolonlar
+    @Query("select new com.backend.delivery_backend.DTO.OrderHistoryDTO(o.orderId, o.orderDate, o.deliveryAddress, " +
+            "o.totalAmount, o.orderStatus, o.deliveryType, o.tipAmount) from Order o " +
+            "where o.customer.customerId = :customerId order by o.orderDate desc, o.orderId desc")
+    List<OrderHistoryDTO> findHistoryByCustomer(@Param("customerId") String customerId, Pageable page);
+
+    // Sonraki sayfa: imleçteki (orderDate, orderId) çiftinden sonra gelenler
+    @Query("select new com.backend.delivery_backend.DTO.OrderHistoryDTO(o.orderId, o.orderDate, o.deliveryAddress, " +
+            "o.totalAmount, o.orderStatus, o.deliveryType, o.tipAmount) from Order o " +
+            "where o.customer.customerId = :customerId " +
+            "and (o.orderDate < :orderDate or (o.orderDate = :orderDate and o.orderId < :orderId)) " +
+            "order by o.orderDate desc, o.orderId desc")
+    List<OrderHistoryDTO> findHistoryByCustomerAfter(@Param("customerId") String customerId,
+                                                     @Param("orderDate") LocalDateTime orderDate,
+                                                     @Param("orderId") String orderId, Pageable page);
+
+    // Restoran geçmişi: filtreler veritabanında, sıralama (restaurant_id, order_date) indeksinden
+    // from/to/after* null ise o koşul uygulanmaz
+    @Query("select new com.backend.delivery_backend.DTO.RestaurantOrderDTO(o.orderId, o.orderDate, o.deliveryAddress, " +
+            "o.totalAmount, o.orderStatus, o.deliveryType, cu.name) from Order o left join o.customer cu " +
+            "where o.restaurant.restaurantId = :restaurantId and o.orderStatus in :statuses " +
+            "and (:from is null or o.orderDate >= :from) and (:to is null or o.orderDate < :to) " +
+            "and (:afterDate is null or o.orderDate < :afterDate or (o.orderDate = :afterDate and o.orderId < :afterId)) " +
+            "order by o.orderDate desc, o.orderId desc")
+    List<RestaurantOrderDTO> findHistoryByRestaurant(@Param("restaurantId") String restaurantId,
+                                                     @Param("statuses") Collection<String> statuses,
+                                                     @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to,
+                                                     @Param("afterDate") LocalDateTime afterDate,
+                                                     @Param("afterId") String afterId, Pageable page);
+
+    // Aktif sipariş panosunun yeniden yüklenmesi: [orderId, restaurantId, orderStatus, orderDate, totalAmount, courierId]
+    @Query("select o.orderId, r.restaurantId, o.orderStatus, o.orderDate, o.totalAmount, c.courierId " +
+            "from Order o join o.restaurant r left join o.courier c " +
+            "where o.orderStatus in :statuses and o.orderDate >= :since order by o.orderDate desc")
+    List<Object[]> findActiveForBoard(@Param("statuses") Collection<String> statuses,
+                                      @Param("since") LocalDateTime since, Pageable page);
+
+    // Kuryelerin üzerindeki aktif teslimatlar: [orderId, courierId]
+    @Query("select o.orderId, c.courierId from Order o join o.courier c where o.orderStatus in :statuses")
+    List<Object[]> findActiveDeliveries(@Param("statuses") Collection<String> statuses);
+
+    // Kurye bekleyen siparişler: [orderId, restaurantId, orderDate]
+    @Query("select o.orderId, r.restaurantId, o.orderDate from Order o join o.restaurant r " +
+            "where o.orderStatus = :status and o.courier is null")
+    List<Object[]> findUnassignedByStatus(@Param("status") String status);
+
+    // Trip planlaması için teslimat noktaları:
+    // [orderId, deliveryAddress, customer address, district, latitude, longitude, restaurant latitude, restaurant longitude]
+    @Query("select o.orderId, o.deliveryAddress, c.address, c.district, c.latitude, c.longitude, r.latitude, r.longitude " +
+            "from Order o join o.restaurant r left join o.customer c where o.orderId in :orderIds")
+    List<Object[]> findDropPointsByOrderIdIn(@Param("orderIds") Collection<String> orderIds);
+
+    // Bir sayfanın kalemleri tek sorguda: [orderId, name, description, price, quantity]
+    @Query("select o.orderId, key(i).name, key(i).description, key(i).price, value(i) " +
+            "from Order o join o.items i where o.orderId in :orderIds")
+    List<Object[]> findItemLinesByOrderIdIn(@Param("orderIds") Collection<String> orderIds);
+
+    List<Order> findByOrderStatusAndOrderDateBefore(String orderStatus, LocalDateTime orderDate);
+
+    // Popülerlik sayaçları (öneri sıralaması için): [restaurantId, siparişSayısı]
+    @Query("select o.restaurant.restaurantId, count(o) from Order o where o.restaurant is not null group by o.restaurant.restaurantId")
+    List<Object[]> countOrdersPerRestaurant();
+
+    // [menuItemId, toplam adet]
+    @Query("select key(i).id, sum(value(i)) from Order o join o.items i group by key(i).id")
+    List<Object[]> sumQuantitiesPerMenuItem();
+}
@@ -12,13 +12,25 @@ import org.springframework.stereotype.Component;
 import com.backend.delivery_backend.service.UserDetailsServiceImpl;
 
 import java.io.IOException;
+import java.util.Set;
 
 @Component
 public class JwtFilter implements Filter {
 
+    // Tarayıcı EventSource header gönderemez; yalnızca bu SSE akışları ?ticket= ile açılabilir
+    private static final Set<String> STREAM_PATHS = Set.of(
+            "/api/orders/stream",
+            "/api/orders/stream/restaurant",
+            "/api/courier/orders/stream");
+    // Filtre aynı istekte iki kez çalışır (servlet filtresi + security zinciri); tek kullanımlık bilet bir kez harcanır
+    private static final String STREAM_TICKET_EMAIL = JwtFilter.class.getName() + ".streamTicketEmail";
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private StreamTicketService streamTicketService;
+
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
@@ -26,21 +38,36 @@ public class JwtFilter implements Filter {
     public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
         HttpServletRequest request = (HttpServletRequest) req;
         String authHeader = request.getHeader("Authorization");
+        String email = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String jwt = authHeader.substring(7);
             if (jwtUtil.isTokenValid(jwt)) {
-                String email = jwtUtil.extractEmail(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                email = jwtUtil.extractEmail(jwt);
+            }
+        } else if (isStreamRequest(request)) {
+            email = (String) request.getAttribute(STREAM_TICKET_EMAIL);
+            if (email == null) {
+                email = streamTicketService.redeem(request.getParameter("ticket"));
+                request.setAttribute(STREAM_TICKET_EMAIL, email);
+            }
+        }
 
-                UsernamePasswordAuthenticationToken token =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        if (email != null) {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
 
-                token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(token);
-            }
+            UsernamePasswordAuthenticationToken token =
+                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+
+            token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(token);
         }
 
         chain.doFilter(req, res);
     }
+
+    private static boolean isStreamRequest(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return "GET".equals(request.getMethod()) && STREAM_PATHS.contains(path);
+    }
 }
@@ -35,6 +35,10 @@ public class JwtUtil {
         return (String) getClaims(token).get("role");
     }
 
+    public String extractId(String token) {
+        return (String) getClaims(token).get("id");
+    }
+
     public boolean isTokenValid(String token) {
         try {
             getClaims(token);
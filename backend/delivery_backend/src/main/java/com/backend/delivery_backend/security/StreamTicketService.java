@@ -0,0 +1,50 @@
+package com.backend.delivery_backend.security;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// EventSource cannot send an Authorization header, so SSE endpoints take a ticket in the query string instead of the
+// JWT. A ticket is random, belongs to one user, expires after TTL_SECONDS and is spent by the first request using it,
+// so one that shows up in an access log or browser history is already useless.
+@Component
+public class StreamTicketService {
+
+    public static final int TTL_SECONDS = 30;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    private record Ticket(String email, long expiresAt) {
+    }
+
+    public String issue(String email) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(email, System.currentTimeMillis() + TTL_SECONDS * 1000L));
+        return ticket;
+    }
+
+    // Bilet sahibinin e-postası; bilinmeyen, kullanılmış ya da süresi dolmuş bilet için null
+    public String redeem(String ticket) {
+        if (ticket == null) {
+            return null;
+        }
+        Ticket redeemed = tickets.remove(ticket);
+        if (redeemed == null || redeemed.expiresAt() < System.currentTimeMillis()) {
+            return null;
+        }
+        return redeemed.email();
+    }
+
+    @Scheduled(fixedRate = 60 * 1000)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        tickets.values().removeIf(ticket -> ticket.expiresAt() < now);
+    }
+}
@@ -0,0 +1,208 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.ENUM.OrderStatus;
+import com.backend.delivery_backend.repository.OrderRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory kitchen board: the restaurant's current orders grouped by status.
+// Kept up to date from the outbox events (OrderPlaced / OrderStatusChanged), so reads never touch the database.
+// Orders that left the kitchen (picked up, delivered, cancelled) stay visible for FINISHED_RETENTION, then age out.
+// Rebuilt from one bounded query at startup and every REBUILD_MINUTES as a safety net for missed events.
+@Service
+public class ActiveOrderIndex {
+
+    static final Set<OrderStatus> ACTIVE_STATUSES =
+            EnumSet.of(OrderStatus.PENDING, OrderStatus.IN_PROGRESS, OrderStatus.PREPARING, OrderStatus.READY);
+    // Ödemesi onaylanmamış siparişler panoda görünmez, sadece tutar/tarih bilgisi için izlenir
+    static final Set<OrderStatus> UNPAID_STATUSES = EnumSet.of(OrderStatus.PENDING_PAYMENT, OrderStatus.PAYMENT_FAILED);
+    static final Duration FINISHED_RETENTION = Duration.ofMinutes(15);
+    static final Duration UNPAID_RETENTION = Duration.ofHours(1);
+    // Daha eski "aktif" siparişler unutulmuş kabul edilir ve yüklenmez
+    static final Duration MAX_ACTIVE_AGE = Duration.ofDays(2);
+    static final int REBUILD_LIMIT = 50_000;
+    static final long REBUILD_MINUTES = 10;
+
+    private final OrderRepository orderRepository;
+
+    // Tek yazar kuralı: olaylar, yeniden yükleme ve temizlik writeLock altında; okumalar kilitsiz
+    private final Map<String, Tracked> orders = new ConcurrentHashMap<>();
+    private final Map<String, Map<OrderStatus, Map<String, BoardOrder>>> boards = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    public record BoardOrder(String orderId, String status, LocalDateTime placedAt, Double totalAmount,
+                             String courierId, LocalDateTime statusSince) {
+    }
+
+    private record Tracked(String restaurantId, OrderStatus status, BoardOrder order) {
+    }
+
+    public ActiveOrderIndex(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    // Active statuses are always present (possibly empty), finished ones only while they have orders.
+    // Within a status the oldest order comes first.
+    public Map<String, List<BoardOrder>> board(String restaurantId) {
+        Map<OrderStatus, Map<String, BoardOrder>> board = boards.getOrDefault(restaurantId, Map.of());
+        Map<String, List<BoardOrder>> result = new LinkedHashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            Map<String, BoardOrder> bucket = board.get(status);
+            if (ACTIVE_STATUSES.contains(status) || (bucket != null && !bucket.isEmpty())) {
+                List<BoardOrder> rows = bucket == null ? new ArrayList<>() : new ArrayList<>(bucket.values());
+                rows.sort(Comparator.comparing(BoardOrder::placedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(BoardOrder::orderId));
+                result.put(status.name(), rows);
+            }
+        }
+        return result;
+    }
+
+    // Ids of the restaurant's orders currently in the given status, e.g. the READY queue for couriers
+    public List<String> orderIds(String restaurantId, OrderStatus status) {
+        Map<String, BoardOrder> bucket = boards.getOrDefault(restaurantId, Map.of()).get(status);
+        return bucket == null ? List.of() : List.copyOf(bucket.keySet());
+    }
+
+    // İlk yükleme bitene kadar pano eksik olabilir
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @EventListener
+    public void onOrderPlaced(OrderPlaced event) {
+        writeLock.lock();
+        try {
+            apply(event.orderId(), event.restaurantId(), event.status(), event.placedAt(), event.totalAmount(),
+                    null, event.placedAt());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChanged event) {
+        writeLock.lock();
+        try {
+            apply(event.orderId(), event.restaurantId(), event.status(), null, null, event.courierId(),
+                    event.changedAt());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Bilinmeyen alanlar (null) önceki kayıttan korunur
+    private void apply(String orderId, String restaurantId, String statusName, LocalDateTime placedAt,
+                       Double totalAmount, String courierId, LocalDateTime at) {
+        OrderStatus status;
+        try {
+            status = OrderStatus.valueOf(statusName);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return;
+        }
+        Tracked previous = orders.get(orderId);
+        BoardOrder prior = previous != null ? previous.order() : null;
+        String restaurant = restaurantId != null ? restaurantId : previous != null ? previous.restaurantId() : null;
+        if (restaurant == null) {
+            return;
+        }
+        BoardOrder next = new BoardOrder(orderId, status.name(),
+                placedAt != null ? placedAt : prior != null ? prior.placedAt() : null,
+                totalAmount != null ? totalAmount : prior != null ? prior.totalAmount() : null,
+                courierId != null ? courierId : prior != null ? prior.courierId() : null,
+                previous != null && previous.status() == status ? prior.statusSince() : at);
+        orders.put(orderId, new Tracked(restaurant, status, next));
+        // Önce yeni kovaya eklenir, sonra eskisinden silinir: okuyan bir an için bile siparişi kaybetmez
+        if (!UNPAID_STATUSES.contains(status)) {
+            boards.computeIfAbsent(restaurant, key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(status, key -> new ConcurrentHashMap<>())
+                    .put(orderId, next);
+        }
+        if (previous != null && (previous.status() != status || !previous.restaurantId().equals(restaurant))) {
+            removeFromBoard(orderId, previous);
+        }
+    }
+
+    private void removeFromBoard(String orderId, Tracked tracked) {
+        Map<OrderStatus, Map<String, BoardOrder>> board = boards.get(tracked.restaurantId());
+        if (board == null) {
+            return;
+        }
+        Map<String, BoardOrder> bucket = board.get(tracked.status());
+        if (bucket != null) {
+            bucket.remove(orderId);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60 * 1000, initialDelay = 60 * 1000)
+    public void expireFinished() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime finishedBefore = now.minus(FINISHED_RETENTION);
+        LocalDateTime unpaidBefore = now.minus(UNPAID_RETENTION);
+        writeLock.lock();
+        try {
+            for (Map.Entry<String, Tracked> entry : List.copyOf(orders.entrySet())) {
+                Tracked tracked = entry.getValue();
+                LocalDateTime since = tracked.order().statusSince();
+                boolean expired = !ACTIVE_STATUSES.contains(tracked.status()) && (since == null
+                        || since.isBefore(UNPAID_STATUSES.contains(tracked.status()) ? unpaidBefore : finishedBefore));
+                if (expired) {
+                    orders.remove(entry.getKey());
+                    removeFromBoard(entry.getKey(), tracked);
+                }
+            }
+            boards.values().forEach(board -> board.values().removeIf(Map::isEmpty));
+            boards.values().removeIf(Map::isEmpty);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Sorgu kilit altında çalışır: bu sırada gelen olaylar bekler ve anlık görüntünün üzerine sırayla uygulanır
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelay = REBUILD_MINUTES * 60 * 1000, initialDelay = REBUILD_MINUTES * 60 * 1000)
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            List<Object[]> rows = orderRepository.findActiveForBoard(
+                    ACTIVE_STATUSES.stream().map(OrderStatus::name).toList(),
+                    LocalDateTime.now().minus(MAX_ACTIVE_AGE), PageRequest.of(0, REBUILD_LIMIT));
+            Map<String, Object[]> active = new HashMap<>();
+            rows.forEach(row -> active.put((String) row[0], row));
+
+            // Veritabanında artık aktif olmayanlar panodan çıkar; bitmiş olanlar süreleri dolana kadar kalır
+            for (Map.Entry<String, Tracked> entry : List.copyOf(orders.entrySet())) {
+                if (ACTIVE_STATUSES.contains(entry.getValue().status()) && !active.containsKey(entry.getKey())) {
+                    orders.remove(entry.getKey());
+                    removeFromBoard(entry.getKey(), entry.getValue());
+                }
+            }
+            LocalDateTime now = LocalDateTime.now();
+            for (Object[] row : rows) {
+                // [orderId, restaurantId, orderStatus, orderDate, totalAmount, courierId]
+                apply((String) row[0], (String) row[1], (String) row[2], (LocalDateTime) row[3],
+                        ((Number) row[4]).doubleValue(), (String) row[5], now);
+            }
+            loaded = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
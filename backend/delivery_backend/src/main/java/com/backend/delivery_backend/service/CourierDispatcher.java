@@ -0,0 +1,474 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.ENUM.OrderStatus;
+import com.backend.delivery_backend.ENUM.RequestStatus;
+import com.backend.delivery_backend.model.DeliveryRequest;
+import com.backend.delivery_backend.repository.CourierRepository;
+import com.backend.delivery_backend.repository.DeliveryRequestRepository;
+import com.backend.delivery_backend.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Offers READY orders to the AVAILABLE couriers of the restaurant: one open offer per order and per courier.
+// Couriers, their status and load come from CourierPresenceRegistry, not from the database.
+// Waiting orders are served oldest first; couriers are ranked by active deliveries (fewest first), then by how long
+// they have been idle. An offer that is rejected or not answered within the timeout goes to the next courier.
+// Driven by outbox events (order READY, order claimed or finished, offer answered) and couriers becoming AVAILABLE;
+// there is no periodic scan. All dispatcher state lives on the single "courier-dispatch" thread, and races with
+// couriers are decided in the database: a request is answered or expired once, an order is claimed by one courier.
+// Batching mode (dispatch.batching.enabled) holds a restaurant's READY orders for a short window, groups orders going
+// to nearby addresses into trips with TripPlanner and offers each trip to one courier as one request per order,
+// all sharing a tripId: the courier answers the trip as a whole.
+@Service
+public class CourierDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourierDispatcher.class);
+
+    private static final Comparator<WaitingOrder> OLDEST_FIRST = Comparator
+            .comparing(WaitingOrder::readyAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(WaitingOrder::orderId);
+    // Hiç iş almamış kurye (idleSince null) en uzun boşta sayılır
+    private static final Comparator<Candidate> BEST_FIRST = Comparator
+            .comparingLong(Candidate::load)
+            .thenComparing(Candidate::idleSince, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Candidate::courierId);
+
+    // Konumu bilinmeyen adresler için varsayımlar (trip süresi tahmini)
+    static final Duration HANDOVER_TIME = Duration.ofMinutes(3);
+    static final double SAME_DISTRICT_KM = 2.0;
+    static final double DEFAULT_LEG_KM = 3.0;
+    // Bir batching turunda TripPlanner'a verilen en fazla sipariş
+    static final int MAX_PLANNED_ORDERS = 30;
+
+    private final CourierRepository courierRepository;
+    private final CourierPresenceRegistry courierPresence;
+    private final DeliveryRequestRepository deliveryRequestRepository;
+    private final OrderRepository orderRepository;
+    private final OrderUpdateHub orderUpdateHub;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration offerTimeout;
+    private final boolean batching;
+    private final Duration batchWindow;
+    private final TripPlanner.Settings tripSettings;
+
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "courier-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Aşağıdakiler sadece courier-dispatch thread'inden okunur/yazılır
+    private final Map<String, PriorityQueue<WaitingOrder>> waiting = new HashMap<>();
+    private final Map<String, WaitingOrder> waitingById = new HashMap<>();
+    private final Map<String, OpenOffer> offersByOrder = new HashMap<>();
+    private final Map<Long, OpenOffer> offersByRequest = new HashMap<>();
+    private final Set<String> couriersWithOffer = new HashSet<>();
+    // Siparişi reddeden ya da süresinde cevaplamayan kuryelere aynı sipariş tekrar önerilmez
+    private final Map<String, Set<String>> declined = new HashMap<>();
+    private final Map<String, LocalDateTime> idleSince = new HashMap<>();
+    // Batching: restoran başına planlanmış tek pencere sonu
+    private final Map<String, ScheduledFuture<?>> batchRounds = new HashMap<>();
+
+    // tripId null: tek siparişlik teklif
+    public record Offer(Long requestId, String orderId, String restaurantId, LocalDateTime expiresAt, String tripId) {
+    }
+
+    private record WaitingOrder(String orderId, String restaurantId, LocalDateTime readyAt) {
+    }
+
+    // requestIds ve orders aynı sırada
+    private record OpenOffer(String tripId, List<Long> requestIds, List<WaitingOrder> orders, String courierId,
+                             ScheduledFuture<?> timeout) {
+
+        String restaurantId() {
+            return orders.get(0).restaurantId();
+        }
+    }
+
+    private record Candidate(String courierId, long load, LocalDateTime idleSince) {
+    }
+
+    public CourierDispatcher(CourierRepository courierRepository, CourierPresenceRegistry courierPresence,
+                             DeliveryRequestRepository deliveryRequestRepository,
+                             OrderRepository orderRepository, OrderUpdateHub orderUpdateHub,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${dispatch.enabled:true}") boolean enabled,
+                             @Value("${dispatch.offer-timeout-seconds:60}") long offerTimeoutSeconds,
+                             @Value("${dispatch.batching.enabled:false}") boolean batching,
+                             @Value("${dispatch.batching.window-seconds:60}") long batchWindowSeconds,
+                             @Value("${dispatch.batching.max-orders-per-trip:3}") int maxOrdersPerTrip,
+                             @Value("${dispatch.batching.max-delay-minutes:10}") long maxDelayMinutes,
+                             @Value("${dispatch.batching.speed-kmh:20}") double speedKmh) {
+        this.courierRepository = courierRepository;
+        this.courierPresence = courierPresence;
+        this.deliveryRequestRepository = deliveryRequestRepository;
+        this.orderRepository = orderRepository;
+        this.orderUpdateHub = orderUpdateHub;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.offerTimeout = Duration.ofSeconds(Math.max(1, offerTimeoutSeconds));
+        this.batching = batching;
+        this.batchWindow = Duration.ofSeconds(Math.max(0, batchWindowSeconds));
+        // Gecikme bütçesi: pencerede bekleme + trip'teki dolambaç
+        Duration maxDetour = Duration.ofMinutes(maxDelayMinutes).minus(this.batchWindow);
+        this.tripSettings = new TripPlanner.Settings(maxOrdersPerTrip,
+                maxDetour.isNegative() ? Duration.ZERO : maxDetour, speedKmh, HANDOVER_TIME, SAME_DISTRICT_KM,
+                DEFAULT_LEG_KM);
+        // Cevaplanan tekliflerin zaman aşımı görevleri kuyrukta birikmesin
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    // Önceki çalışmadan kalan teklifler kapatılır, kurye bekleyen READY siparişler kuyruğa alınır
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        submit(() -> {
+            transactionTemplate.executeWithoutResult(status -> deliveryRequestRepository.expireAllPending(
+                    LocalDateTime.now(), RequestStatus.PENDING, RequestStatus.REJECTED));
+            Set<String> restaurants = new HashSet<>();
+            for (Object[] row : orderRepository.findUnassignedByStatus(OrderStatus.READY.name())) {
+                enqueue(new WaitingOrder((String) row[0], (String) row[1], (LocalDateTime) row[2]));
+                restaurants.add((String) row[1]);
+            }
+            restaurants.forEach(this::dispatch);
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // Kurye AVAILABLE olduğunda çağrılır
+    public void courierAvailable(String restaurantId) {
+        if (enabled && restaurantId != null) {
+            submit(() -> dispatch(restaurantId));
+        }
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChanged event) {
+        if (enabled && event.restaurantId() != null) {
+            submit(() -> handleOrderChange(event));
+        }
+    }
+
+    @EventListener
+    public void onDeliveryRequestAnswered(DeliveryRequestAnswered event) {
+        if (enabled) {
+            submit(() -> handleAnswer(event));
+        }
+    }
+
+    private void submit(Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Courier dispatch step failed", e);
+            }
+        });
+    }
+
+    private void handleOrderChange(OrderStatusChanged event) {
+        String orderId = event.orderId();
+        if (event.courierId() != null) {
+            idleSince.put(event.courierId(), event.changedAt());
+        }
+        if (OrderStatus.READY.name().equals(event.status()) && event.courierId() == null) {
+            if (!offersByOrder.containsKey(orderId)) {
+                enqueue(new WaitingOrder(orderId, event.restaurantId(), event.changedAt()));
+                dispatch(event.restaurantId());
+            }
+            return;
+        }
+
+        // Sipariş atandı, ilerledi ya da iptal edildi: artık dağıtılmaz
+        removeWaiting(orderId);
+        declined.remove(orderId);
+        OpenOffer offer = offersByOrder.get(orderId);
+        if (offer == null) {
+            return;
+        }
+        closeOffer(offer);
+        if (!offer.courierId().equals(event.courierId())) {
+            // Başka kurye listeden aldı ya da iptal edildi; teklif cevaplanmadıysa geri çekilir,
+            // trip'in diğer siparişleri tekrar kuyruğa girer
+            withdraw(offer);
+            offer.orders().stream().filter(order -> !order.orderId().equals(orderId)).forEach(this::enqueue);
+        }
+        dispatch(event.restaurantId());
+    }
+
+    private void handleAnswer(DeliveryRequestAnswered event) {
+        OpenOffer offer = offersByRequest.get(event.requestId());
+        if (offer == null) {
+            // Zaten kapatıldı: kabulde sipariş ataması önce gelir
+            return;
+        }
+        closeOffer(offer);
+        if (RequestStatus.REJECTED.name().equals(event.status())) {
+            requeueDeclined(offer);
+        }
+        dispatch(offer.restaurantId());
+    }
+
+    private void onTimeout(Long requestId) {
+        OpenOffer offer = offersByRequest.get(requestId);
+        if (offer == null) {
+            return;
+        }
+        if (withdraw(offer) == 0) {
+            // Kurye son anda cevapladı; cevap olayı gelince işlenir
+            return;
+        }
+        logger.info("Delivery request {} for orders {} expired, offering them to the next courier",
+                requestId, offer.orders().stream().map(WaitingOrder::orderId).toList());
+        closeOffer(offer);
+        requeueDeclined(offer);
+        dispatch(offer.restaurantId());
+    }
+
+    // Returns the number of requests expired; 0 when the courier answered first
+    private int withdraw(OpenOffer offer) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer expired = transactionTemplate.execute(status -> offer.tripId() == null
+                ? deliveryRequestRepository.answerIfPending(offer.requestIds().get(0), RequestStatus.REJECTED, true,
+                        now, RequestStatus.PENDING)
+                : deliveryRequestRepository.answerTripIfPending(offer.tripId(), RequestStatus.REJECTED, true, now,
+                        RequestStatus.PENDING));
+        return expired == null ? 0 : expired;
+    }
+
+    private void requeueDeclined(OpenOffer offer) {
+        for (WaitingOrder order : offer.orders()) {
+            declined.computeIfAbsent(order.orderId(), key -> new HashSet<>()).add(offer.courierId());
+            enqueue(order);
+        }
+    }
+
+    // Eşleşme turu: en eski bekleyen sipariş, onu reddetmemiş en uygun kuryeye
+    private void dispatch(String restaurantId) {
+        PriorityQueue<WaitingOrder> queue = waiting.get(restaurantId);
+        if (queue == null || queue.isEmpty()) {
+            return;
+        }
+        if (batching) {
+            dispatchTrips(restaurantId, queue);
+            return;
+        }
+        PriorityQueue<Candidate> candidates = candidates(restaurantId);
+        List<WaitingOrder> skipped = new ArrayList<>();
+        while (!queue.isEmpty() && !candidates.isEmpty()) {
+            WaitingOrder order = queue.poll();
+            Candidate chosen = pollBest(candidates, declined.getOrDefault(order.orderId(), Set.of()));
+            if (chosen == null) {
+                skipped.add(order);
+                continue;
+            }
+            waitingById.remove(order.orderId());
+            offer(List.of(order), chosen.courierId());
+        }
+        queue.addAll(skipped);
+        if (queue.isEmpty()) {
+            waiting.remove(restaurantId);
+        }
+    }
+
+    // Batching turu: en eski sipariş pencereyi doldurana kadar beklenir, sonra en eski bekleyenler trip'lere
+    // bölünür ve en eski trip'ten başlayarak kuryelere dağıtılır. Kurye kalmazsa kalan siparişler bekler.
+    // Planlanan sipariş sayısı boştaki kuryelerin taşıyabileceği ve MAX_PLANNED_ORDERS ile sınırlı: planlama
+    // dispatch thread'inde çalışır, kalabalık bir restoran diğer restoranları bekletmemeli.
+    private void dispatchTrips(String restaurantId, PriorityQueue<WaitingOrder> queue) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime readyAt = queue.peek().readyAt();
+        if (readyAt != null && now.isBefore(readyAt.plus(batchWindow))) {
+            scheduleBatchRound(restaurantId, Duration.between(now, readyAt.plus(batchWindow)));
+            return;
+        }
+        PriorityQueue<Candidate> candidates = candidates(restaurantId);
+        if (candidates.isEmpty()) {
+            return;
+        }
+        int limit = Math.min(MAX_PLANNED_ORDERS, candidates.size() * tripSettings.maxOrdersPerTrip());
+        Map<String, WaitingOrder> orders = new HashMap<>();
+        queue.stream().sorted(OLDEST_FIRST).limit(limit).forEach(order -> orders.put(order.orderId(), order));
+        for (TripPlanner.Trip trip : planTrips(orders.values())) {
+            if (candidates.isEmpty()) {
+                break;
+            }
+            List<WaitingOrder> tripOrders = trip.drops().stream().map(drop -> orders.get(drop.orderId())).toList();
+            Set<String> excluded = new HashSet<>();
+            tripOrders.forEach(order -> excluded.addAll(declined.getOrDefault(order.orderId(), Set.of())));
+            Candidate chosen = pollBest(candidates, excluded);
+            if (chosen == null) {
+                continue;
+            }
+            tripOrders.forEach(order -> removeWaiting(order.orderId()));
+            offer(tripOrders, chosen.courierId());
+        }
+    }
+
+    private void scheduleBatchRound(String restaurantId, Duration delay) {
+        if (batchRounds.containsKey(restaurantId)) {
+            return;
+        }
+        batchRounds.put(restaurantId, executor.schedule(() -> {
+            batchRounds.remove(restaurantId);
+            try {
+                dispatch(restaurantId);
+            } catch (RuntimeException e) {
+                logger.error("Courier dispatch batch round failed for restaurant {}", restaurantId, e);
+            }
+        }, delay.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    // Teslimat noktası: adres müşterinin kayıtlı adresiyse onun koordinatı/ilçesi, değilse sadece adres metni
+    private List<TripPlanner.Trip> planTrips(Collection<WaitingOrder> orders) {
+        Map<String, Object[]> rows = new HashMap<>();
+        for (Object[] row : orderRepository.findDropPointsByOrderIdIn(orders.stream().map(WaitingOrder::orderId).toList())) {
+            rows.put((String) row[0], row);
+        }
+        Double originLatitude = null;
+        Double originLongitude = null;
+        List<TripPlanner.Drop> drops = new ArrayList<>();
+        for (WaitingOrder order : orders) {
+            Object[] row = rows.get(order.orderId());
+            if (row == null) {
+                drops.add(new TripPlanner.Drop(order.orderId(), order.readyAt(), null, null, null, null));
+                continue;
+            }
+            originLatitude = (Double) row[6];
+            originLongitude = (Double) row[7];
+            String address = TripPlanner.normalizeAddress((String) row[1]);
+            boolean home = address == null || address.equals(TripPlanner.normalizeAddress((String) row[2]));
+            drops.add(new TripPlanner.Drop(order.orderId(), order.readyAt(),
+                    home ? (Double) row[4] : null, home ? (Double) row[5] : null, home ? (String) row[3] : null,
+                    address != null ? address : TripPlanner.normalizeAddress((String) row[2])));
+        }
+        return TripPlanner.plan(originLatitude, originLongitude, drops, tripSettings);
+    }
+
+    private PriorityQueue<Candidate> candidates(String restaurantId) {
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(BEST_FIRST);
+        for (CourierPresenceRegistry.CourierPresence courier : courierPresence.available(restaurantId)) {
+            if (!couriersWithOffer.contains(courier.courierId())) {
+                candidates.add(new Candidate(courier.courierId(), courier.activeDeliveries(),
+                        idleSince.get(courier.courierId())));
+            }
+        }
+        return candidates;
+    }
+
+    // Reddetmiş kuryeler atlanır ama aday listesinde kalır (sıradaki sipariş için uygun olabilirler)
+    private Candidate pollBest(PriorityQueue<Candidate> candidates, Set<String> excluded) {
+        List<Candidate> passed = new ArrayList<>();
+        Candidate chosen = null;
+        while (chosen == null && !candidates.isEmpty()) {
+            Candidate candidate = candidates.poll();
+            if (excluded.contains(candidate.courierId())) {
+                passed.add(candidate);
+            } else {
+                chosen = candidate;
+            }
+        }
+        candidates.addAll(passed);
+        return chosen;
+    }
+
+    private void offer(List<WaitingOrder> orders, String courierId) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(offerTimeout);
+        String tripId = orders.size() > 1 ? "trip-" + UUID.randomUUID() : null;
+        List<Long> requestIds;
+        try {
+            requestIds = transactionTemplate.execute(status -> {
+                List<Long> ids = new ArrayList<>();
+                for (WaitingOrder order : orders) {
+                    DeliveryRequest request = new DeliveryRequest();
+                    request.setStatus(RequestStatus.PENDING);
+                    request.setCourier(courierRepository.getReferenceById(courierId));
+                    request.setOrderId(order.orderId());
+                    request.setTripId(tripId);
+                    request.setExpiresAt(expiresAt);
+                    ids.add(deliveryRequestRepository.save(request).getId());
+                }
+                return ids;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Could not create delivery requests for orders {}",
+                    orders.stream().map(WaitingOrder::orderId).toList(), e);
+            orders.forEach(this::enqueue);
+            return;
+        }
+        Long firstRequestId = requestIds.get(0);
+        ScheduledFuture<?> timeout = executor.schedule(() -> {
+            try {
+                onTimeout(firstRequestId);
+            } catch (RuntimeException e) {
+                logger.error("Courier dispatch timeout failed for request {}", firstRequestId, e);
+            }
+        }, offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        OpenOffer open = new OpenOffer(tripId, requestIds, orders, courierId, timeout);
+        orders.forEach(order -> offersByOrder.put(order.orderId(), open));
+        requestIds.forEach(requestId -> offersByRequest.put(requestId, open));
+        couriersWithOffer.add(courierId);
+        for (int i = 0; i < orders.size(); i++) {
+            WaitingOrder order = orders.get(i);
+            orderUpdateHub.offer(courierId,
+                    new Offer(requestIds.get(i), order.orderId(), order.restaurantId(), expiresAt, tripId));
+        }
+    }
+
+    private void closeOffer(OpenOffer offer) {
+        offer.timeout().cancel(false);
+        offer.orders().forEach(order -> offersByOrder.remove(order.orderId()));
+        offer.requestIds().forEach(offersByRequest::remove);
+        couriersWithOffer.remove(offer.courierId());
+    }
+
+    private void enqueue(WaitingOrder order) {
+        if (waitingById.putIfAbsent(order.orderId(), order) == null) {
+            waiting.computeIfAbsent(order.restaurantId(), key -> new PriorityQueue<>(OLDEST_FIRST)).add(order);
+        }
+    }
+
+    private void removeWaiting(String orderId) {
+        WaitingOrder order = waitingById.remove(orderId);
+        if (order == null) {
+            return;
+        }
+        PriorityQueue<WaitingOrder> queue = waiting.get(order.restaurantId());
+        if (queue != null) {
+            queue.remove(order);
+            if (queue.isEmpty()) {
+                waiting.remove(order.restaurantId());
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.ENUM.CourierStatus;
+import com.backend.delivery_backend.ENUM.OrderStatus;
+import com.backend.delivery_backend.repository.CourierRepository;
+import com.backend.delivery_backend.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// In-memory courier presence: status, restaurant, last seen and active deliveries of every courier.
+// Status changes and heartbeats only touch atomics and return at once. The status reaches the couriers table later
+// on the "courier-presence-writer" thread: writes are coalesced per courier (the last status wins) and batched.
+// Availability reads (dispatcher, available-couriers list) never lock and never query the database.
+// AVAILABLE couriers not seen (heartbeat, status change, delivery activity) for courier.presence.stale-after-seconds
+// are marked UNAVAILABLE. Active deliveries follow OrderStatusChanged events: READY with a courier, or PICKED_UP.
+// Every RESYNC_MINUTES couriers and restaurant assignments are re-read as a safety net; the status never is.
+@Service
+public class CourierPresenceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourierPresenceRegistry.class);
+
+    static final List<String> ACTIVE_DELIVERY_STATUSES = List.of(OrderStatus.READY.name(), OrderStatus.PICKED_UP.name());
+    static final long WRITE_RETRY_MILLIS = 1000;
+    static final long STALE_CHECK_MILLIS = 30 * 1000;
+    static final long RESYNC_MINUTES = 10;
+
+    private final CourierRepository courierRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration staleAfter;
+
+    private final Map<String, Presence> couriers = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byRestaurant = new ConcurrentHashMap<>();
+    // Aktif teslimat -> kurye; sipariş başka kuryeye geçerse eskisinden düşülür
+    private final Map<String, String> deliveries = new ConcurrentHashMap<>();
+    // Veritabanına henüz yazılmamış son durumlar
+    private final Map<String, CourierStatus> pendingWrites = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "courier-presence-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public record CourierPresence(String courierId, String restaurantId, CourierStatus status, LocalDateTime lastSeen,
+                                  int activeDeliveries) {
+    }
+
+    private static final class Presence {
+        private final String courierId;
+        private final AtomicReference<String> restaurantId;
+        private final AtomicReference<CourierStatus> status;
+        private final AtomicLong lastSeenMillis = new AtomicLong(System.currentTimeMillis());
+        private final Set<String> activeOrders = ConcurrentHashMap.newKeySet();
+
+        private Presence(String courierId, String restaurantId, CourierStatus status) {
+            this.courierId = courierId;
+            this.restaurantId = new AtomicReference<>(restaurantId);
+            this.status = new AtomicReference<>(status != null ? status : CourierStatus.UNAVAILABLE);
+        }
+
+        private void touch() {
+            lastSeenMillis.accumulateAndGet(System.currentTimeMillis(), Math::max);
+        }
+
+        private CourierPresence snapshot() {
+            return new CourierPresence(courierId, restaurantId.get(), status.get(),
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(lastSeenMillis.get()), ZoneId.systemDefault()),
+                    activeOrders.size());
+        }
+    }
+
+    public CourierPresenceRegistry(CourierRepository courierRepository, OrderRepository orderRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${courier.presence.stale-after-seconds:900}") long staleAfterSeconds) {
+        this.courierRepository = courierRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.staleAfter = Duration.ofSeconds(staleAfterSeconds);
+    }
+
+    // Dağıtıcı ve outbox başlamadan önce yüklenir. İstekle önceden yüklenmiş kuryeler ezilmez.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        for (Object[] row : courierRepository.findPresenceRows()) {
+            register(row);
+        }
+        for (Object[] row : orderRepository.findActiveDeliveries(ACTIVE_DELIVERY_STATUSES)) {
+            trackDelivery((String) row[0], (String) row[1]);
+        }
+        logger.info("Courier presence loaded: {} couriers, {} active deliveries", couriers.size(), deliveries.size());
+    }
+
+    // Yeni kayıtlar eklenir, silinenler çıkarılır, restoran ataması düzeltilir; bellekteki durum korunur
+    @Scheduled(fixedDelay = RESYNC_MINUTES * 60 * 1000, initialDelay = RESYNC_MINUTES * 60 * 1000)
+    public void resync() {
+        Set<String> seen = new HashSet<>();
+        for (Object[] row : courierRepository.findPresenceRows()) {
+            String courierId = (String) row[0];
+            seen.add(courierId);
+            Presence presence = register(row);
+            if (!Objects.equals(presence.restaurantId.get(), row[1])) {
+                assignRestaurant(courierId, (String) row[1]);
+            }
+        }
+        // Sorgudan sonra kaydolmuş olabilir, silindiği tekrar doğrulanır
+        couriers.keySet().stream().filter(courierId -> !seen.contains(courierId)).toList().stream()
+                .filter(courierId -> !courierRepository.existsById(courierId))
+                .forEach(this::forget);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        if (!pendingWrites.isEmpty()) {
+            flush();
+        }
+    }
+
+    // AVAILABLE couriers of the restaurant; lock-free snapshot
+    public List<CourierPresence> available(String restaurantId) {
+        Set<String> ids = byRestaurant.get(restaurantId);
+        if (ids == null) {
+            return List.of();
+        }
+        List<CourierPresence> available = new ArrayList<>();
+        for (String courierId : ids) {
+            Presence presence = couriers.get(courierId);
+            if (presence != null && presence.status.get() == CourierStatus.AVAILABLE
+                    && restaurantId.equals(presence.restaurantId.get())) {
+                available.add(presence.snapshot());
+            }
+        }
+        return available;
+    }
+
+    public Optional<CourierPresence> find(String courierId) {
+        Presence presence = couriers.get(courierId);
+        return Optional.ofNullable(presence).map(Presence::snapshot);
+    }
+
+    // Throws 404 for an unknown courier. The database is updated asynchronously.
+    public CourierPresence updateStatus(String courierId, CourierStatus status) {
+        Presence presence = presence(courierId);
+        presence.touch();
+        if (presence.status.getAndSet(status) != status) {
+            queueWrite(courierId, status);
+        }
+        return presence.snapshot();
+    }
+
+    public CourierPresence heartbeat(String courierId) {
+        Presence presence = presence(courierId);
+        presence.touch();
+        return presence.snapshot();
+    }
+
+    // Kurye restorana atandı (CourierService)
+    public void assignRestaurant(String courierId, String restaurantId) {
+        Presence presence = couriers.get(courierId);
+        if (presence == null) {
+            return;
+        }
+        String previous = presence.restaurantId.getAndSet(restaurantId);
+        if (previous != null && !previous.equals(restaurantId)) {
+            byRestaurant.computeIfPresent(previous, (key, ids) -> {
+                ids.remove(courierId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        if (restaurantId != null) {
+            byRestaurant.computeIfAbsent(restaurantId, key -> ConcurrentHashMap.newKeySet()).add(courierId);
+        }
+    }
+
+    // Hesap silindi
+    public void forget(String courierId) {
+        assignRestaurant(courierId, null);
+        couriers.remove(courierId);
+        pendingWrites.remove(courierId);
+    }
+
+    // Dağıtıcıdan önce işlenir, aday sıralaması güncel teslimat sayısını görsün
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onOrderStatusChanged(OrderStatusChanged event) {
+        if (event.courierId() != null && ACTIVE_DELIVERY_STATUSES.contains(event.status())) {
+            trackDelivery(event.orderId(), event.courierId());
+        } else {
+            String previous = deliveries.remove(event.orderId());
+            if (previous != null) {
+                Presence presence = couriers.get(previous);
+                if (presence != null) {
+                    presence.activeOrders.remove(event.orderId());
+                }
+            }
+        }
+        if (event.courierId() != null) {
+            Presence presence = couriers.get(event.courierId());
+            if (presence != null) {
+                presence.touch();
+            }
+        }
+    }
+
+    @Scheduled(fixedRate = STALE_CHECK_MILLIS, initialDelay = STALE_CHECK_MILLIS)
+    public void markStale() {
+        if (staleAfter.isZero() || staleAfter.isNegative()) {
+            return;
+        }
+        markStaleBefore(System.currentTimeMillis() - staleAfter.toMillis());
+    }
+
+    // Returns the number of couriers marked UNAVAILABLE
+    int markStaleBefore(long cutoffMillis) {
+        int marked = 0;
+        for (Presence presence : couriers.values()) {
+            // Arada heartbeat ya da durum değişikliği geldiyse CAS tutmaz ya da lastSeen yenidir
+            if (presence.lastSeenMillis.get() < cutoffMillis
+                    && presence.status.compareAndSet(CourierStatus.AVAILABLE, CourierStatus.UNAVAILABLE)) {
+                queueWrite(presence.courierId, CourierStatus.UNAVAILABLE);
+                marked++;
+            }
+        }
+        if (marked > 0) {
+            logger.info("Marked {} stale couriers UNAVAILABLE", marked);
+        }
+        return marked;
+    }
+
+    private Presence presence(String courierId) {
+        Presence presence = couriers.get(courierId);
+        if (presence != null) {
+            return presence;
+        }
+        // Yüklemeden sonra kaydolan kurye: bir kez veritabanından okunur
+        List<Object[]> rows = courierRepository.findPresenceRowsByCourierId(courierId);
+        if (rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Courier not found");
+        }
+        return register(rows.get(0));
+    }
+
+    // [courierId, restaurantId, status]
+    private Presence register(Object[] row) {
+        String courierId = (String) row[0];
+        Presence created = new Presence(courierId, (String) row[1], (CourierStatus) row[2]);
+        Presence presence = couriers.putIfAbsent(courierId, created);
+        if (presence != null) {
+            return presence;
+        }
+        if (created.restaurantId.get() != null) {
+            byRestaurant.computeIfAbsent(created.restaurantId.get(), key -> ConcurrentHashMap.newKeySet()).add(courierId);
+        }
+        return created;
+    }
+
+    private void trackDelivery(String orderId, String courierId) {
+        String previous = deliveries.put(orderId, courierId);
+        if (previous != null && !previous.equals(courierId)) {
+            Presence old = couriers.get(previous);
+            if (old != null) {
+                old.activeOrders.remove(orderId);
+            }
+        }
+        Presence presence = couriers.get(courierId);
+        if (presence != null) {
+            presence.activeOrders.add(orderId);
+        }
+    }
+
+    private void queueWrite(String courierId, CourierStatus status) {
+        pendingWrites.put(courierId, status);
+        if (flushScheduled.compareAndSet(false, true)) {
+            writer.execute(this::flush);
+        }
+    }
+
+    // Birikmiş durumlar duruma göre gruplanıp en fazla iki UPDATE ile yazılır
+    private void flush() {
+        flushScheduled.set(false);
+        Map<CourierStatus, List<String>> byStatus = new EnumMap<>(CourierStatus.class);
+        for (Map.Entry<String, CourierStatus> entry : pendingWrites.entrySet()) {
+            // Bu arada daha yeni bir durum geldiyse o bir sonraki turda yazılır
+            if (pendingWrites.remove(entry.getKey(), entry.getValue())) {
+                byStatus.computeIfAbsent(entry.getValue(), key -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        if (byStatus.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(tx -> byStatus.forEach((status, courierIds) ->
+                    courierRepository.updateStatusByCourierIdIn(courierIds, status)));
+        } catch (RuntimeException e) {
+            logger.error("Could not persist courier statuses, retrying", e);
+            byStatus.forEach((status, courierIds) -> courierIds.forEach(id -> pendingWrites.putIfAbsent(id, status)));
+            if (flushScheduled.compareAndSet(false, true) && !writer.isShutdown()) {
+                writer.schedule(this::flush, WRITE_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
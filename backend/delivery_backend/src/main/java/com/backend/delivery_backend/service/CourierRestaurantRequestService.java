@@ -29,6 +29,9 @@ public class CourierRestaurantRequestService {
     @Autowired
     private RestaurantOwnerRepository restaurantRepository;
 
+    @Autowired
+    private CourierPresenceRegistry courierPresence;
+
     public void sendRequest(String courierId, String restaurantId) {
         Courier courier = courierRepository.findByCourierId(courierId);
         RestaurantOwner restaurant = restaurantRepository.findByRestaurantId(restaurantId);
@@ -73,6 +76,7 @@ public class CourierRestaurantRequestService {
             Courier courier = request.getCourier();
             courier.setRestaurantOwner(request.getRestaurant());
             courierRepository.save(courier);
+            courierPresence.assignRestaurant(courier.getCourierId(), request.getRestaurant().getRestaurantId());
         } else if ("REJECT".equalsIgnoreCase(action)) {
             request.setStatus(RequestStatus.REJECTED);
         } else {
@@ -8,7 +8,13 @@ import com.backend.delivery_backend.model.DeliveryRequest;
 import com.backend.delivery_backend.repository.CourierRepository;
 import com.backend.delivery_backend.repository.DeliveryRequestRepository;
 import com.backend.delivery_backend.repository.RestaurantOwnerRepository;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 public class CourierService {
@@ -16,13 +22,25 @@ public class CourierService {
     private final CourierRepository courierRepository;
     private final RestaurantOwnerRepository restaurantOwnerRepository;
     private final DeliveryRequestRepository deliveryRequestRepository;
+    private final DomainEventOutbox domainEventOutbox;
+    private final OrderService orderService;
+    private final CourierDispatcher courierDispatcher;
+    private final CourierPresenceRegistry courierPresence;
 
     public CourierService(CourierRepository courierRepository,
                           RestaurantOwnerRepository restaurantOwnerRepository,
-                          DeliveryRequestRepository deliveryRequestRepository) {
+                          DeliveryRequestRepository deliveryRequestRepository,
+                          DomainEventOutbox domainEventOutbox,
+                          OrderService orderService,
+                          CourierDispatcher courierDispatcher,
+                          CourierPresenceRegistry courierPresence) {
         this.courierRepository = courierRepository;
         this.restaurantOwnerRepository = restaurantOwnerRepository;
         this.deliveryRequestRepository = deliveryRequestRepository;
+        this.domainEventOutbox = domainEventOutbox;
+        this.orderService = orderService;
+        this.courierDispatcher = courierDispatcher;
+        this.courierPresence = courierPresence;
     }
 
     public void assignRestaurantToCourier(String courierId, Long restaurantId) {
@@ -35,6 +53,7 @@ public class CourierService {
 
         courier.setRestaurantOwner(restaurant);
         courierRepository.save(courier);
+        courierPresence.assignRestaurant(courierId, restaurant.getRestaurantId());
     }
 
     public void assignRestaurantToCourierByName(String courierId, String restaurantName) {
@@ -46,29 +65,34 @@ public class CourierService {
         assignRestaurantToCourier(courierId, restaurantID); // mevcut method
     }
 
+    // Durum bellekte anında değişir, couriers tablosuna CourierPresenceRegistry asenkron yazar
     public void updateCourierStatus(String courierId, String statusString) {
         if (statusString == null) {
-            throw new RuntimeException("Status value is missing in request.");
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Status value is missing in request.");
         }
 
-        Courier courier = courierRepository.findById(courierId)
-                .orElseThrow(() -> new RuntimeException("Courier not found"));
-
         CourierStatus status;
         try {
             status = CourierStatus.valueOf(statusString.toUpperCase());
         } catch (IllegalArgumentException e) {
-            throw new RuntimeException("Invalid status value. Use AVAILABLE or UNAVAILABLE.");
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid status value. Use AVAILABLE or UNAVAILABLE.");
         }
 
-        courier.setStatus(status);
-        courierRepository.save(courier);
+        CourierPresenceRegistry.CourierPresence presence = courierPresence.updateStatus(courierId, status);
+        if (status == CourierStatus.AVAILABLE && presence.restaurantId() != null) {
+            courierDispatcher.courierAvailable(presence.restaurantId());
+        }
+    }
 
-        System.out.println("[INFO] Courier " + courierId + " status set to " + status);
+    public CourierPresenceRegistry.CourierPresence heartbeat(String courierId) {
+        return courierPresence.heartbeat(courierId);
     }
 
 
-    public void respondToDeliveryRequest(Long courierId, Long requestId, String statusString) {
+    // Kabulde sipariş aynı transaction içinde kuryeye atanır; sipariş alınamazsa (başka kurye aldı, iptal oldu)
+    // cevap da geri alınır ve istek hata döner. Trip isteği cevaplanınca trip'in bütün istekleri aynı cevabı alır.
+    @Transactional
+    public void respondToDeliveryRequest(String courierId, Long requestId, String statusString) {
         DeliveryRequest request = deliveryRequestRepository.findById(requestId)
                 .orElseThrow(() -> new RuntimeException("Request not found"));
 
@@ -77,28 +101,38 @@ public class CourierService {
         }
 
         RequestStatus status = RequestStatus.valueOf(statusString.toUpperCase());
-        request.setStatus(status);
-
-        if (status == RequestStatus.ACCEPTED) {
-            // TODO: Order'a kurye ata (orderService.assignCourier(...) gibi bir çağrı yapılabilir)
-            // Courier id stringe çevrilmeli.
-            System.out.println("[INFO] Order ID " + request.getOrderId() + " assigned to courier ID " + courierId);
-
-            // TODO: Restoranı bilgilendir (örneğin WebSocket veya email servisi)
-            System.out.println("[INFO] Restaurant notified: Courier assigned to order.");
-
-            // TODO: Müşteriyi bilgilendir (örneğin sistem mesajı, push notification vs.)
-            System.out.println("[INFO] Customer notified: Courier en route.");
-
-        } else if (status == RequestStatus.REJECTED) {
-            // TODO: Sisteme başka kurye önerisi sunulabilir (örneğin uygun kurye listesi alınır)
-            System.out.println("[WARN] Courier rejected the delivery. Reassigning the order...");
-
-            // Bu noktada sistem başka bir uygun kurye aramalı
-            // ileride: deliveryAssignmentService.reassignOrder(orderId);
+        if (status == RequestStatus.PENDING) {
+            throw new RuntimeException("Status must be ACCEPTED or REJECTED");
         }
+        LocalDateTime now = LocalDateTime.now();
+        if (request.getExpiresAt() != null && now.isAfter(request.getExpiresAt())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Delivery request has expired.");
+        }
+        List<DeliveryRequest> answered = request.getTripId() == null ? List.of(request)
+                : deliveryRequestRepository.findByTripIdOrderById(request.getTripId());
+        int updated = request.getTripId() == null
+                ? deliveryRequestRepository.answerIfPending(requestId, status, false, now, RequestStatus.PENDING)
+                : deliveryRequestRepository.answerTripIfPending(request.getTripId(), status, false, now, RequestStatus.PENDING);
+        if (updated == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Delivery request is no longer pending.");
+        }
+        for (DeliveryRequest each : answered) {
+            if (status == RequestStatus.ACCEPTED) {
+                orderService.claimForCourier(each.getOrderId(), request.getCourier());
+            }
+            // Sıradaki kuryeye geçiş CourierDispatcher'da, outbox olayıyla asenkron
+            domainEventOutbox.append(new DeliveryRequestAnswered(each.getId(), request.getCourier().getId(),
+                    each.getOrderId(), status.name(), now));
+        }
+    }
 
-        deliveryRequestRepository.save(request);
+    public List<CourierDispatcher.Offer> pendingDeliveryRequests(String courierId) {
+        return deliveryRequestRepository.findByCourierCourierIdAndStatus(courierId, RequestStatus.PENDING).stream()
+                .map(request -> new CourierDispatcher.Offer(request.getId(), request.getOrderId(),
+                        request.getCourier().getRestaurantOwner() != null
+                                ? request.getCourier().getRestaurantOwner().getRestaurantId() : null,
+                        request.getExpiresAt(), request.getTripId()))
+                .toList();
     }
 
-}
\ No newline at end of file
+}
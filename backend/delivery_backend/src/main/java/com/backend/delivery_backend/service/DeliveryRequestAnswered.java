@@ -0,0 +1,13 @@
+package com.backend.delivery_backend.service;
+
+import java.time.LocalDateTime;
+
+// A courier accepted or rejected a delivery request
+public record DeliveryRequestAnswered(Long requestId, String courierId, String orderId, String status,
+                                      LocalDateTime answeredAt) implements DomainEvent {
+
+    @Override
+    public String aggregateId() {
+        return String.valueOf(requestId);
+    }
+}
@@ -0,0 +1,8 @@
+package com.backend.delivery_backend.service;
+
+// Events written to the outbox by DomainEventOutbox and delivered to @EventListener subscribers by OutboxRelay.
+// Stored as JSON; outbox_events.type is the simple class name.
+public sealed interface DomainEvent permits OrderPlaced, OrderStatusChanged, RestaurantSuspended, DeliveryRequestAnswered {
+
+    String aggregateId();
+}
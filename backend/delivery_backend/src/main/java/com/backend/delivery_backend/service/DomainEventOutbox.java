@@ -0,0 +1,45 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.model.OutboxEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// Transactional outbox: the event row commits or rolls back together with the change it describes.
+// Nothing is delivered here; OutboxRelay is only woken up after commit.
+@Service
+public class DomainEventOutbox {
+
+    private final ObjectMapper objectMapper;
+    private final OutboxRelay outboxRelay;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public DomainEventOutbox(ObjectMapper objectMapper, OutboxRelay outboxRelay) {
+        this.objectMapper = objectMapper;
+        this.outboxRelay = outboxRelay;
+    }
+
+    // Çağıranın transaction'ı içinde yazılır; transaction yoksa hata verir
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(DomainEvent event) {
+        OutboxEvent row = new OutboxEvent();
+        row.setType(event.getClass().getSimpleName());
+        row.setAggregateId(event.aggregateId());
+        try {
+            row.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + row.getType(), e);
+        }
+        row.setCreatedAt(LocalDateTime.now());
+        entityManager.persist(row);
+        IndexSync.afterCommit(outboxRelay::wakeUp);
+    }
+}
@@ -0,0 +1,195 @@
+package com.backend.delivery_backend.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// Uniform lat/lon grid over restaurant locations. Radius and k-nearest queries only visit the cells
+// around the query point instead of every restaurant.
+// Not thread-safe, RestaurantSearchIndex guards it with its lock.
+final class GeoGridIndex {
+
+    // ~1.1 km kuzey-güney; şehir içi aramalarda hücre başına birkaç restoran düşer
+    static final double CELL_DEGREES = 0.01;
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final int ROWS = (int) Math.round(180 / CELL_DEGREES);
+    private static final int COLUMNS = (int) Math.round(360 / CELL_DEGREES);
+
+    record Hit(int docId, double distanceKm) {
+    }
+
+    private final Map<Long, Set<Integer>> cells = new HashMap<>();
+    private final Map<Integer, double[]> points = new HashMap<>();
+
+    void put(int docId, Double latitude, Double longitude) {
+        remove(docId);
+        if (!isValid(latitude, longitude)) {
+            return;
+        }
+        points.put(docId, new double[]{latitude, longitude});
+        cells.computeIfAbsent(cellKey(row(latitude), column(longitude)), k -> new HashSet<>()).add(docId);
+    }
+
+    void remove(int docId) {
+        double[] point = points.remove(docId);
+        if (point == null) {
+            return;
+        }
+        long key = cellKey(row(point[0]), column(point[1]));
+        Set<Integer> cell = cells.get(key);
+        cell.remove(docId);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    void clear() {
+        cells.clear();
+        points.clear();
+    }
+
+    static boolean isValid(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    // All documents in scope within radiusKm, closest first
+    List<Hit> withinRadius(double latitude, double longitude, double radiusKm, BitSet scope) {
+        List<Hit> hits = new ArrayList<>();
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        int rowSpan = (int) Math.ceil(latSpan / CELL_DEGREES);
+        int columnSpan = columnSpan(latitude, latSpan, radiusKm);
+        long boxCells = (2L * rowSpan + 1) * (2L * columnSpan + 1);
+
+        if (boxCells > cells.size() || 2 * columnSpan + 1 > COLUMNS) {
+            // Kutu dolu hücre sayısından büyükse dolu hücreleri taramak daha ucuz
+            for (Set<Integer> cell : cells.values()) {
+                collect(cell, latitude, longitude, radiusKm, scope, hits);
+            }
+        } else {
+            int centerRow = row(latitude);
+            int centerColumn = column(longitude);
+            for (int row = Math.max(0, centerRow - rowSpan); row <= Math.min(ROWS - 1, centerRow + rowSpan); row++) {
+                for (int dc = -columnSpan; dc <= columnSpan; dc++) {
+                    Set<Integer> cell = cells.get(cellKey(row, Math.floorMod(centerColumn + dc, COLUMNS)));
+                    if (cell != null) {
+                        collect(cell, latitude, longitude, radiusKm, scope, hits);
+                    }
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return hits;
+    }
+
+    // k closest documents in scope, no farther than maxRadiusKm, closest first.
+    // Rings of cells are visited outwards until the k-th best distance is closer than the next ring can be.
+    List<Hit> nearest(double latitude, double longitude, int k, double maxRadiusKm, BitSet scope) {
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::distanceKm).reversed());
+        int centerRow = row(latitude);
+        int centerColumn = column(longitude);
+        long visitedCells = 0;
+
+        for (int ring = 0; ; ring++) {
+            double ringLatitude = Math.min(90, Math.abs(latitude) + (ring + 1) * CELL_DEGREES);
+            double cellWidthKm = CELL_DEGREES * KM_PER_DEGREE * Math.cos(Math.toRadians(ringLatitude));
+            // Nokta merkez hücrenin herhangi bir yerinde olabilir; bu halkadaki noktalar en az (ring - 1) hücre uzakta
+            double ringBoundKm = Math.max(0, ring - 1) * Math.min(CELL_DEGREES * KM_PER_DEGREE, cellWidthKm);
+            if (ringBoundKm > maxRadiusKm || (best.size() == k && best.peek().distanceKm() <= ringBoundKm)) {
+                break;
+            }
+            if (2 * ring + 1 > COLUMNS || visitedCells > cells.size()) {
+                // Seyrek bölge: halka halka gezmek yerine kalan her şeyi bir kez tara
+                return withinRadius(latitude, longitude, maxRadiusKm, scope).stream().limit(k).toList();
+            }
+            for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+                if (row < 0 || row >= ROWS) {
+                    continue;
+                }
+                boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int dc = -ring; dc <= ring; dc += step) {
+                    visitedCells++;
+                    Set<Integer> cell = cells.get(cellKey(row, Math.floorMod(centerColumn + dc, COLUMNS)));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int docId : cell) {
+                        if (!scope.get(docId)) {
+                            continue;
+                        }
+                        double[] point = points.get(docId);
+                        double distance = distanceKm(latitude, longitude, point[0], point[1]);
+                        if (distance > maxRadiusKm) {
+                            continue;
+                        }
+                        if (best.size() < k) {
+                            best.add(new Hit(docId, distance));
+                        } else if (distance < best.peek().distanceKm()) {
+                            best.poll();
+                            best.add(new Hit(docId, distance));
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Hit> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return result;
+    }
+
+    // Haversine
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private void collect(Set<Integer> cell, double latitude, double longitude, double radiusKm,
+                         BitSet scope, List<Hit> hits) {
+        for (int docId : cell) {
+            if (!scope.get(docId)) {
+                continue;
+            }
+            double[] point = points.get(docId);
+            double distance = distanceKm(latitude, longitude, point[0], point[1]);
+            if (distance <= radiusKm) {
+                hits.add(new Hit(docId, distance));
+            }
+        }
+    }
+
+    // Kutup yakınında boylam derecesi kısalır, bu yüzden en yüksek enlemdeki genişlik kullanılır
+    private static int columnSpan(double latitude, double latSpan, double radiusKm) {
+        double maxLatitude = Math.min(90, Math.abs(latitude) + latSpan);
+        double cos = Math.cos(Math.toRadians(maxLatitude));
+        if (cos < 1e-6) {
+            return COLUMNS / 2;
+        }
+        double lonSpan = radiusKm / (KM_PER_DEGREE * cos);
+        return (int) Math.min(COLUMNS / 2, Math.ceil(lonSpan / CELL_DEGREES));
+    }
+
+    private static int row(double latitude) {
+        return Math.min(ROWS - 1, (int) Math.floor((latitude + 90) / CELL_DEGREES));
+    }
+
+    private static int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / CELL_DEGREES), COLUMNS);
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+}
@@ -0,0 +1,234 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.model.IdempotencyRecord;
+import com.backend.delivery_backend.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Idempotency-Key support: the first successful response for (scope, key) is replayed for repeats inside WINDOW.
+// Concurrent duplicates wait on the first request's future instead of running the action again.
+// Error responses (4xx/5xx) are only shared with those concurrent duplicates, not kept: a corrected retry with the
+// same key runs again instead of replaying the old error.
+// Bounded in memory; optionally written through to the idempotency_keys table.
+@Service
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+    static final int MAX_ENTRIES = 10_000;
+    static final Duration WINDOW = Duration.ofHours(24);
+    // Aynı anahtarlı ikinci istek ilk isteğin bitmesini en fazla bu kadar bekler
+    static final long WAIT_SECONDS = 30;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean persistent;
+    private final Clock clock = Clock.systemDefaultZone();
+
+    // Insertion order: ilk eleman en eski anahtar
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    public IdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper,
+                            @Value("${idempotency.persistence.enabled:false}") boolean persistent) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.persistent = persistent;
+    }
+
+    // json: body is an already serialized JSON document (loaded from the table)
+    private record Stored(int status, Object body, boolean json) {
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final long createdAt;
+        final CompletableFuture<Stored> result = new CompletableFuture<>();
+
+        Entry(String fingerprint, long createdAt) {
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+    }
+
+    // scope keeps keys of different users apart; fingerprint describes the request parameters,
+    // reusing a key with other parameters is rejected with 422
+    public ResponseEntity<?> execute(String scope, String key, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String id = sha256(scope + "\n" + key);
+        String fingerprintHash = sha256(fingerprint);
+        long now = clock.millis();
+
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(id);
+            if (entry != null && now - entry.createdAt > WINDOW.toMillis()) {
+                entries.remove(id);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry(fingerprintHash, now);
+                entries.put(id, entry);
+                evictOverflow();
+                owner = true;
+            }
+        }
+        if (!entry.fingerprint.equals(fingerprintHash)) {
+            return keyReused();
+        }
+        if (!owner) {
+            return replay(await(entry));
+        }
+
+        Optional<IdempotencyRecord> persisted = persistent ? findPersisted(id) : Optional.empty();
+        if (persisted.isPresent()) {
+            IdempotencyRecord record = persisted.get();
+            if (!record.getFingerprint().equals(fingerprintHash)) {
+                forget(id, entry);
+                entry.result.complete(new Stored(HttpStatus.UNPROCESSABLE_ENTITY.value(), keyReused().getBody(), false));
+                return keyReused();
+            }
+            Stored stored = new Stored(record.getStatus(), record.getBody(), true);
+            entry.result.complete(stored);
+            return replay(stored);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Hata kaydedilmez, istemci aynı anahtarla tekrar deneyebilir
+            forget(id, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        Stored stored = new Stored(response.getStatusCode().value(), response.getBody(), false);
+        entry.result.complete(stored);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            forget(id, entry);
+        } else if (persistent) {
+            persist(id, fingerprintHash, stored);
+        }
+        return response;
+    }
+
+    @Scheduled(fixedDelay = 60 * 60 * 1000, initialDelay = 60 * 60 * 1000)
+    public void purgeExpired() {
+        long cutoff = clock.millis() - WINDOW.toMillis();
+        synchronized (entries) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext() && it.next().createdAt < cutoff) {
+                it.remove();
+            }
+        }
+        if (persistent) {
+            int deleted = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now(clock).minus(WINDOW));
+            logger.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private Stored await(Entry entry) {
+        try {
+            return entry.result.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            return inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        }
+    }
+
+    private static Stored inProgress() {
+        return new Stored(HttpStatus.CONFLICT.value(), "A request with this " + HEADER + " is still being processed", false);
+    }
+
+    private static ResponseEntity<?> keyReused() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(HEADER + " was already used with different request parameters");
+    }
+
+    private static ResponseEntity<?> replay(Stored stored) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true");
+        if (stored.json()) {
+            builder.contentType(MediaType.APPLICATION_JSON);
+        }
+        return builder.body(stored.body());
+    }
+
+    private Optional<IdempotencyRecord> findPersisted(String id) {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(WINDOW);
+        return idempotencyRecordRepository.findById(id).filter(record -> record.getCreatedAt().isAfter(cutoff));
+    }
+
+    // Kalıcı kayıt en iyi çaba ile yazılır; başarısız olursa bellek içi kayıt yine geçerli
+    private void persist(String id, String fingerprintHash, Stored stored) {
+        try {
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setId(id);
+            record.setFingerprint(fingerprintHash);
+            record.setStatus(stored.status());
+            record.setBody(objectMapper.writeValueAsString(stored.body()));
+            record.setCreatedAt(LocalDateTime.now(clock));
+            idempotencyRecordRepository.save(record);
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Could not persist idempotency key {}", id, e);
+        }
+    }
+
+    private void forget(String id, Entry entry) {
+        synchronized (entries) {
+            entries.remove(id, entry);
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > MAX_ENTRIES && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.backend.delivery_backend.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Entity listener'ların in-memory index güncellemeleri commit sonrasına ertelenir
+final class IndexSync {
+
+    private IndexSync() {
+    }
+
+    // Rollback olursa index değişmesin
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.backend.delivery_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Stub gateway for development and tests: approves cards with a valid Luhn checksum and an unexpired MM/YY date.
+// payment.gateway.local.latency-ms simulates a slow remote gateway per batch.
+@Service
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "local", matchIfMissing = true)
+public class LocalPaymentGateway implements PaymentGateway {
+
+    private static final DateTimeFormatter EXPIRY = DateTimeFormatter.ofPattern("MM/yy");
+
+    private final long latencyMillis;
+
+    public LocalPaymentGateway(@Value("${payment.gateway.local.latency-ms:0}") long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public List<AuthorizationResult> authorize(List<AuthorizationRequest> requests) {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while authorizing payments", e);
+            }
+        }
+        List<AuthorizationResult> results = new ArrayList<>(requests.size());
+        for (AuthorizationRequest request : requests) {
+            if (!passesLuhn(request.cardNumber())) {
+                results.add(AuthorizationResult.declined(request.orderId(), "Invalid card number"));
+            } else if (isExpired(request.expiryDate())) {
+                results.add(AuthorizationResult.declined(request.orderId(), "Card expired"));
+            } else {
+                results.add(new AuthorizationResult(request.orderId(), true, "local-" + UUID.randomUUID(), null));
+            }
+        }
+        return results;
+    }
+
+    private static boolean passesLuhn(String cardNumber) {
+        if (cardNumber == null) {
+            return false;
+        }
+        String digits = cardNumber.replaceAll("[\\s-]", "");
+        if (digits.length() < 12 || digits.length() > 19 || !digits.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            int digit = digits.charAt(digits.length() - 1 - i) - '0';
+            if (i % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static boolean isExpired(String expiryDate) {
+        if (expiryDate == null) {
+            return true;
+        }
+        try {
+            return YearMonth.parse(expiryDate.trim(), EXPIRY).isBefore(YearMonth.now());
+        } catch (DateTimeParseException e) {
+            return true;
+        }
+    }
+}
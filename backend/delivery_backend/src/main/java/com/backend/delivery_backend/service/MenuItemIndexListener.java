@@ -0,0 +1,49 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.model.MenuItem;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static com.backend.delivery_backend.service.IndexSync.afterCommit;
+
+// Keeps MenuSearchIndex, the menu item suggestions and the menu snapshots in sync with
+// RestaurantOwnerService add/update/delete of menu items
+public class MenuItemIndexListener {
+
+    private final ObjectProvider<MenuSearchIndex> menuSearchIndex;
+    private final ObjectProvider<SuggestionIndex> suggestionIndex;
+    private final ObjectProvider<MenuSnapshotCache> menuSnapshotCache;
+
+    public MenuItemIndexListener(ObjectProvider<MenuSearchIndex> menuSearchIndex,
+                                 ObjectProvider<SuggestionIndex> suggestionIndex,
+                                 ObjectProvider<MenuSnapshotCache> menuSnapshotCache) {
+        this.menuSearchIndex = menuSearchIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.menuSnapshotCache = menuSnapshotCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(MenuItem item) {
+        // Değerler şimdi kopyalanır, commit anındaki lazy yüklemelere güvenilmez
+        MenuItemSnapshot snapshot = MenuItemSnapshot.of(item);
+        afterCommit(() -> {
+            menuSearchIndex.getObject().index(snapshot);
+            suggestionIndex.getObject().indexMenuItem(snapshot);
+            menuSnapshotCache.getObject().invalidate(snapshot.restaurantId());
+        });
+    }
+
+    @PostRemove
+    public void onRemove(MenuItem item) {
+        Long itemId = item.getId();
+        String restaurantId = item.getRestaurant() != null ? item.getRestaurant().getRestaurantId() : null;
+        afterCommit(() -> {
+            menuSearchIndex.getObject().remove(itemId);
+            suggestionIndex.getObject().removeMenuItem(itemId);
+            menuSnapshotCache.getObject().invalidate(restaurantId);
+        });
+    }
+}
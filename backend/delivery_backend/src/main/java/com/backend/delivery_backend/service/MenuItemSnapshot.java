@@ -0,0 +1,13 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.model.MenuItem;
+
+// Immutable copy of a menu item for the in-memory indexes; taken inside the transaction, applied after commit
+public record MenuItemSnapshot(Long itemId, String name, String description, double price, boolean available,
+                               String restaurantId) {
+
+    public static MenuItemSnapshot of(MenuItem item) {
+        return new MenuItemSnapshot(item.getId(), item.getName(), item.getDescription(), item.getPrice(),
+                item.isAvailable(), item.getRestaurant() != null ? item.getRestaurant().getRestaurantId() : null);
+    }
+}
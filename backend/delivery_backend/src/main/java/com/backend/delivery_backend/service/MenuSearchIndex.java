@@ -0,0 +1,234 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.repository.MenuItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory dish search over menu item name and description across all restaurants.
+// Kept in sync by MenuItemIndexListener; restaurant state comes from RestaurantSearchIndex.
+@Service
+public class MenuSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MenuSearchIndex.class);
+
+    private final MenuItemRepository menuItemRepository;
+    private final RestaurantSearchIndex restaurantSearchIndex;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> docIds = new HashMap<>();
+    private final List<MenuItemSnapshot> documents = new ArrayList<>();
+    private final Deque<Integer> freeDocIds = new ArrayDeque<>();
+    private final TrigramIndex textIndex = new TrigramIndex();
+    private final BitSet allDocs = new BitSet();
+    private final BitSet availableDocs = new BitSet();
+    // price -> docs, fiyat aralığı filtresi alt harita birleşimiyle cevaplanır
+    private final NavigableMap<Double, BitSet> priceIndex = new TreeMap<>();
+
+    public MenuSearchIndex(MenuItemRepository menuItemRepository, RestaurantSearchIndex restaurantSearchIndex) {
+        this.menuItemRepository = menuItemRepository;
+        this.restaurantSearchIndex = restaurantSearchIndex;
+    }
+
+    // null means "not filtered"; restaurantOpenOnly keeps restaurants in RestaurantSearchIndex's open-now set
+    public record Query(String keyword, Double minPrice, Double maxPrice, boolean availableOnly,
+                        boolean restaurantOpenOnly) {
+    }
+
+    // nameMatch: every keyword term occurs in the item name, not only in its description
+    public record Hit(MenuItemSnapshot item, RestaurantSearchIndex.Document restaurant, boolean nameMatch) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<MenuItemSnapshot> items = menuItemRepository.findAllWithRestaurant().stream()
+                .map(MenuItemSnapshot::of)
+                .toList();
+        lock.writeLock().lock();
+        try {
+            docIds.clear();
+            documents.clear();
+            freeDocIds.clear();
+            textIndex.clear();
+            allDocs.clear();
+            availableDocs.clear();
+            priceIndex.clear();
+            items.forEach(this::indexLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Menu search index rebuilt with {} items", items.size());
+    }
+
+    public void index(MenuItemSnapshot item) {
+        if (item.itemId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            indexLocked(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIds.remove(itemId);
+            if (docId != null) {
+                clearLocked(docId);
+                documents.set(docId, null);
+                freeDocIds.push(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Restoranlar tek seferde, kilit bir kez alınarak eşlenir (N+1 yok)
+    public List<Hit> search(Query query) {
+        String[] terms = TrigramIndex.normalize(query.keyword()).split("\\s+");
+        List<MenuItemSnapshot> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            BitSet hits = (BitSet) (query.availableOnly() ? availableDocs : allDocs).clone();
+            if (query.minPrice() != null || query.maxPrice() != null) {
+                hits.and(priceRange(query.minPrice(), query.maxPrice()));
+            }
+            BitSet textMatches = textMatches(terms, hits);
+            if (textMatches != null) {
+                hits = textMatches;
+            }
+            for (int docId = hits.nextSetBit(0); docId >= 0; docId = hits.nextSetBit(docId + 1)) {
+                matches.add(documents.get(docId));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Set<String> restaurantIds = new HashSet<>();
+        matches.forEach(item -> restaurantIds.add(item.restaurantId()));
+        Map<String, RestaurantSearchIndex.Document> restaurants = restaurantSearchIndex.getAll(restaurantIds);
+        BitSet openNow = query.restaurantOpenOnly() ? restaurantSearchIndex.openNowSnapshot() : null;
+
+        List<Hit> result = new ArrayList<>();
+        for (MenuItemSnapshot item : matches) {
+            RestaurantSearchIndex.Document restaurant = restaurants.get(item.restaurantId());
+            // Onaylı, ban/suspend edilmemiş restoranların ürünleri listelenir
+            if (restaurant == null || !restaurant.isPubliclyVisible()
+                    || (openNow != null && !openNow.get(restaurant.docId()))) {
+                continue;
+            }
+            result.add(new Hit(item, restaurant, matchesAll(item.name(), terms)));
+        }
+        return result;
+    }
+
+    private BitSet priceRange(Double minPrice, Double maxPrice) {
+        NavigableMap<Double, BitSet> range = priceIndex;
+        if (minPrice != null) {
+            range = range.tailMap(minPrice, true);
+        }
+        if (maxPrice != null) {
+            range = range.headMap(maxPrice, true);
+        }
+        BitSet result = new BitSet();
+        range.values().forEach(result::or);
+        return result;
+    }
+
+    private BitSet textMatches(String[] terms, BitSet scope) {
+        BitSet candidates = null;
+        for (String term : terms) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            BitSet termCandidates = textIndex.candidates(term);
+            if (candidates == null) {
+                candidates = termCandidates;
+            } else {
+                candidates.and(termCandidates);
+            }
+        }
+        if (candidates == null) {
+            return null;
+        }
+        candidates.and(scope);
+        // Gram kesişimi yanlış pozitif verebilir, her terim ad veya açıklamada geçmeli
+        for (int docId = candidates.nextSetBit(0); docId >= 0; docId = candidates.nextSetBit(docId + 1)) {
+            MenuItemSnapshot item = documents.get(docId);
+            for (String term : terms) {
+                if (!term.isEmpty() && !contains(item.name(), term) && !contains(item.description(), term)) {
+                    candidates.clear(docId);
+                    break;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static boolean matchesAll(String field, String[] terms) {
+        for (String term : terms) {
+            if (!term.isEmpty() && !contains(field, term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(String field, String normalizedTerm) {
+        return field != null && TrigramIndex.normalize(field).contains(normalizedTerm);
+    }
+
+    private void indexLocked(MenuItemSnapshot item) {
+        Integer docId = docIds.get(item.itemId());
+        if (docId == null) {
+            docId = freeDocIds.isEmpty() ? documents.size() : freeDocIds.pop();
+            if (docId == documents.size()) {
+                documents.add(null);
+            }
+            docIds.put(item.itemId(), docId);
+        } else {
+            clearLocked(docId);
+        }
+        documents.set(docId, item);
+        textIndex.put(docId, item.name(), item.description());
+        allDocs.set(docId);
+        if (item.available()) {
+            availableDocs.set(docId);
+        }
+        priceIndex.computeIfAbsent(item.price(), k -> new BitSet()).set(docId);
+    }
+
+    private void clearLocked(int docId) {
+        MenuItemSnapshot old = documents.get(docId);
+        textIndex.remove(docId);
+        allDocs.clear(docId);
+        availableDocs.clear(docId);
+        if (old != null) {
+            BitSet bucket = priceIndex.get(old.price());
+            if (bucket != null) {
+                bucket.clear(docId);
+                if (bucket.isEmpty()) {
+                    priceIndex.remove(old.price());
+                }
+            }
+        }
+    }
+}
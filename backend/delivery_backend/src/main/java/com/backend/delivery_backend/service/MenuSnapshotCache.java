@@ -0,0 +1,85 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.DTO.MenuItemViewDTO;
+import com.backend.delivery_backend.repository.MenuItemRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-restaurant immutable menu snapshots, kept as ready-to-send JSON bytes.
+// Menu writes invalidate through MenuItemIndexListener; the next read rebuilds with a new version.
+@Service
+public class MenuSnapshotCache {
+
+    private final MenuItemRepository menuItemRepository;
+    private final ObjectMapper objectMapper;
+
+    // Yeniden başlatmada sürümler sıfırlanır, epoch ETag'lerin çakışmasını engeller
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong versions = new AtomicLong();
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    // Invalidation sayacı: yükleme sırasında gelen bir yazma eski snapshot'ın kaydedilmesini engeller
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    public MenuSnapshotCache(MenuItemRepository menuItemRepository, ObjectMapper objectMapper) {
+        this.menuItemRepository = menuItemRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public record Snapshot(long version, String etag, byte[] json) {
+
+        // If-None-Match birden fazla ETag veya * içerebilir
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String trimmed = tag.trim();
+                if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public Snapshot get(String restaurantId) {
+        Snapshot cached = snapshots.get(restaurantId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = generations.getOrDefault(restaurantId, 0L);
+        List<MenuItemViewDTO> items = menuItemRepository.findByRestaurantRestaurantId(restaurantId).stream()
+                .map(MenuItemViewDTO::new)
+                .toList();
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(items);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Menu of restaurant " + restaurantId + " could not be serialized", e);
+        }
+        long version = versions.incrementAndGet();
+        Snapshot built = new Snapshot(version, "\"" + epoch + "-" + version + "\"", json);
+        // Yükleme sırasında menü değiştiyse bu snapshot cache'e girmez, sadece bu isteğe döner
+        Snapshot stored = snapshots.compute(restaurantId, (id, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            return generations.getOrDefault(restaurantId, 0L) == generation ? built : null;
+        });
+        return stored != null ? stored : built;
+    }
+
+    public void invalidate(String restaurantId) {
+        if (restaurantId == null) {
+            return;
+        }
+        generations.merge(restaurantId, 1L, Long::sum);
+        snapshots.remove(restaurantId);
+    }
+}
@@ -0,0 +1,120 @@
+package com.backend.delivery_backend.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Minute-of-day time wheel: each slot holds the documents that open or close at that minute.
+// Business hours are an inclusive [open, close] range of minutes, like the old LocalTime check
+// (!now.isBefore(start) && !now.isAfter(end)): a restaurant closing at 22:00 is still open during 22:00 and closes
+// at 22:01. close < open wraps over midnight, "24:00" is the end of the day, open == close is open for that minute.
+// Not thread-safe, RestaurantSearchIndex guards it with its lock.
+final class OpeningHoursWheel {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int INVALID = -1;
+
+    // Boş dakikalar null, set ilk kayıtta oluşturulur
+    private final List<Set<Integer>> slots = new ArrayList<>(Collections.nCopies(MINUTES_PER_DAY, null));
+    private final Map<Integer, int[]> hoursByDoc = new HashMap<>();
+
+    void schedule(int docId, int openMinute, int closeMinute) {
+        unschedule(docId);
+        if (openMinute == INVALID || closeMinute == INVALID) {
+            return;
+        }
+        int[] hours = {openMinute % MINUTES_PER_DAY, lastOpenMinute(closeMinute)};
+        hoursByDoc.put(docId, hours);
+        slot(hours[0]).add(docId);
+        slot(closedFrom(hours[1])).add(docId);
+    }
+
+    void unschedule(int docId) {
+        int[] hours = hoursByDoc.remove(docId);
+        if (hours != null) {
+            slot(hours[0]).remove(docId);
+            slot(closedFrom(hours[1])).remove(docId);
+        }
+    }
+
+    void clear() {
+        hoursByDoc.clear();
+        Collections.fill(slots, null);
+    }
+
+    // Documents whose open/close boundary lies in (fromExclusive, toInclusive], wrapping over midnight
+    Set<Integer> due(int fromExclusive, int toInclusive) {
+        Set<Integer> result = new HashSet<>();
+        for (int minute = (fromExclusive + 1) % MINUTES_PER_DAY; ; minute = (minute + 1) % MINUTES_PER_DAY) {
+            Set<Integer> slot = slots.get(minute);
+            if (slot != null) {
+                result.addAll(slot);
+            }
+            if (minute == toInclusive) {
+                return result;
+            }
+        }
+    }
+
+    boolean isOpen(int docId, int minute) {
+        int[] hours = hoursByDoc.get(docId);
+        return hours != null && isOpen(hours[0], hours[1], minute);
+    }
+
+    // [open, close] penceresi, iki uç dahil; close < open ise gece yarısını geçer
+    static boolean isOpen(int openMinute, int closeMinute, int minute) {
+        if (openMinute == INVALID || closeMinute == INVALID) {
+            return false;
+        }
+        int open = openMinute % MINUTES_PER_DAY;
+        int close = lastOpenMinute(closeMinute);
+        if (open <= close) {
+            return minute >= open && minute <= close;
+        }
+        return minute >= open || minute <= close;
+    }
+
+    // "24:00" günün son dakikası 23:59 olarak sayılır
+    private static int lastOpenMinute(int closeMinute) {
+        return Math.min(closeMinute, MINUTES_PER_DAY - 1);
+    }
+
+    // Kapanışın geçerli olduğu ilk dakika
+    private static int closedFrom(int lastOpenMinute) {
+        return (lastOpenMinute + 1) % MINUTES_PER_DAY;
+    }
+
+    // "HH:mm" veya "HH:mm:ss"; "24:00" gün sonu olarak kabul edilir
+    static int parseMinuteOfDay(String value) {
+        if (value == null) {
+            return INVALID;
+        }
+        String[] parts = value.trim().split(":");
+        if (parts.length < 2 || parts.length > 3) {
+            return INVALID;
+        }
+        try {
+            int hour = Integer.parseInt(parts[0]);
+            int minute = Integer.parseInt(parts[1]);
+            if (hour < 0 || hour > 24 || minute < 0 || minute > 59 || (hour == 24 && minute != 0)) {
+                return INVALID;
+            }
+            return hour * 60 + minute;
+        } catch (NumberFormatException e) {
+            return INVALID;
+        }
+    }
+
+    private Set<Integer> slot(int minute) {
+        Set<Integer> slot = slots.get(minute);
+        if (slot == null) {
+            slot = new HashSet<>();
+            slots.set(minute, slot);
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,49 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.model.Order;
+import com.backend.delivery_backend.repository.OrderRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Every order state transition goes through here. Events go to the outbox inside the caller's transaction,
+// so subscribers never see a change that was rolled back and never slow the transaction down.
+@Service
+public class OrderEvents {
+
+    private final OrderRepository orderRepository;
+    private final DomainEventOutbox outbox;
+
+    public OrderEvents(OrderRepository orderRepository, DomainEventOutbox outbox) {
+        this.orderRepository = orderRepository;
+        this.outbox = outbox;
+    }
+
+    public void placed(Order order) {
+        outbox.append(new OrderPlaced(order.getOrderId(), order.getOrderStatus(),
+                order.getCustomer() != null ? order.getCustomer().getCustomerId() : null,
+                order.getRestaurant() != null ? order.getRestaurant().getRestaurantId() : null,
+                order.getTotalAmount(), order.getOrderDate()));
+    }
+
+    // Entity elde ama durumu bulk UPDATE ile değişti (persistence context'teki kopya eski)
+    public void changed(Order order, String status) {
+        outbox.append(new OrderStatusChanged(order.getOrderId(), status,
+                order.getCustomer() != null ? order.getCustomer().getCustomerId() : null,
+                order.getRestaurant() != null ? order.getRestaurant().getRestaurantId() : null,
+                order.getCourier() != null ? order.getCourier().getCourierId() : null,
+                LocalDateTime.now()));
+    }
+
+    // Sadece id biliniyorsa: yönlendirme bilgisi tek projeksiyon sorgusuyla okunur
+    public void changed(String orderId) {
+        List<Object[]> rows = orderRepository.findRoutingByOrderId(orderId);
+        if (rows.isEmpty()) {
+            return;
+        }
+        Object[] row = rows.get(0);
+        outbox.append(new OrderStatusChanged(orderId, (String) row[3], (String) row[0], (String) row[1],
+                (String) row[2], LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,194 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.DTO.OrderHistoryDTO;
+import com.backend.delivery_backend.DTO.RestaurantOrderDTO;
+import com.backend.delivery_backend.ENUM.OrderStatus;
+import com.backend.delivery_backend.repository.OrderRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Order history read path: one projection query for the page's orders and one IN query for their items,
+// ordered newest first with keyset paging on (orderDate, orderId)
+@Service
+public class OrderHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    // Sayfasız (eski) çağrıda kalemler bu büyüklükte IN listeleriyle okunur
+    static final int ITEM_BATCH_SIZE = 500;
+
+    // Ödemesi onaylanmamış siparişler restorana gösterilmez
+    private static final Set<OrderStatus> RESTAURANT_VISIBLE_STATUSES =
+            EnumSet.complementOf(EnumSet.of(OrderStatus.PENDING_PAYMENT, OrderStatus.PAYMENT_FAILED));
+
+    private final OrderRepository orderRepository;
+
+    public record Page<T>(List<T> items, String nextCursor) {
+    }
+
+    private record Key(LocalDateTime orderDate, String orderId) {
+    }
+
+    // Restoran geçmişi filtreleri; boş statuses tüm görünür durumlar, from/to gün olarak dahil
+    public record RestaurantFilter(Set<OrderStatus> statuses, LocalDate from, LocalDate to) {
+    }
+
+    public OrderHistoryService(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    // Throws IllegalArgumentException for a malformed cursor
+    @Transactional(readOnly = true)
+    public Page<OrderHistoryDTO> customerHistory(String customerId, Integer limit, String cursor) {
+        return page(limit, cursor,
+                (after, page) -> after == null
+                        ? orderRepository.findHistoryByCustomer(customerId, page)
+                        : orderRepository.findHistoryByCustomerAfter(customerId, after.orderDate(), after.orderId(), page),
+                row -> new Key(row.getOrderDate(), row.getOrderId()),
+                this::attachCustomerItems);
+    }
+
+    // limit/cursor verilmeyen eski istemciler için: tüm geçmiş, yine sabit sayıda sorguyla
+    @Transactional(readOnly = true)
+    public List<OrderHistoryDTO> fullCustomerHistory(String customerId) {
+        List<OrderHistoryDTO> rows = orderRepository.findHistoryByCustomer(customerId, Pageable.unpaged());
+        inBatches(rows, this::attachCustomerItems);
+        return rows;
+    }
+
+    // Throws IllegalArgumentException for a malformed cursor or an inverted date range
+    @Transactional(readOnly = true)
+    public Page<RestaurantOrderDTO> restaurantHistory(String restaurantId, RestaurantFilter filter,
+                                                      Integer limit, String cursor) {
+        Collection<String> statuses = visibleStatuses(filter);
+        LocalDateTime from = startOf(filter.from());
+        LocalDateTime to = endOf(filter.to());
+        return page(limit, cursor,
+                (after, page) -> statuses.isEmpty() ? List.of() : orderRepository.findHistoryByRestaurant(
+                        restaurantId, statuses, from, to,
+                        after != null ? after.orderDate() : null, after != null ? after.orderId() : null, page),
+                row -> new Key(row.getOrderDate(), row.getOrderId()),
+                this::attachRestaurantItems);
+    }
+
+    @Transactional(readOnly = true)
+    public List<RestaurantOrderDTO> fullRestaurantHistory(String restaurantId, RestaurantFilter filter) {
+        Collection<String> statuses = visibleStatuses(filter);
+        if (statuses.isEmpty()) {
+            return List.of();
+        }
+        List<RestaurantOrderDTO> rows = orderRepository.findHistoryByRestaurant(restaurantId, statuses,
+                startOf(filter.from()), endOf(filter.to()), null, null, Pageable.unpaged());
+        inBatches(rows, this::attachRestaurantItems);
+        return rows;
+    }
+
+    private static Collection<String> visibleStatuses(RestaurantFilter filter) {
+        if (filter.from() != null && filter.to() != null && filter.from().isAfter(filter.to())) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        EnumSet<OrderStatus> statuses = EnumSet.copyOf(RESTAURANT_VISIBLE_STATUSES);
+        if (filter.statuses() != null && !filter.statuses().isEmpty()) {
+            statuses.retainAll(filter.statuses());
+        }
+        return statuses.stream().map(OrderStatus::name).toList();
+    }
+
+    private static LocalDateTime startOf(LocalDate day) {
+        return day != null ? day.atStartOfDay() : null;
+    }
+
+    // 'to' günü dahil: ertesi günün başlangıcından öncesi
+    private static LocalDateTime endOf(LocalDate day) {
+        return day != null ? day.plusDays(1).atStartOfDay() : null;
+    }
+
+    // Bir fazla satır okunur; fazlası varsa son satırdan imleç üretilir
+    private <T> Page<T> page(Integer limit, String cursor, BiFunction<Key, Pageable, List<T>> query,
+                             Function<T, Key> keyOf, Consumer<List<T>> attachItems) {
+        Key after = cursor == null ? null : decode(cursor);
+        int size = Math.max(1, Math.min(limit != null ? limit : DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE));
+
+        List<T> rows = query.apply(after, PageRequest.of(0, size + 1));
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Key last = keyOf.apply(rows.get(size - 1));
+            nextCursor = encode(last.orderDate(), last.orderId());
+        }
+        attachItems.accept(rows);
+        return new Page<>(rows, nextCursor);
+    }
+
+    private static <T> void inBatches(List<T> rows, Consumer<List<T>> attachItems) {
+        for (int from = 0; from < rows.size(); from += ITEM_BATCH_SIZE) {
+            attachItems.accept(rows.subList(from, Math.min(from + ITEM_BATCH_SIZE, rows.size())));
+        }
+    }
+
+    private void attachCustomerItems(List<OrderHistoryDTO> rows) {
+        attachItems(rows, OrderHistoryDTO::getOrderId, (row, line) -> row.getItems().add(new OrderHistoryDTO.Item(
+                (String) line[1], (String) line[2], ((Number) line[3]).doubleValue(), ((Number) line[4]).intValue())));
+    }
+
+    private void attachRestaurantItems(List<RestaurantOrderDTO> rows) {
+        attachItems(rows, RestaurantOrderDTO::getOrderId, (row, line) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", line[1]);
+            item.put("price", line[3]);
+            item.put("quantity", line[4]);
+            item.put("description", line[2]);
+            row.getItems().add(item);
+        });
+    }
+
+    // Rows: [orderId, name, description, price, quantity]
+    private <T> void attachItems(List<T> rows, Function<T, String> idOf, BiConsumer<T, Object[]> add) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<String, T> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(idOf.apply(row), row));
+        for (Object[] line : orderRepository.findItemLinesByOrderIdIn(byId.keySet())) {
+            add.accept(byId.get((String) line[0]), line);
+        }
+    }
+
+    // Format: <orderDate ISO>|<orderId>, base64url
+    static String encode(LocalDateTime orderDate, String orderId) {
+        String raw = orderDate + "|" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Key decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Key(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.backend.delivery_backend.service;
+
+import java.time.LocalDateTime;
+
+// Checkout committed; status is PENDING, or PENDING_PAYMENT for card orders
+public record OrderPlaced(String orderId, String status, String customerId, String restaurantId,
+                          double totalAmount, LocalDateTime placedAt) implements DomainEvent {
+
+    @Override
+    public String aggregateId() {
+        return orderId;
+    }
+}
@@ -2,45 +2,84 @@ package com.backend.delivery_backend.service;
 
 import com.backend.delivery_backend.ENUM.DeliveryType;
 import com.backend.delivery_backend.ENUM.OrderStatus;
-
 import com.backend.delivery_backend.model.*;
 import com.backend.delivery_backend.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
-
-import java.time.LocalDateTime;
-import com.backend.delivery_backend.model.Order;
-import com.backend.delivery_backend.repository.OrderRepository;
-// Assuming your User model (or a sub-model like Customer) has an email field
-// and Order model has a reference to the Customer who placed it.
-// import com.backend.delivery_backend.model.Customer;
-
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Arrays;
-import java.util.List;
-// If OrderRepository.findByOrderId returns Optional<Order>
-// import java.util.Optional;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Service
 public class OrderService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+
     @Autowired private CustomerRepository customerRepository;
     @Autowired private CartRepository cartRepository;
     @Autowired private OrderRepository orderRepository;
-    @Autowired private PaymentRepository paymentRepository;  //Yeni eklendi
+    @Autowired private PaymentProcessor paymentProcessor;
+    @Autowired private OrderEvents orderEvents;
+    @PersistenceContext private EntityManager entityManager;
 
 
-    public Order createOrder(Customer customer, Cart cart, String deliveryAddress,
+    // Checkout tek transaction: sepet tek sorguda yüklenir, order + order_items + payment JDBC batch ile yazılır.
+    // Herhangi bir adım hata verirse hiçbiri kalmaz. Doğrulama hataları ResponseStatusException olarak döner.
+    @Transactional
+    public Order createOrder(String customerEmail, String deliveryAddress,
                              String paymentMethod, DeliveryType deliveryType,
                              String cardNumber, String expiryDate, String cvc,
                              Double tipAmount) {
 
+        Cart cart = cartRepository.findForCheckoutByCustomerEmail(customerEmail);
+        Customer customer = cart != null ? cart.getCustomer() : customerRepository.findByEmail(customerEmail);
+        if (customer == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Customer not found");
+        }
+
+        // Müşteri ban edilmişse sipariş veremez
+        if ("BANNED".equals(customer.getAccountStatus())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Your account has been banned. You cannot place orders.");
+        }
+
+        // Askıya alınan müşteri sipariş veremez
+        if ("SUSPENDED".equals(customer.getAccountStatus())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Your account has been suspended. You cannot place orders at this time.");
+        }
+
+        if (cart == null || cart.getItems().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart is empty");
+        }
+
+        // Sepetteki ilk ürünün restoranı; ban edilmiş veya askıya alınmışsa sipariş verilemez
+        RestaurantOwner restaurant = cart.getItems().keySet().iterator().next().getRestaurant();
+        if ("BANNED".equals(restaurant.getAccountStatus()) || "SUSPENDED".equals(restaurant.getAccountStatus())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "The restaurant is currently unavailable. Your order cannot be processed.");
+        }
+
+        // Eğer ödeme yöntemi kredi kartıysa, kart bilgisi kontrolü yap
+        if ("CREDIT_CARD".equalsIgnoreCase(paymentMethod)
+                && (cardNumber == null || expiryDate == null || cvc == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Card info is required for credit card payment");
+        }
+        boolean cardPayment = "CREDIT_CARD".equalsIgnoreCase(paymentMethod);
+        if (cardPayment && !paymentProcessor.hasCapacity()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Payment service is busy, please try again");
+        }
+
         Order order = new Order();
         order.setOrderId("order-" + UUID.randomUUID());
         order.setCustomer(customer);
@@ -48,14 +87,10 @@ public class OrderService {
         order.setDeliveryAddress(deliveryAddress);
         order.setPaymentMethod(paymentMethod);
         order.setDeliveryType(deliveryType);
-        order.setOrderStatus(OrderStatus.PENDING.name()); // Enum kullanmak daha iyi
+        // Kart ödemesi PaymentProcessor'da asenkron onaylanır; onaylanınca PENDING olur
+        order.setOrderStatus(cardPayment ? OrderStatus.PENDING_PAYMENT.name() : OrderStatus.PENDING.name());
         order.setOrderDate(LocalDateTime.now());
-
-        if (!cart.getItems().isEmpty()) {
-            MenuItem firstItem = cart.getItems().keySet().iterator().next();
-            RestaurantOwner restaurant = firstItem.getRestaurant();
-            order.setRestaurant(restaurant);
-        }
+        order.setRestaurant(restaurant);
 
         double itemsTotal = cart.getItems().entrySet().stream()
                 .mapToDouble(entry -> entry.getKey().getPrice() * entry.getValue())
@@ -69,27 +104,36 @@ public class OrderService {
             order.setTipAmount(tipAmount);
         }
 
-        orderRepository.save(order);
-
         // Payment işlemleri
         Payment payment = new Payment();
         payment.setPaymentId("pay-" + UUID.randomUUID());
         payment.setOrder(order);
         payment.setPaymentMethod(paymentMethod);
-        payment.setPaymentStatus("PAID");
+        payment.setPaymentStatus(cardPayment ? PaymentProcessor.PAYMENT_PENDING : PaymentProcessor.PAYMENT_PAID);
         payment.setPaymentDate(LocalDateTime.now());
 
-        if ("CREDIT_CARD".equalsIgnoreCase(paymentMethod)) {
+        if (cardPayment) {
             payment.setCardNumber(maskCardNumber(cardNumber));
             payment.setExpiryDate(expiryDate);
             payment.setCvc("****");
         }
+        order.setPayment(payment);
+
+        // ID'ler atanmış olduğu için save() önce SELECT atan merge yapardı; persist doğrudan INSERT kuyruğuna ekler.
+        // Payment, Order üzerindeki cascade ile birlikte yazılır.
+        entityManager.persist(order);
 
-        paymentRepository.save(payment);
+        orderEvents.placed(order);
 
-        // Sepeti temizle
+        // Sepeti temizle; cart yönetilen entity, commit'te tek DELETE ile boşaltılır
         cart.getItems().clear();
-        cartRepository.save(cart);
+
+        if (cardPayment) {
+            // Kart bilgisi sadece bellekte kuyruğa gider; rollback olursa hiç gönderilmez
+            PaymentGateway.AuthorizationRequest request = new PaymentGateway.AuthorizationRequest(
+                    order.getOrderId(), payment.getPaymentId(), total, cardNumber, expiryDate, cvc);
+            IndexSync.afterCommit(() -> paymentProcessor.submit(request));
+        }
 
         return order;
     }
@@ -129,14 +173,123 @@ public class OrderService {
             throw new Exception("Order status is not defined for order ID: " + orderId + ".");
         }
 
-        List<String> cancellableStatuses = Arrays.asList("PENDING", "IN_PROGRESS");
+        // Durum kontrolü ve güncelleme tek UPDATE: restoran aynı anda kabul ederse ikisinden biri kazanır
+        int updated = orderRepository.compareAndSetStatus(orderId,
+                OrderStatus.sourcesOf(OrderStatus.CANCELLED_BY_CUSTOMER), OrderStatus.CANCELLED_BY_CUSTOMER.name());
+        if (updated == 0) {
+            String latestStatus = orderRepository.findStatusByOrderId(orderId).orElse(currentStatus);
+            throw new Exception("Order cannot be cancelled. Current status: " + latestStatus + ".");
+        }
+        orderEvents.changed(order, OrderStatus.CANCELLED_BY_CUSTOMER.name());
+    }
+
+    // Moves an order to requestedStatus if the state machine allows it from the current status.
+    // permitted limits what the caller's role may set. Repeating the current status is a no-op.
+    @Transactional
+    public OrderStatus updateStatus(String orderId, String requestedStatus, Set<OrderStatus> permitted) {
+        OrderStatus next = permittedStatus(requestedStatus, permitted);
+        if (orderRepository.compareAndSetStatus(orderId, OrderStatus.sourcesOf(next), next.name()) == 1) {
+            orderEvents.changed(orderId);
+            return next;
+        }
+        // Güncelleme olmadı: sipariş yok ya da durumu bu geçişe izin vermiyor
+        String current = orderRepository.findStatusByOrderId(orderId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
+        return unchangedOrConflict(current, next);
+    }
+
+    // Same as updateStatus, but only for an order assigned to courierId: 403 when the order belongs to another
+    // courier or to nobody, 409 when its status does not allow the transition
+    @Transactional
+    public OrderStatus updateStatusForCourier(String orderId, String courierId, String requestedStatus,
+                                              Set<OrderStatus> permitted) {
+        OrderStatus next = permittedStatus(requestedStatus, permitted);
+        if (orderRepository.compareAndSetStatusForCourier(orderId, courierId, OrderStatus.sourcesOf(next), next.name()) == 1) {
+            orderEvents.changed(orderId);
+            return next;
+        }
+        List<Object[]> rows = orderRepository.findClaimStateByOrderId(orderId);
+        if (rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found");
+        }
+        Object[] state = rows.get(0);
+        if (!courierId.equals(state[1])) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "This order is not assigned to you.");
+        }
+        return unchangedOrConflict((String) state[2], next);
+    }
+
+    private static OrderStatus permittedStatus(String requestedStatus, Set<OrderStatus> permitted) {
+        OrderStatus next;
+        try {
+            next = OrderStatus.fromRequest(requestedStatus);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown order status: " + requestedStatus);
+        }
+        if (!permitted.contains(next)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You cannot set an order to " + next.name());
+        }
+        return next;
+    }
+
+    private static OrderStatus unchangedOrConflict(String current, OrderStatus next) {
+        if (next.name().equals(current)) {
+            return next;
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "Order cannot move from " + current + " to " + next.name());
+    }
 
-        if (!cancellableStatuses.contains(currentStatus.toUpperCase())) {
-            throw new Exception("Order cannot be cancelled. Current status: " + order.getOrderStatus() + ".");
+    // Kuryenin alabileceği siparişler: teslim edilmemiş ve iptal olmamış
+    private static final List<String> CLAIMABLE_STATUSES = List.of(OrderStatus.PENDING.name(),
+            OrderStatus.IN_PROGRESS.name(), OrderStatus.PREPARING.name(), OrderStatus.READY.name());
+
+    // Assigns the order to the courier unless another courier got it first. The winner is decided by a single
+    // conditional UPDATE; claiming an order the courier already holds succeeds again.
+    @Transactional
+    public void claimForCourier(String orderId, Courier courier) {
+        String restaurantId = courier.getRestaurantOwner().getRestaurantId();
+        if (orderRepository.claimForCourier(orderId, courier, restaurantId, CLAIMABLE_STATUSES) == 1) {
+            orderEvents.changed(orderId);
+            return;
+        }
+        List<Object[]> rows = orderRepository.findClaimStateByOrderId(orderId);
+        if (rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found.");
         }
+        Object[] state = rows.get(0);
+        if (!restaurantId.equals(state[0])) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You can only accept orders from your own restaurant.");
+        }
+        if (courier.getCourierId().equals(state[1])) {
+            return;
+        }
+        if (state[1] != null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "This order has already been accepted by another courier.");
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Order cannot be accepted. Current status: " + state[2] + ".");
+    }
 
-        // Update order status to CANCELLED
-        order.setOrderStatus(OrderStatus.CANCELLED_BY_CUSTOMER.name()); // <<--- DEĞİŞİKLİK BURADA
-        orderRepository.save(order);
+    // Admin isteğinden ayrı çalışır: askıya alma commit olur, açık siparişler outbox olayıyla burada iptal edilir.
+    // Açık siparişler FOR UPDATE ile kilitlenir, sonra tek koşullu UPDATE hepsini iptal eder; kilit sayesinde UPDATE'in
+    // değiştirdiği satırlar okunan satırlarla aynıdır ve olaylar yalnızca onlar için yayınlanır.
+    // Relay thread'inde senkron çalışır: olay ancak bu transaction commit olduktan sonra dağıtılmış sayılır,
+    // hata olursa relay olayı tekrar dener (CAS sayesinde tekrar çalışması zararsız)
+    @EventListener
+    @Transactional
+    public void onRestaurantSuspended(RestaurantSuspended event) {
+        List<String> statusesToCancel = OrderStatus.sourcesOf(OrderStatus.CANCELLED);
+        List<Order> open = orderRepository.lockByRestaurantAndStatusIn(event.restaurantId(), statusesToCancel);
+        if (open.isEmpty()) {
+            return;
+        }
+        int cancelled = orderRepository.compareAndSetStatusForRestaurant(event.restaurantId(), statusesToCancel,
+                OrderStatus.CANCELLED.name());
+        if (cancelled != open.size()) {
+            logger.warn("Suspension of restaurant {} locked {} open orders but cancelled {}", event.restaurantId(),
+                    open.size(), cancelled);
+        }
+        open.forEach(order -> orderEvents.changed(order, OrderStatus.CANCELLED.name()));
+        logger.info("Cancelled {} orders for suspended restaurant {}", cancelled, event.restaurantId());
     }
-}
\ No newline at end of file
+}
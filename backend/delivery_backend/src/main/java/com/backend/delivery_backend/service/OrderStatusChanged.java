@@ -0,0 +1,14 @@
+package com.backend.delivery_backend.service;
+
+import java.time.LocalDateTime;
+
+// A committed status change or courier assignment. The ids decide which order streams receive it;
+// courierId is null while the order is unassigned.
+public record OrderStatusChanged(String orderId, String status, String customerId, String restaurantId,
+                                 String courierId, LocalDateTime changedAt) implements DomainEvent {
+
+    @Override
+    public String aggregateId() {
+        return orderId;
+    }
+}
@@ -0,0 +1,270 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.ENUM.OrderStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Server-sent events for order changes. Each stream subscribes to one or more topics:
+//   customer:<id>   every change of the customer's orders
+//   restaurant:<id> every change of the restaurant's orders, except unpaid ones (same rule as the order history)
+//   courier:<id>    changes of orders assigned to the courier, and delivery offers made to the courier
+//   couriers:<id>   READY orders of the restaurant, i.e. orders becoming available and being claimed
+// Events are fanned out on a single dispatcher thread, so the transaction that fired them never waits and every
+// stream sees them in commit order. Each stream has its own bounded queue drained by its own writer (virtual thread),
+// so a client with a full TCP buffer only stalls itself. A stream whose queue overflows, or whose current write takes
+// longer than SEND_TIMEOUT_MILLIS, is closed; EventSource reconnects and reloads the current state.
+@Service
+public class OrderUpdateHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderUpdateHub.class);
+
+    static final long STREAM_TIMEOUT_MILLIS = 30 * 60 * 1000;
+    static final int MAX_STREAMS = 10_000;
+    static final int MAX_QUEUED_EVENTS = 256;
+    static final long SEND_TIMEOUT_MILLIS = 20 * 1000;
+
+    private final Map<String, Set<SseEmitter>> topics = new ConcurrentHashMap<>();
+    private final Map<SseEmitter, Stream> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-updates");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Bloklayan servlet yazmaları burada; takılan istemci sadece kendi thread'ini bekletir
+    private final ExecutorService writers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("order-stream-writer-", 0).factory());
+
+    // draining: kuyruğu boşaltan bir writer çalışıyor; sendingSince: süren yazmanın başladığı an (0: yazma yok)
+    private static final class Stream {
+        final SseEmitter emitter;
+        final List<String> topics;
+        final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(MAX_QUEUED_EVENTS);
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile long sendingSince;
+
+        Stream(SseEmitter emitter, List<String> topics) {
+            this.emitter = emitter;
+            this.topics = topics;
+        }
+    }
+
+    // Akışa giden veri; müşteri kimliği kurye/restoran akışlarına gönderilmez
+    public record Update(String orderId, String status, String restaurantId, String courierId, LocalDateTime changedAt) {
+    }
+
+    public static String customerTopic(String customerId) {
+        return "customer:" + customerId;
+    }
+
+    public static String restaurantTopic(String restaurantId) {
+        return "restaurant:" + restaurantId;
+    }
+
+    public static String courierTopic(String courierId) {
+        return "courier:" + courierId;
+    }
+
+    public static String availableForCouriersTopic(String restaurantId) {
+        return "couriers:" + restaurantId;
+    }
+
+    // Throws 503 when MAX_STREAMS streams are already open
+    public SseEmitter subscribe(String... topicNames) {
+        if (openStreams.incrementAndGet() > MAX_STREAMS) {
+            openStreams.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many open order streams");
+        }
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        List<String> subscribed = List.of(topicNames);
+        subscriptions.put(emitter, new Stream(emitter, subscribed));
+        emitter.onCompletion(() -> unsubscribe(emitter));
+        emitter.onTimeout(() -> unsubscribe(emitter));
+        emitter.onError(e -> unsubscribe(emitter));
+
+        // İstemci bağlantının kurulduğunu hemen görsün (EventSource onopen)
+        try {
+            emitter.send(SseEmitter.event().comment("connected"));
+        } catch (IOException e) {
+            unsubscribe(emitter);
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        for (String topic : subscribed) {
+            topics.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(emitter);
+        }
+        // Kayıt sırasında bağlantı kapandıysa konulardan da çıkar
+        if (!subscriptions.containsKey(emitter)) {
+            subscribed.forEach(topic -> topics.computeIfPresent(topic, (key, emitters) -> {
+                emitters.remove(emitter);
+                return emitters.isEmpty() ? null : emitters;
+            }));
+        }
+        return emitter;
+    }
+
+    // Birden fazla kez çağrılabilir (hata + tamamlanma), sayaç bir kez düşer
+    private void unsubscribe(SseEmitter emitter) {
+        Stream stream = subscriptions.remove(emitter);
+        if (stream == null) {
+            return;
+        }
+        openStreams.decrementAndGet();
+        stream.queue.clear();
+        for (String topic : stream.topics) {
+            topics.computeIfPresent(topic, (key, emitters) -> {
+                emitters.remove(emitter);
+                return emitters.isEmpty() ? null : emitters;
+            });
+        }
+    }
+
+    @EventListener
+    public void onOrderPlaced(OrderPlaced event) {
+        onOrderStatusChanged(new OrderStatusChanged(event.orderId(), event.status(), event.customerId(),
+                event.restaurantId(), null, event.placedAt()));
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChanged event) {
+        dispatcher.execute(() -> deliver(event));
+    }
+
+    private void deliver(OrderStatusChanged event) {
+        boolean unpaid = OrderStatus.PENDING_PAYMENT.name().equals(event.status())
+                || OrderStatus.PAYMENT_FAILED.name().equals(event.status());
+        // Aynı akış birden fazla konuya abone olabilir, olay bir kez gider
+        Set<SseEmitter> targets = new LinkedHashSet<>();
+        addTargets(targets, event.customerId() != null ? customerTopic(event.customerId()) : null);
+        if (event.restaurantId() != null && !unpaid) {
+            addTargets(targets, restaurantTopic(event.restaurantId()));
+        }
+        addTargets(targets, event.courierId() != null ? courierTopic(event.courierId()) : null);
+        if (event.restaurantId() != null && OrderStatus.READY.name().equals(event.status())) {
+            addTargets(targets, availableForCouriersTopic(event.restaurantId()));
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+        Update update = new Update(event.orderId(), event.status(), event.restaurantId(), event.courierId(),
+                event.changedAt());
+        for (SseEmitter emitter : targets) {
+            enqueue(emitter, SseEmitter.event().name("order").data(update, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    // Sadece o kuryenin akışlarına giden teslimat teklifi (event: offer)
+    public void offer(String courierId, Object offer) {
+        dispatcher.execute(() -> {
+            Set<SseEmitter> emitters = topics.get(courierTopic(courierId));
+            if (emitters == null) {
+                return;
+            }
+            for (SseEmitter emitter : List.copyOf(emitters)) {
+                enqueue(emitter, SseEmitter.event().name("offer").data(offer, MediaType.APPLICATION_JSON));
+            }
+        });
+    }
+
+    private void addTargets(Set<SseEmitter> targets, String topic) {
+        if (topic == null) {
+            return;
+        }
+        Set<SseEmitter> emitters = topics.get(topic);
+        if (emitters != null) {
+            targets.addAll(emitters);
+        }
+    }
+
+    // Proxy'ler boşta kalan bağlantıyı kapatmasın; kopmuş ve yazması takılmış istemciler de burada temizlenir
+    @Scheduled(fixedRate = 25 * 1000, initialDelay = 25 * 1000)
+    public void heartbeat() {
+        dispatcher.execute(() -> {
+            long now = System.currentTimeMillis();
+            for (Stream stream : List.copyOf(subscriptions.values())) {
+                long sendingSince = stream.sendingSince;
+                if (sendingSince != 0 && now - sendingSince > SEND_TIMEOUT_MILLIS) {
+                    drop(stream, "write stalled for " + (now - sendingSince) + " ms");
+                } else {
+                    enqueue(stream.emitter, SseEmitter.event().comment("ping"));
+                }
+            }
+        });
+    }
+
+    public int openStreams() {
+        return openStreams.get();
+    }
+
+    // Dispatcher thread'inde çağrılır, hiç bloklamaz; kuyruk dolduysa istemci geride kalmıştır
+    private void enqueue(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        Stream stream = subscriptions.get(emitter);
+        if (stream == null) {
+            return;
+        }
+        if (!stream.queue.offer(event)) {
+            drop(stream, "fell " + MAX_QUEUED_EVENTS + " events behind");
+            return;
+        }
+        if (stream.draining.compareAndSet(false, true)) {
+            writers.execute(() -> drain(stream));
+        }
+    }
+
+    // Akış başına tek writer, olaylar kuyruk sırasıyla gider
+    private void drain(Stream stream) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ((event = stream.queue.poll()) != null) {
+                stream.sendingSince = System.currentTimeMillis();
+                try {
+                    stream.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    logger.debug("Dropping closed order stream", e);
+                    unsubscribe(stream.emitter);
+                    stream.emitter.completeWithError(e);
+                    return;
+                } finally {
+                    stream.sendingSince = 0;
+                }
+            }
+            stream.draining.set(false);
+        } while (!stream.queue.isEmpty() && stream.draining.compareAndSet(false, true));
+    }
+
+    // Konulardan hemen çıkar; kapatma, takılmış yazmayı bekleyebileceği için writer tarafında yapılır
+    private void drop(Stream stream, String reason) {
+        logger.debug("Closing slow order stream: {}", reason);
+        unsubscribe(stream.emitter);
+        writers.execute(() -> stream.emitter.completeWithError(new IOException("Order stream " + reason)));
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        writers.shutdownNow();
+        List.copyOf(subscriptions.keySet()).forEach(SseEmitter::complete);
+    }
+}
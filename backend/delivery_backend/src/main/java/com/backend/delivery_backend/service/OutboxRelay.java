@@ -0,0 +1,184 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.model.OutboxEvent;
+import com.backend.delivery_backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Drains outbox_events in id order, BATCH_SIZE rows per round trip, and publishes each event to the local
+// @EventListener subscribers (order streams, caches, order cancellation) on its own thread.
+// Woken up right after a commit that wrote events; polls every IDLE_POLL_MILLIS for anything missed.
+// Delivery is at-least-once: a crash between publishing and marking the batch replays it, and an event whose
+// subscriber threw stays unpublished and is retried on the next rounds. After MAX_ATTEMPTS failures it is logged and
+// marked published so one poison event cannot block the rest of the outbox. Subscribers must tolerate duplicates.
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    static final int BATCH_SIZE = 100;
+    static final long IDLE_POLL_MILLIS = 1000;
+    static final int MAX_ATTEMPTS = 5;
+    // Dağıtılmış olaylar bir gün saklanır (inceleme için), sonra silinir
+    static final Duration RETENTION = Duration.ofDays(1);
+
+    private static final Map<String, Class<? extends DomainEvent>> TYPES = Stream.of(
+                    OrderPlaced.class, OrderStatusChanged.class, RestaurantSuspended.class, DeliveryRequestAnswered.class)
+            .collect(Collectors.toMap(Class::getSimpleName, Function.identity()));
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ApplicationEventPublisher publisher;
+    private final ObjectMapper objectMapper;
+
+    private final Semaphore signal = new Semaphore(0);
+    private final Map<String, LongAdder> published = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    // Outbox id -> başarısız deneme sayısı (yalnızca relay thread'i yazar)
+    private final Map<Long, Integer> failedAttempts = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastPublishedAt;
+    private volatile boolean running;
+    private Thread worker;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, ApplicationEventPublisher publisher,
+                       ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.publisher = publisher;
+        this.objectMapper = objectMapper;
+    }
+
+    // Abonelerin hepsi hazır olduktan sonra başlar
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public void wakeUp() {
+        if (signal.availablePermits() == 0) {
+            signal.release();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                // Dolu batch geldiyse arkası da vardır, beklemeden devam
+                if (relayBatch() < BATCH_SIZE) {
+                    signal.tryAcquire(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    signal.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Veritabanı geçici olarak erişilemezse bir sonraki turda tekrar denenir
+                logger.error("Outbox relay round failed", e);
+                try {
+                    Thread.sleep(IDLE_POLL_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns the number of rows taken from the outbox
+    int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findUnpublished(PageRequest.of(0, BATCH_SIZE));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (OutboxEvent row : batch) {
+            if (deliver(row)) {
+                ids.add(row.getId());
+            }
+        }
+        if (!ids.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            outboxEventRepository.markPublished(ids, now);
+            lastPublishedAt = now;
+        }
+        // Sadece tekrar denenecek olaylardan oluşan dolu bir batch beklemeden dönmesin
+        return ids.isEmpty() ? 0 : batch.size();
+    }
+
+    // false: subscriber hata verdi, olay bir sonraki turda tekrar denenecek
+    private boolean deliver(OutboxEvent row) {
+        Class<? extends DomainEvent> type = TYPES.get(row.getType());
+        if (type == null) {
+            failures.increment();
+            logger.error("Skipping outbox event {} of unknown type {}", row.getId(), row.getType());
+            return true;
+        }
+        try {
+            publisher.publishEvent(objectMapper.readValue(row.getPayload(), type));
+            published.computeIfAbsent(row.getType(), key -> new LongAdder()).increment();
+            failedAttempts.remove(row.getId());
+            return true;
+        } catch (Exception e) {
+            failures.increment();
+            int attempts = failedAttempts.merge(row.getId(), 1, Integer::sum);
+            if (attempts < MAX_ATTEMPTS) {
+                logger.warn("Subscriber failed for outbox event {} ({}), attempt {} of {}", row.getId(), row.getType(),
+                        attempts, MAX_ATTEMPTS, e);
+                return false;
+            }
+            failedAttempts.remove(row.getId());
+            logger.error("Giving up on outbox event {} ({}) after {} attempts", row.getId(), row.getType(), attempts, e);
+            return true;
+        }
+    }
+
+    @Scheduled(fixedDelay = 60 * 60 * 1000, initialDelay = 60 * 60 * 1000)
+    public void purgePublished() {
+        int deleted = outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minus(RETENTION));
+        if (deleted > 0) {
+            logger.info("Purged {} published outbox events", deleted);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Long> byType = new TreeMap<>();
+        published.forEach((type, count) -> byType.put(type, count.sum()));
+        Map<String, Object> stats = new TreeMap<>();
+        stats.put("published", byType);
+        stats.put("failures", failures.sum());
+        stats.put("pending", outboxEventRepository.countByPublishedAtIsNull());
+        stats.put("lastPublishedAt", lastPublishedAt);
+        return stats;
+    }
+}
@@ -0,0 +1,24 @@
+package com.backend.delivery_backend.service;
+
+import java.util.List;
+
+// Card authorization backend. PaymentProcessor calls it from its worker pool, never on a request thread.
+// Implementations are selected with the payment.gateway property; "local" (LocalPaymentGateway) is the default.
+public interface PaymentGateway {
+
+    // Raw card data only lives in memory until authorization, the payments table keeps the masked number
+    record AuthorizationRequest(String orderId, String paymentId, double amount,
+                                String cardNumber, String expiryDate, String cvc) {
+    }
+
+    // reference is the gateway's authorization id, declineReason is set when approved is false
+    record AuthorizationResult(String orderId, boolean approved, String reference, String declineReason) {
+
+        public static AuthorizationResult declined(String orderId, String reason) {
+            return new AuthorizationResult(orderId, false, null, reason);
+        }
+    }
+
+    // One result per request, in any order; requests without a result are treated as declined
+    List<AuthorizationResult> authorize(List<AuthorizationRequest> requests);
+}
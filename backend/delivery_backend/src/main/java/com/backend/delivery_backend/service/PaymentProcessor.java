@@ -0,0 +1,201 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.ENUM.OrderStatus;
+import com.backend.delivery_backend.model.Order;
+import com.backend.delivery_backend.model.Payment;
+import com.backend.delivery_backend.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Card payment stage of checkout. Orders are committed as PENDING_PAYMENT and queued here; a fixed pool of
+// workers drains the bounded queue in batches, calls the PaymentGateway and writes the outcome back.
+// Request threads never wait for the gateway.
+@Service
+public class PaymentProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentProcessor.class);
+
+    static final int QUEUE_CAPACITY = 1000;
+    static final int BATCH_SIZE = 20;
+    // Bu süreden uzun PENDING_PAYMENT kalan sipariş (restart, kayıp iş) başarısız sayılır
+    static final long ABANDONED_AFTER_MINUTES = 10;
+
+    public static final String PAYMENT_PENDING = "PENDING";
+    public static final String PAYMENT_PAID = "PAID";
+    public static final String PAYMENT_FAILED = "FAILED";
+    // Onay geldiğinde sipariş çoktan iptal edilmişse provizyon bırakılır
+    public static final String PAYMENT_VOIDED = "VOIDED";
+
+    private final PaymentGateway paymentGateway;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderEvents orderEvents;
+    private final int workerCount;
+
+    private final BlockingQueue<PaymentGateway.AuthorizationRequest> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private ExecutorService workers;
+
+    public PaymentProcessor(PaymentGateway paymentGateway, OrderRepository orderRepository,
+                            PlatformTransactionManager transactionManager, OrderEvents orderEvents,
+                            @Value("${payment.workers:4}") int workerCount) {
+        this.paymentGateway = paymentGateway;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.orderEvents = orderEvents;
+        this.workerCount = Math.max(1, workerCount);
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "payment-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::drainLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    // Checkout bunu kontrol eder, kuyruk doluysa sipariş hiç yazılmadan 503 döner
+    public boolean hasCapacity() {
+        return queue.remainingCapacity() > 0;
+    }
+
+    // Called after the order commit. If the queue filled up in the meantime the payment is declined right away.
+    public void submit(PaymentGateway.AuthorizationRequest request) {
+        if (!queue.offer(request)) {
+            logger.warn("Payment queue full, declining order {}", request.orderId());
+            applyResults(List.of(PaymentGateway.AuthorizationResult.declined(request.orderId(), "Payment queue is full")));
+        }
+    }
+
+    private void drainLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<PaymentGateway.AuthorizationRequest> batch = new ArrayList<>(BATCH_SIZE);
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                // Worker ölmesin; bu batch'teki siparişler süpürücü tarafından başarısız sayılır
+                logger.error("Could not process payment batch of {} orders", batch.size(), e);
+            }
+        }
+    }
+
+    private void process(List<PaymentGateway.AuthorizationRequest> batch) {
+        List<PaymentGateway.AuthorizationResult> results;
+        try {
+            results = paymentGateway.authorize(batch);
+        } catch (RuntimeException e) {
+            logger.error("Payment gateway failed for a batch of {} orders", batch.size(), e);
+            results = batch.stream()
+                    .map(request -> PaymentGateway.AuthorizationResult.declined(request.orderId(), "Payment gateway unavailable"))
+                    .toList();
+        }
+        Map<String, PaymentGateway.AuthorizationResult> byOrder = new HashMap<>();
+        results.forEach(result -> byOrder.put(result.orderId(), result));
+        List<PaymentGateway.AuthorizationResult> complete = batch.stream()
+                .map(request -> byOrder.getOrDefault(request.orderId(),
+                        PaymentGateway.AuthorizationResult.declined(request.orderId(), "No response from payment gateway")))
+                .toList();
+        applyResults(complete);
+    }
+
+    // Tek transaction: siparişler ödemeleriyle tek SELECT ... FOR UPDATE ile okunur, onaylananlar ve reddedilenler iki
+    // toplu compare-and-set UPDATE ile taşınır, ödeme satırları commit'te tek JDBC batch olarak yazılır.
+    // Sipariş başına kalan tek tur, taşınan her sipariş için outbox INSERT'idir (IDENTITY anahtar batch'lenemez).
+    void applyResults(List<PaymentGateway.AuthorizationResult> results) {
+        Map<String, PaymentGateway.AuthorizationResult> byOrder = new HashMap<>();
+        results.forEach(result -> byOrder.put(result.orderId(), result));
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Order> orders = orderRepository.lockAllWithPaymentByOrderIdIn(byOrder.keySet());
+            // Arada iptal edilen siparişler PENDING_PAYMENT değildir, geçiş yapmaz
+            List<String> approved = new ArrayList<>();
+            List<String> declined = new ArrayList<>();
+            for (Order order : orders) {
+                if (OrderStatus.PENDING_PAYMENT.name().equals(order.getOrderStatus())) {
+                    (byOrder.get(order.getOrderId()).approved() ? approved : declined).add(order.getOrderId());
+                }
+            }
+            // Ödeme değişiklikleri UPDATE'lerden sonra yapılır, flushAutomatically onları tek tek göndermesin
+            moveAll(approved, OrderStatus.PENDING);
+            moveAll(declined, OrderStatus.PAYMENT_FAILED);
+            Set<String> moved = new HashSet<>(approved);
+            moved.addAll(declined);
+            for (Order order : orders) {
+                apply(order, byOrder.get(order.getOrderId()), moved.contains(order.getOrderId()));
+            }
+        });
+    }
+
+    private void moveAll(List<String> orderIds, OrderStatus next) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        int updated = orderRepository.compareAndSetStatusIn(orderIds, List.of(OrderStatus.PENDING_PAYMENT.name()), next.name());
+        if (updated != orderIds.size()) {
+            logger.warn("Moved {} of {} locked orders to {}", updated, orderIds.size(), next);
+        }
+    }
+
+    private void apply(Order order, PaymentGateway.AuthorizationResult result, boolean moved) {
+        OrderStatus next = result.approved() ? OrderStatus.PENDING : OrderStatus.PAYMENT_FAILED;
+        if (moved) {
+            orderEvents.changed(order, next.name());
+        }
+        Payment payment = order.getPayment();
+        if (payment != null && PAYMENT_PENDING.equals(payment.getPaymentStatus())) {
+            payment.setPaymentStatus(result.approved() ? (moved ? PAYMENT_PAID : PAYMENT_VOIDED) : PAYMENT_FAILED);
+            payment.setPaymentDate(LocalDateTime.now());
+        }
+        if (!result.approved()) {
+            logger.info("Payment for order {} declined: {}", order.getOrderId(), result.declineReason());
+        }
+    }
+
+    @Scheduled(fixedDelay = 5 * 60 * 1000, initialDelay = 60 * 1000)
+    public void failAbandonedPayments() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ABANDONED_AFTER_MINUTES);
+        List<PaymentGateway.AuthorizationResult> abandoned = orderRepository
+                .findByOrderStatusAndOrderDateBefore(OrderStatus.PENDING_PAYMENT.name(), cutoff).stream()
+                .map(order -> PaymentGateway.AuthorizationResult.declined(order.getOrderId(), "Payment was not completed"))
+                .toList();
+        if (!abandoned.isEmpty()) {
+            logger.warn("Failing {} orders stuck in PENDING_PAYMENT", abandoned.size());
+            applyResults(abandoned);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.backend.delivery_backend.service;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+
+// Everything a ranking signal may read, captured once per request.
+// latitude/longitude are null when the caller has no location.
+public record RankingContext(BitSet openNowDocs, RestaurantActivity.Snapshot activity, LocalDateTime asOf,
+                             Double latitude, Double longitude) {
+
+    public boolean hasLocation() {
+        return latitude != null && longitude != null;
+    }
+}
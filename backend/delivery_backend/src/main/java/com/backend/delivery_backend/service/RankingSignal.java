@@ -0,0 +1,20 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.service.RestaurantSearchIndex.Document;
+
+// One component of the relevance score. Every RankingSignal bean is picked up by RestaurantRanker.
+public interface RankingSignal {
+
+    String name();
+
+    // Relative weight; the final score is the weighted mean over the signals that apply
+    double weight();
+
+    // false leaves the signal out of the request entirely (e.g. distance without a location)
+    default boolean appliesTo(RankingContext context) {
+        return true;
+    }
+
+    // Expected in [0, 1], higher is better
+    double score(Document document, RankingContext context);
+}
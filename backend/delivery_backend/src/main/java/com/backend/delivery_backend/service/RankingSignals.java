@@ -0,0 +1,137 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.service.RestaurantSearchIndex.Document;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Built-in relevance signals
+final class RankingSignals {
+
+    private RankingSignals() {
+    }
+
+    @Component
+    static class Rating implements RankingSignal {
+
+        @Override
+        public String name() {
+            return "rating";
+        }
+
+        @Override
+        public double weight() {
+            return 0.4;
+        }
+
+        @Override
+        public double score(Document document, RankingContext context) {
+            return Math.max(0, Math.min(5, document.rating())) / 5.0;
+        }
+    }
+
+    // Log ölçeği: en çok sipariş alan restoran 1, diğerleri ona oranla
+    @Component
+    static class OrderVolume implements RankingSignal {
+
+        @Override
+        public String name() {
+            return "orderVolume";
+        }
+
+        @Override
+        public double weight() {
+            return 0.25;
+        }
+
+        @Override
+        public double score(Document document, RankingContext context) {
+            long max = context.activity().maxOrderCount();
+            if (max == 0) {
+                return 0;
+            }
+            long count = context.activity().orderCounts().getOrDefault(document.restaurantId(), 0L);
+            return Math.log1p(count) / Math.log1p(max);
+        }
+    }
+
+    // Açık/kapalı anahtarı ve çalışma saatleri birlikte (index'in açık-şimdi kümesi ikisini de içerir)
+    @Component
+    static class OpenNow implements RankingSignal {
+
+        @Override
+        public String name() {
+            return "openNow";
+        }
+
+        @Override
+        public double weight() {
+            return 0.2;
+        }
+
+        @Override
+        public double score(Document document, RankingContext context) {
+            return context.openNowDocs().get(document.docId()) ? 1 : 0;
+        }
+    }
+
+    // Son puanlı yorum ne kadar yeniyse o kadar yüksek; 14 günde yarıya iner
+    @Component
+    static class FeedbackRecency implements RankingSignal {
+
+        private static final double HALF_LIFE_DAYS = 14;
+
+        @Override
+        public String name() {
+            return "feedbackRecency";
+        }
+
+        @Override
+        public double weight() {
+            return 0.15;
+        }
+
+        @Override
+        public double score(Document document, RankingContext context) {
+            LocalDateTime last = context.activity().lastFeedbackAt().get(document.restaurantId());
+            if (last == null) {
+                return 0;
+            }
+            double ageDays = Math.max(0, Duration.between(last, context.asOf()).toMinutes()) / (24.0 * 60);
+            return Math.pow(0.5, ageDays / HALF_LIFE_DAYS);
+        }
+    }
+
+    // Sadece konum verildiğinde; 3 km'de yarıya iner, konumu olmayan restoran 0 alır
+    @Component
+    static class Distance implements RankingSignal {
+
+        private static final double HALF_SCORE_KM = 3;
+
+        @Override
+        public String name() {
+            return "distance";
+        }
+
+        @Override
+        public double weight() {
+            return 0.3;
+        }
+
+        @Override
+        public boolean appliesTo(RankingContext context) {
+            return context.hasLocation();
+        }
+
+        @Override
+        public double score(Document document, RankingContext context) {
+            if (!GeoGridIndex.isValid(document.latitude(), document.longitude())) {
+                return 0;
+            }
+            double km = GeoGridIndex.distanceKm(context.latitude(), context.longitude(),
+                    document.latitude(), document.longitude());
+            return 1 / (1 + km / HALF_SCORE_KM);
+        }
+    }
+}
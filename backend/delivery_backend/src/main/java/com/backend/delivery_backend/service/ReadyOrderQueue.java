@@ -0,0 +1,42 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.ENUM.OrderStatus;
+import com.backend.delivery_backend.model.Order;
+import com.backend.delivery_backend.repository.OrderRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.List;
+
+// Orders waiting for a courier at a restaurant (status READY), oldest first.
+// The ids come from the in-memory ActiveOrderIndex, so a poll costs O(ready orders): one primary key lookup
+// per ready order instead of scanning the restaurant's order history.
+@Service
+public class ReadyOrderQueue {
+
+    private final ActiveOrderIndex activeOrderIndex;
+    private final OrderRepository orderRepository;
+
+    public ReadyOrderQueue(ActiveOrderIndex activeOrderIndex, OrderRepository orderRepository) {
+        this.activeOrderIndex = activeOrderIndex;
+        this.orderRepository = orderRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Order> readyOrders(String restaurantId) {
+        // Pano henüz yüklenmediyse (restoran_id, durum) indeksinden okunur
+        if (!activeOrderIndex.isLoaded()) {
+            return orderRepository.findByRestaurantRestaurantIdAndOrderStatus(restaurantId, OrderStatus.READY.name());
+        }
+        List<String> ids = activeOrderIndex.orderIds(restaurantId, OrderStatus.READY);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // Bellek birkaç milisaniye geride olabilir; durum veritabanındaki satırdan tekrar kontrol edilir
+        return orderRepository.findAllById(ids).stream()
+                .filter(order -> OrderStatus.READY.name().equals(order.getOrderStatus()))
+                .sorted(Comparator.comparing(Order::getOrderDate, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+    }
+}
@@ -0,0 +1,102 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.repository.FeedbackRepository;
+import com.backend.delivery_backend.repository.OrderRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Per-restaurant order volume and latest rated feedback time, used by the ranking signals.
+// Aggregated in the database and refreshed periodically; ranking never touches the order or feedback tables.
+@Service
+public class RestaurantActivity {
+
+    private final OrderRepository orderRepository;
+    private final FeedbackRepository feedbackRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), 0);
+    // synchronized yerine: refresh JDBC beklerken sanal thread taşıyıcısını kilitlemesin
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public RestaurantActivity(OrderRepository orderRepository, FeedbackRepository feedbackRepository) {
+        this.orderRepository = orderRepository;
+        this.feedbackRepository = feedbackRepository;
+    }
+
+    // Immutable, replaced as a whole on refresh
+    public record Snapshot(Map<String, Long> orderCounts, Map<String, LocalDateTime> lastFeedbackAt,
+                           long maxOrderCount) {
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void refresh() {
+        writeLock.lock();
+        try {
+            refreshLocked();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void refreshLocked() {
+        Map<String, Long> orderCounts = new HashMap<>();
+        long maxOrderCount = 0;
+        for (Object[] row : orderRepository.countOrdersPerRestaurant()) {
+            long count = ((Number) row[1]).longValue();
+            orderCounts.put((String) row[0], count);
+            maxOrderCount = Math.max(maxOrderCount, count);
+        }
+        Map<String, LocalDateTime> lastFeedbackAt = new HashMap<>();
+        for (Object[] row : feedbackRepository.findLatestRatedFeedbackPerRestaurant()) {
+            if (row[1] != null) {
+                lastFeedbackAt.put((String) row[0], (LocalDateTime) row[1]);
+            }
+        }
+        snapshot = new Snapshot(orderCounts, lastFeedbackAt, maxOrderCount);
+    }
+
+    // Outbox üzerinden gelir; sipariş sayısı bir sonraki yenilemeyi beklemeden artar
+    @EventListener
+    public void onOrderPlaced(OrderPlaced event) {
+        if (event.restaurantId() == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot;
+            Map<String, Long> orderCounts = new HashMap<>(current.orderCounts());
+            long count = orderCounts.merge(event.restaurantId(), 1L, Long::sum);
+            snapshot = new Snapshot(orderCounts, current.lastFeedbackAt(), Math.max(current.maxOrderCount(), count));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Yeni yorum bir sonraki yenilemeyi beklemeden sıralamaya yansır
+    public void recordFeedback(String restaurantId, LocalDateTime createdAt) {
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot;
+            LocalDateTime last = current.lastFeedbackAt().get(restaurantId);
+            if (last != null && !createdAt.isAfter(last)) {
+                return;
+            }
+            Map<String, LocalDateTime> lastFeedbackAt = new HashMap<>(current.lastFeedbackAt());
+            lastFeedbackAt.put(restaurantId, createdAt);
+            snapshot = new Snapshot(current.orderCounts(), lastFeedbackAt, current.maxOrderCount());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
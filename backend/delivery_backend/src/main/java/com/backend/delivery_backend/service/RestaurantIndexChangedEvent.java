@@ -0,0 +1,17 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.service.RestaurantSearchIndex.Document;
+
+import java.util.List;
+
+// Published by RestaurantSearchIndex after its state changed. before/after are null for inserts/removals;
+// fullRebuild means every cached answer is stale.
+public record RestaurantIndexChangedEvent(List<Change> changes, boolean fullRebuild) {
+
+    public record Change(Document before, boolean openNowBefore, Document after, boolean openNowAfter) {
+    }
+
+    static RestaurantIndexChangedEvent rebuilt() {
+        return new RestaurantIndexChangedEvent(List.of(), true);
+    }
+}
@@ -0,0 +1,40 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.model.RestaurantOwner;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static com.backend.delivery_backend.service.IndexSync.afterCommit;
+
+// Keeps RestaurantSearchIndex and SuggestionIndex in sync with every save/approve/ban/edit/delete of a RestaurantOwner
+public class RestaurantIndexListener {
+
+    private final ObjectProvider<RestaurantSearchIndex> searchIndex;
+    private final ObjectProvider<SuggestionIndex> suggestionIndex;
+
+    public RestaurantIndexListener(ObjectProvider<RestaurantSearchIndex> searchIndex,
+                                   ObjectProvider<SuggestionIndex> suggestionIndex) {
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(RestaurantOwner restaurant) {
+        afterCommit(() -> {
+            searchIndex.getObject().index(restaurant);
+            suggestionIndex.getObject().indexRestaurant(restaurant);
+        });
+    }
+
+    @PostRemove
+    public void onRemove(RestaurantOwner restaurant) {
+        String restaurantId = restaurant.getRestaurantId();
+        afterCommit(() -> {
+            searchIndex.getObject().remove(restaurantId);
+            suggestionIndex.getObject().removeRestaurant(restaurantId);
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.service.RestaurantSearchIndex.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+// Keyset (cursor) pagination over search documents, ordered by (rating desc, restaurantId) or (name, restaurantId)
+public final class RestaurantKeyset {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String RATING = "rating";
+    private static final String NAME = "name";
+
+    public record Page(List<Document> items, String nextCursor) {
+    }
+
+    private record Key(String sort, String restaurantId, float rating, String name) {
+    }
+
+    private RestaurantKeyset() {
+    }
+
+    public static boolean isKeysetSort(String sortBy) {
+        return RATING.equalsIgnoreCase(sortBy) || NAME.equalsIgnoreCase(sortBy);
+    }
+
+    // sortBy "rating" veya "name"; diğer değerlerde isim sırası kullanılır
+    public static Comparator<Document> comparator(String sortBy) {
+        if (RATING.equalsIgnoreCase(sortBy)) {
+            return Comparator.comparing(Document::rating).reversed().thenComparing(Document::restaurantId);
+        }
+        return Comparator.comparing(Document::name).thenComparing(Document::restaurantId);
+    }
+
+    // Throws IllegalArgumentException for a malformed cursor or one issued for another sort order
+    public static Page page(List<Document> documents, String sortBy, String cursor, int limit) {
+        String sort = RATING.equalsIgnoreCase(sortBy) ? RATING : NAME;
+        Key after = cursor == null ? null : decode(cursor, sort);
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        List<Document> items = documents.stream()
+                .filter(d -> after == null || isAfter(d, after))
+                .sorted(comparator(sort))
+                .limit(size + 1L)
+                .toList();
+
+        if (items.size() <= size) {
+            return new Page(items, null);
+        }
+        List<Document> pageItems = items.subList(0, size);
+        return new Page(pageItems, encode(sort, pageItems.get(size - 1)));
+    }
+
+    private static boolean isAfter(Document document, Key key) {
+        int cmp;
+        if (RATING.equals(key.sort())) {
+            cmp = Float.compare(key.rating(), document.rating());
+        } else {
+            cmp = document.name().compareTo(key.name());
+        }
+        return cmp > 0 || (cmp == 0 && document.restaurantId().compareTo(key.restaurantId()) > 0);
+    }
+
+    // Format: <sort>:<restaurantId>:<sort value>, base64url
+    private static String encode(String sort, Document last) {
+        String value = RATING.equals(sort) ? Float.toString(last.rating()) : last.name();
+        String raw = sort + ":" + last.restaurantId() + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Key decode(String cursor, String expectedSort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String[] parts = raw.split(":", 3);
+        if (parts.length != 3 || !parts[0].equals(expectedSort)) {
+            throw new IllegalArgumentException("Cursor does not match sortBy=" + expectedSort);
+        }
+        if (RATING.equals(expectedSort)) {
+            try {
+                return new Key(RATING, parts[1], Float.parseFloat(parts[2]), null);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+        return new Key(NAME, parts[1], 0f, parts[2]);
+    }
+}
@@ -90,6 +90,7 @@ public class RestaurantOwnerService {
 
         if (coreInfoChanged) {
             List<String> activeOrderStatuses = Arrays.asList(
+                    OrderStatus.PENDING_PAYMENT.name(),
                     OrderStatus.PENDING.name(),
                     OrderStatus.IN_PROGRESS.name(),
                     OrderStatus.PREPARING.name(),
@@ -135,6 +136,7 @@ public class RestaurantOwnerService {
         // 2. Sadece AKTİF Sipariş Kontrolü
         // Bir menü öğesi, durumu CANCELLED veya DELIVERED OLMAYAN bir siparişin parçasıysa silinemez.
         List<String> nonFinalOrderStatuses = Arrays.asList(
+                OrderStatus.PENDING_PAYMENT.name(),
                 OrderStatus.PENDING.name(),
                 OrderStatus.IN_PROGRESS.name(),
                 OrderStatus.PREPARING.name(),
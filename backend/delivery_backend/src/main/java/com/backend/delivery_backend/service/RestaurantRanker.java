@@ -0,0 +1,196 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.service.RestaurantSearchIndex.Document;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+// sortBy=relevance: weighted mean of the RankingSignal beans, top K kept in a bounded heap (O(N log K)).
+// Only the K winners are copied out; the rest of the matches are scored and dropped.
+// Paging is keyset on (score desc, restaurantId asc). Order counts, feedback times and open/closed state change
+// between requests, so the RankingContext of the first page is kept for SNAPSHOT_TTL_SECONDS and reused by the
+// following pages: as long as the snapshot lives, a restaurant keeps its score and no page repeats or skips one.
+// Not covered: a restaurant added, removed or re-rated mid-paging (its document changes), and cursors whose snapshot
+// has expired or was made by another instance; those are ranked with fresh signals as of the cursor's asOf time.
+@Service
+public class RestaurantRanker {
+
+    public static final String RELEVANCE = "relevance";
+
+    static final int SNAPSHOT_TTL_SECONDS = 10 * 60;
+    static final int MAX_SNAPSHOTS = 10_000;
+
+    private static final Comparator<Ranked> ORDER = Comparator.comparingDouble(Ranked::score).reversed()
+            .thenComparing(ranked -> ranked.document().restaurantId());
+
+    private final List<RankingSignal> signals;
+    private final RestaurantSearchIndex restaurantSearchIndex;
+    private final RestaurantActivity restaurantActivity;
+    private final Clock clock = Clock.systemDefaultZone();
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    public RestaurantRanker(List<RankingSignal> signals, RestaurantSearchIndex restaurantSearchIndex,
+                            RestaurantActivity restaurantActivity) {
+        this.signals = signals.stream().sorted(Comparator.comparing(RankingSignal::name)).toList();
+        this.restaurantSearchIndex = restaurantSearchIndex;
+        this.restaurantActivity = restaurantActivity;
+    }
+
+    public static boolean isRelevanceSort(String sortBy) {
+        return RELEVANCE.equalsIgnoreCase(sortBy);
+    }
+
+    public record Ranked(Document document, double score) {
+    }
+
+    // asOf zaman damgası imlece yazılır; snapshot bulunamazsa sonraki sayfalar o anın skorlarıyla hesaplanır
+    private record Cursor(long asOfEpochSecond, String snapshotId, double score, String restaurantId) {
+    }
+
+    private record Snapshot(RankingContext context, long expiresAt) {
+    }
+
+    // limit and cursor both null ranks every match without a next cursor (legacy array responses).
+    // Throws IllegalArgumentException for a malformed cursor.
+    public RestaurantKeyset.Page page(List<Document> documents, Integer limit, String cursor,
+                                      Double latitude, Double longitude) {
+        Cursor after = cursor == null ? null : decode(cursor);
+        Snapshot snapshot = after != null ? snapshots.get(after.snapshotId()) : null;
+        RankingContext context;
+        if (snapshot != null && snapshot.expiresAt() >= System.currentTimeMillis()) {
+            context = snapshot.context();
+        } else {
+            LocalDateTime asOf = after != null
+                    ? LocalDateTime.ofEpochSecond(after.asOfEpochSecond(), 0, ZoneOffset.UTC)
+                    : LocalDateTime.now(clock).truncatedTo(ChronoUnit.SECONDS);
+            context = new RankingContext(restaurantSearchIndex.openNowSnapshot(), restaurantActivity.snapshot(),
+                    asOf, latitude, longitude);
+        }
+
+        boolean paged = limit != null || cursor != null;
+        int size = paged
+                ? Math.max(1, Math.min(limit != null ? limit : RestaurantKeyset.DEFAULT_PAGE_SIZE, RestaurantKeyset.MAX_PAGE_SIZE))
+                : Math.max(1, documents.size());
+        // Bir fazlası tutulur, sonraki sayfa olup olmadığını anlamak için
+        List<Ranked> ranked = topK(documents, size + 1, context, after);
+
+        List<Document> items = new ArrayList<>(Math.min(size, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < size; i++) {
+            items.add(ranked.get(i).document());
+        }
+        String nextCursor = null;
+        if (paged && ranked.size() > size) {
+            Ranked last = ranked.get(size - 1);
+            String snapshotId = after != null ? after.snapshotId() : newSnapshotId();
+            keep(snapshotId, context);
+            nextCursor = encode(new Cursor(context.asOf().toEpochSecond(ZoneOffset.UTC), snapshotId, last.score(),
+                    last.document().restaurantId()));
+        }
+        return new RestaurantKeyset.Page(items, nextCursor);
+    }
+
+    private String newSnapshotId() {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // Her sayfada süre uzar; sınır doluysa yeni snapshot tutulmaz, imleç taze skorlara düşer
+    private void keep(String snapshotId, RankingContext context) {
+        if (snapshots.size() >= MAX_SNAPSHOTS && !snapshots.containsKey(snapshotId)) {
+            return;
+        }
+        snapshots.put(snapshotId, new Snapshot(context, System.currentTimeMillis() + SNAPSHOT_TTL_SECONDS * 1000L));
+    }
+
+    @Scheduled(fixedRate = 60 * 1000)
+    public void purgeExpiredSnapshots() {
+        long now = System.currentTimeMillis();
+        snapshots.values().removeIf(snapshot -> snapshot.expiresAt() < now);
+    }
+
+    // Best k documents after the cursor position, best first
+    private List<Ranked> topK(List<Document> documents, int k, RankingContext context, Cursor after) {
+        List<RankingSignal> active = signals.stream().filter(signal -> signal.appliesTo(context)).toList();
+        double totalWeight = active.stream().mapToDouble(RankingSignal::weight).sum();
+
+        // Baştaki eleman heap'teki en kötü sonuç
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(Math.min(k, documents.size()) + 1, ORDER.reversed());
+        for (Document document : documents) {
+            double score = score(document, context, active, totalWeight);
+            if (after != null && !isAfter(score, document.restaurantId(), after)) {
+                continue;
+            }
+            if (heap.size() < k) {
+                heap.add(new Ranked(document, score));
+            } else if (isBetter(score, document.restaurantId(), heap.peek())) {
+                heap.poll();
+                heap.add(new Ranked(document, score));
+            }
+        }
+        List<Ranked> result = new ArrayList<>(heap);
+        result.sort(ORDER);
+        return result;
+    }
+
+    private static double score(Document document, RankingContext context, List<RankingSignal> active,
+                                double totalWeight) {
+        if (totalWeight <= 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (RankingSignal signal : active) {
+            sum += signal.weight() * signal.score(document, context);
+        }
+        return sum / totalWeight;
+    }
+
+    private static boolean isBetter(double score, String restaurantId, Ranked other) {
+        int cmp = Double.compare(score, other.score());
+        return cmp > 0 || (cmp == 0 && restaurantId.compareTo(other.document().restaurantId()) < 0);
+    }
+
+    private static boolean isAfter(double score, String restaurantId, Cursor cursor) {
+        int cmp = Double.compare(score, cursor.score());
+        return cmp < 0 || (cmp == 0 && restaurantId.compareTo(cursor.restaurantId()) > 0);
+    }
+
+    // Format: relevance:<asOf epoch second>:<snapshotId>:<score>:<restaurantId>, base64url
+    private static String encode(Cursor cursor) {
+        String raw = RELEVANCE + ":" + cursor.asOfEpochSecond() + ":" + cursor.snapshotId() + ":" + cursor.score()
+                + ":" + cursor.restaurantId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String[] parts = raw.split(":", 5);
+        if (parts.length != 5 || !parts[0].equals(RELEVANCE)) {
+            throw new IllegalArgumentException("Cursor does not match sortBy=" + RELEVANCE);
+        }
+        try {
+            return new Cursor(Long.parseLong(parts[1]), parts[2], Double.parseDouble(parts[3]), parts[4]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
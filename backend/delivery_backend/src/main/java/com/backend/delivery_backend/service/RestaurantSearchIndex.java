@@ -0,0 +1,535 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.ENUM.DeliveryType;
+import com.backend.delivery_backend.model.RestaurantOwner;
+import com.backend.delivery_backend.repository.RestaurantOwnerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over restaurants, so public search never scans the restaurant_owners table.
+@Service
+public class RestaurantSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantSearchIndex.class);
+    private static final int RATING_BUCKETS = 11;
+
+    private final RestaurantOwnerRepository restaurantOwnerRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final Deque<Integer> freeDocIds = new ArrayDeque<>();
+    private final TrigramIndex textIndex = new TrigramIndex();
+    private final GeoGridIndex geoIndex = new GeoGridIndex();
+
+    // Facet bitsets, indexed by docId
+    private final BitSet allDocs = new BitSet();
+    private final BitSet approvedDocs = new BitSet();
+    private final Map<String, BitSet> accountStatusFacet = new HashMap<>();
+    private final Map<String, BitSet> cuisineFacet = new HashMap<>();
+    private final Map<String, String> cuisineLabels = new HashMap<>();
+    private final Map<DeliveryType, BitSet> deliveryTypeFacet = new EnumMap<>(DeliveryType.class);
+    // ratingAtLeast[b] = puanı b/2 ve üstü olan restoranlar (b = 0..10, yarım yıldız adımları)
+    private final BitSet[] ratingAtLeast = new BitSet[RATING_BUCKETS];
+
+    // Restaurants open right now: switched open and inside their business hours. The wheel flips the hours part once
+    // a minute, the switch is applied when the restaurant is reindexed. openNow in restaurant search, the openNow
+    // ranking signal and openOnly in menu search all read this one set.
+    private final BitSet openNowDocs = new BitSet();
+    private final OpeningHoursWheel openingHoursWheel = new OpeningHoursWheel();
+    private final Clock clock = Clock.systemDefaultZone();
+    private int wheelMinute = currentMinuteOfDay();
+
+    public RestaurantSearchIndex(RestaurantOwnerRepository restaurantOwnerRepository,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.restaurantOwnerRepository = restaurantOwnerRepository;
+        this.eventPublisher = eventPublisher;
+        for (int i = 0; i < RATING_BUCKETS; i++) {
+            ratingAtLeast[i] = new BitSet();
+        }
+    }
+
+    // Filters of /api/public/search-restaurants; null means "not filtered"
+    public record Query(String keyword, Float minRating, boolean openNow, String cuisineType, String deliveryType) {
+    }
+
+    // facets: facet name -> (value -> count), only filled when requested
+    public record Result(List<Document> documents, Map<String, Map<String, Integer>> facets) {
+    }
+
+    public record NearbyHit(Document document, double distanceKm) {
+    }
+
+    // Immutable copy of the searchable fields of a restaurant
+    public record Document(int docId, String restaurantId, String name, String address, String city,
+                           String district, Double latitude, Double longitude, String cuisineType, DeliveryType deliveryType, float rating,
+                           boolean open, boolean approved, String accountStatus,
+                           String businessHoursStart, String businessHoursEnd,
+                           int openMinute, int closeMinute) {
+
+        // Çalışma saatleri kayıt sırasında bir kez dakikaya çevrilir
+        static Document of(int docId, RestaurantOwner r) {
+            return new Document(docId, r.getRestaurantId(), r.getName(), r.getAddress(), r.getCity(),
+                    r.getDistrict(), r.getLatitude(), r.getLongitude(), r.getCuisineType(), r.getDeliveryType(), r.getRating(), r.isOpen(),
+                    r.isApproved(), r.getAccountStatus(), r.getBusinessHoursStart(), r.getBusinessHoursEnd(),
+                    OpeningHoursWheel.parseMinuteOfDay(r.getBusinessHoursStart()),
+                    OpeningHoursWheel.parseMinuteOfDay(r.getBusinessHoursEnd()));
+        }
+
+        // Onaylı ve BANNED/SUSPENDED olmayan restoranlar herkese açık
+        public boolean isPubliclyVisible() {
+            return approved && !"BANNED".equals(accountStatus) && !"SUSPENDED".equals(accountStatus);
+        }
+
+        boolean containsTerm(String normalizedTerm) {
+            return contains(name, normalizedTerm) || contains(address, normalizedTerm) || contains(city, normalizedTerm)
+                    || contains(district, normalizedTerm) || contains(cuisineType, normalizedTerm);
+        }
+
+        private static boolean contains(String field, String normalizedTerm) {
+            return field != null && TrigramIndex.normalize(field).contains(normalizedTerm);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<RestaurantOwner> restaurants = restaurantOwnerRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            docIds.clear();
+            documents.clear();
+            freeDocIds.clear();
+            textIndex.clear();
+            geoIndex.clear();
+            allDocs.clear();
+            approvedDocs.clear();
+            accountStatusFacet.clear();
+            cuisineFacet.clear();
+            cuisineLabels.clear();
+            deliveryTypeFacet.clear();
+            for (BitSet bucket : ratingAtLeast) {
+                bucket.clear();
+            }
+            openNowDocs.clear();
+            openingHoursWheel.clear();
+            wheelMinute = currentMinuteOfDay();
+            restaurants.forEach(this::indexLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        eventPublisher.publishEvent(RestaurantIndexChangedEvent.rebuilt());
+        logger.info("Restaurant search index rebuilt with {} restaurants", restaurants.size());
+    }
+
+    public void index(RestaurantOwner restaurant) {
+        if (restaurant.getRestaurantId() == null) {
+            return;
+        }
+        RestaurantIndexChangedEvent.Change change;
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIds.get(restaurant.getRestaurantId());
+            Document before = docId == null ? null : documents.get(docId);
+            boolean openBefore = docId != null && openNowDocs.get(docId);
+            docId = indexLocked(restaurant);
+            change = new RestaurantIndexChangedEvent.Change(before, openBefore, documents.get(docId), openNowDocs.get(docId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        eventPublisher.publishEvent(new RestaurantIndexChangedEvent(List.of(change), false));
+    }
+
+    public void remove(String restaurantId) {
+        RestaurantIndexChangedEvent.Change change = null;
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIds.remove(restaurantId);
+            if (docId != null) {
+                change = new RestaurantIndexChangedEvent.Change(documents.get(docId), openNowDocs.get(docId), null, false);
+                textIndex.remove(docId);
+                clearFacets(docId);
+                documents.set(docId, null);
+                freeDocIds.push(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (change != null) {
+            eventPublisher.publishEvent(new RestaurantIndexChangedEvent(List.of(change), false));
+        }
+    }
+
+    // Sadece sınırı bu aralıkta olan restoranların durumu değişir
+    @Scheduled(cron = "0 * * * * *")
+    public void advanceOpeningHoursWheel() {
+        int now = currentMinuteOfDay();
+        List<RestaurantIndexChangedEvent.Change> changes = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            if (now == wheelMinute) {
+                return;
+            }
+            for (int docId : openingHoursWheel.due(wheelMinute, now)) {
+                boolean open = documents.get(docId).open() && openingHoursWheel.isOpen(docId, now);
+                if (open != openNowDocs.get(docId)) {
+                    Document document = documents.get(docId);
+                    changes.add(new RestaurantIndexChangedEvent.Change(document, !open, document, open));
+                }
+                openNowDocs.set(docId, open);
+            }
+            wheelMinute = now;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new RestaurantIndexChangedEvent(changes, false));
+        }
+    }
+
+    public Optional<Document> get(String restaurantId) {
+        lock.readLock().lock();
+        try {
+            Integer docId = docIds.get(restaurantId);
+            return docId == null ? Optional.empty() : Optional.of(documents.get(docId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Many restaurants under a single lock acquisition; unknown ids are left out
+    public Map<String, Document> getAll(Collection<String> restaurantIds) {
+        Map<String, Document> result = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String restaurantId : restaurantIds) {
+                Integer docId = docIds.get(restaurantId);
+                if (docId != null) {
+                    result.put(restaurantId, documents.get(docId));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    // docIds of restaurants that are switched open and inside their business hours right now
+    public BitSet openNowSnapshot() {
+        lock.readLock().lock();
+        try {
+            return (BitSet) openNowDocs.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Filters are answered with bitset intersections, documents are only materialized for the final hits
+    public Result search(Query query, boolean withFacets) {
+        lock.readLock().lock();
+        try {
+            BitSet base = visibleMatches(query);
+            BitSet rating = ratingFilter(query.minRating(), base);
+            BitSet cuisine = cuisineFilter(query.cuisineType());
+            BitSet delivery = deliveryTypeFilter(query.deliveryType());
+
+            BitSet hits = (BitSet) base.clone();
+            hits.and(rating);
+            hits.and(cuisine);
+            hits.and(delivery);
+
+            List<Document> result = new ArrayList<>(hits.cardinality());
+            for (int docId = hits.nextSetBit(0); docId >= 0; docId = hits.nextSetBit(docId + 1)) {
+                result.add(documents.get(docId));
+            }
+
+            Map<String, Map<String, Integer>> facets = null;
+            if (withFacets) {
+                // Her facet, kendi filtresi hariç diğer filtrelerle sayılır
+                facets = new LinkedHashMap<>();
+                facets.put("cuisineType", countCuisines(intersect(base, rating, delivery)));
+                facets.put("deliveryType", countDeliveryTypes(intersect(base, rating, cuisine)));
+                facets.put("rating", countRatings(intersect(base, cuisine, delivery)));
+            }
+            return new Result(result, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // k nearest restaurants matching the query; with radiusKm every match inside the radius, capped at k
+    public List<NearbyHit> nearby(Query query, double latitude, double longitude, Double radiusKm, int k,
+                                  double maxRadiusKm) {
+        lock.readLock().lock();
+        try {
+            BitSet scope = visibleMatches(query);
+            scope.and(ratingFilter(query.minRating(), scope));
+            scope.and(cuisineFilter(query.cuisineType()));
+            scope.and(deliveryTypeFilter(query.deliveryType()));
+
+            List<GeoGridIndex.Hit> hits = radiusKm != null
+                    ? geoIndex.withinRadius(latitude, longitude, Math.min(radiusKm, maxRadiusKm), scope)
+                    : geoIndex.nearest(latitude, longitude, k, maxRadiusKm, scope);
+            return hits.stream()
+                    .limit(k)
+                    .map(hit -> new NearbyHit(documents.get(hit.docId()), hit.distanceKm()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Herkese açık restoranlardan keyword ve openNow koşulunu sağlayanlar
+    private BitSet visibleMatches(Query query) {
+        // Sadece onaylanmış, ban veya suspended edilmemiş restoranlar
+        BitSet base = (BitSet) approvedDocs.clone();
+        base.andNot(accountStatusFacet.getOrDefault("BANNED", new BitSet()));
+        base.andNot(accountStatusFacet.getOrDefault("SUSPENDED", new BitSet()));
+
+        String[] terms = TrigramIndex.normalize(query.keyword()).split("\\s+");
+        BitSet textMatches = textMatches(terms, base);
+        if (textMatches != null) {
+            base = textMatches;
+        }
+        if (query.openNow()) {
+            base.and(openNowDocs);
+        }
+        return base;
+    }
+
+    // Same decision as search() for a single document; facetsOnly checks only the filters facets are counted under
+    public static boolean matches(Query query, Document document, boolean openNow, boolean facetsOnly) {
+        if (document == null || !document.isPubliclyVisible() || (query.openNow() && !openNow)) {
+            return false;
+        }
+        if (!matchesAll(document, TrigramIndex.normalize(query.keyword()).split("\\s+"))) {
+            return false;
+        }
+        if (facetsOnly) {
+            return true;
+        }
+        if (query.minRating() != null && query.minRating() > 0 && document.rating() < query.minRating()) {
+            return false;
+        }
+        if (query.cuisineType() != null
+                && !TrigramIndex.normalize(query.cuisineType()).equals(TrigramIndex.normalize(document.cuisineType()))) {
+            return false;
+        }
+        return query.deliveryType() == null || document.deliveryType() == DeliveryType.BOTH
+                || (document.deliveryType() != null && document.deliveryType().name().equalsIgnoreCase(query.deliveryType()));
+    }
+
+    private BitSet textMatches(String[] terms, BitSet scope) {
+        BitSet candidates = null;
+        for (String term : terms) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            BitSet termCandidates = textIndex.candidates(term);
+            if (candidates == null) {
+                candidates = termCandidates;
+            } else {
+                candidates.and(termCandidates);
+            }
+        }
+        if (candidates == null) {
+            return null;
+        }
+        candidates.and(scope);
+        // Gram kesişimi yanlış pozitif verebilir, gerçek alt dize kontrolü
+        for (int docId = candidates.nextSetBit(0); docId >= 0; docId = candidates.nextSetBit(docId + 1)) {
+            if (!matchesAll(documents.get(docId), terms)) {
+                candidates.clear(docId);
+            }
+        }
+        return candidates;
+    }
+
+    private BitSet ratingFilter(Float minRating, BitSet candidates) {
+        if (minRating == null || minRating <= 0) {
+            return allDocs;
+        }
+        int exactBucket = (int) Math.ceil(minRating * 2);
+        BitSet result = exactBucket < RATING_BUCKETS ? (BitSet) ratingAtLeast[exactBucket].clone() : new BitSet();
+        // Sınırdaki kova tek tek kontrol edilir (ör. minRating=4.2 için 4.0-4.5 arası)
+        int boundaryBucket = Math.min((int) Math.floor(minRating * 2), RATING_BUCKETS - 1);
+        if (boundaryBucket != exactBucket) {
+            BitSet boundary = (BitSet) ratingAtLeast[boundaryBucket].clone();
+            boundary.andNot(result);
+            boundary.and(candidates);
+            for (int docId = boundary.nextSetBit(0); docId >= 0; docId = boundary.nextSetBit(docId + 1)) {
+                if (documents.get(docId).rating() >= minRating) {
+                    result.set(docId);
+                }
+            }
+        }
+        return result;
+    }
+
+    private BitSet cuisineFilter(String cuisineType) {
+        if (cuisineType == null) {
+            return allDocs;
+        }
+        return cuisineFacet.getOrDefault(TrigramIndex.normalize(cuisineType), new BitSet());
+    }
+
+    // BOTH olan restoranlar her iki teslimat tipinde de listelenir
+    private BitSet deliveryTypeFilter(String deliveryType) {
+        if (deliveryType == null) {
+            return allDocs;
+        }
+        BitSet result = (BitSet) deliveryTypeFacet.getOrDefault(DeliveryType.BOTH, new BitSet()).clone();
+        for (DeliveryType type : DeliveryType.values()) {
+            if (type.name().equalsIgnoreCase(deliveryType)) {
+                result.or(deliveryTypeFacet.getOrDefault(type, new BitSet()));
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> countCuisines(BitSet scope) {
+        Map<String, Integer> counts = new TreeMap<>();
+        cuisineFacet.forEach((key, bits) -> {
+            int count = intersectionSize(scope, bits);
+            if (count > 0) {
+                counts.put(cuisineLabels.get(key), count);
+            }
+        });
+        return counts;
+    }
+
+    private Map<String, Integer> countDeliveryTypes(BitSet scope) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        deliveryTypeFacet.forEach((type, bits) -> {
+            int count = intersectionSize(scope, bits);
+            if (count > 0) {
+                counts.put(type.name(), count);
+            }
+        });
+        return counts;
+    }
+
+    private Map<String, Integer> countRatings(BitSet scope) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int bucket = RATING_BUCKETS - 1; bucket >= 2; bucket--) {
+            counts.put((bucket / 2.0) + "+", intersectionSize(scope, ratingAtLeast[bucket]));
+        }
+        return counts;
+    }
+
+    private static BitSet intersect(BitSet first, BitSet... others) {
+        BitSet result = (BitSet) first.clone();
+        for (BitSet other : others) {
+            result.and(other);
+        }
+        return result;
+    }
+
+    private static int intersectionSize(BitSet a, BitSet b) {
+        BitSet copy = (BitSet) a.clone();
+        copy.and(b);
+        return copy.cardinality();
+    }
+
+    private static boolean matchesAll(Document document, String[] terms) {
+        for (String term : terms) {
+            if (!term.isEmpty() && !document.containsTerm(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexLocked(RestaurantOwner restaurant) {
+        Integer docId = docIds.get(restaurant.getRestaurantId());
+        if (docId == null) {
+            docId = freeDocIds.isEmpty() ? documents.size() : freeDocIds.pop();
+            if (docId == documents.size()) {
+                documents.add(null);
+            }
+            docIds.put(restaurant.getRestaurantId(), docId);
+        }
+        Document document = Document.of(docId, restaurant);
+        documents.set(docId, document);
+        textIndex.put(docId, document.name(), document.address(), document.city(),
+                document.district(), document.cuisineType());
+
+        clearFacets(docId);
+        allDocs.set(docId);
+        if (document.approved()) {
+            approvedDocs.set(docId);
+        }
+        if (document.accountStatus() != null) {
+            accountStatusFacet.computeIfAbsent(document.accountStatus(), k -> new BitSet()).set(docId);
+        }
+        if (document.cuisineType() != null) {
+            String key = TrigramIndex.normalize(document.cuisineType());
+            cuisineFacet.computeIfAbsent(key, k -> new BitSet()).set(docId);
+            cuisineLabels.putIfAbsent(key, document.cuisineType().trim());
+        }
+        if (document.deliveryType() != null) {
+            deliveryTypeFacet.computeIfAbsent(document.deliveryType(), k -> new BitSet()).set(docId);
+        }
+        int ratingBucket = Math.max(0, Math.min((int) Math.floor(document.rating() * 2), RATING_BUCKETS - 1));
+        for (int bucket = 0; bucket <= ratingBucket; bucket++) {
+            ratingAtLeast[bucket].set(docId);
+        }
+
+        if (document.openMinute() == OpeningHoursWheel.INVALID || document.closeMinute() == OpeningHoursWheel.INVALID) {
+            logger.warn("Restaurant {} has unparseable business hours '{}'-'{}', it is never listed as open now",
+                    document.restaurantId(), document.businessHoursStart(), document.businessHoursEnd());
+        }
+        openingHoursWheel.schedule(docId, document.openMinute(), document.closeMinute());
+        openNowDocs.set(docId, document.open() && openingHoursWheel.isOpen(docId, wheelMinute));
+        geoIndex.put(docId, document.latitude(), document.longitude());
+        return docId;
+    }
+
+    private int currentMinuteOfDay() {
+        LocalTime now = LocalTime.now(clock);
+        return now.getHour() * 60 + now.getMinute();
+    }
+
+    private void clearFacets(int docId) {
+        allDocs.clear(docId);
+        approvedDocs.clear(docId);
+        accountStatusFacet.values().forEach(bits -> bits.clear(docId));
+        // Son restoranı da giden mutfak hem facet'ten hem etiketlerden silinir
+        cuisineFacet.entrySet().removeIf(entry -> {
+            entry.getValue().clear(docId);
+            if (!entry.getValue().isEmpty()) {
+                return false;
+            }
+            cuisineLabels.remove(entry.getKey());
+            return true;
+        });
+        deliveryTypeFacet.values().forEach(bits -> bits.clear(docId));
+        for (BitSet bucket : ratingAtLeast) {
+            bucket.clear(docId);
+        }
+        openNowDocs.clear(docId);
+        openingHoursWheel.unschedule(docId);
+        geoIndex.remove(docId);
+    }
+}
@@ -0,0 +1,12 @@
+package com.backend.delivery_backend.service;
+
+import java.time.LocalDateTime;
+
+// An admin suspended the restaurant; its open orders are cancelled by the subscriber in OrderService
+public record RestaurantSuspended(String restaurantId, LocalDateTime suspendedAt) implements DomainEvent {
+
+    @Override
+    public String aggregateId() {
+        return restaurantId;
+    }
+}
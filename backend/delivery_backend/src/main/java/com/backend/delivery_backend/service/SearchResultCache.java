@@ -0,0 +1,146 @@
+package com.backend.delivery_backend.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU + TTL cache of restaurant search results, keyed by the normalized filter tuple.
+// Entries are dropped precisely when a changed restaurant matched (or now matches) their filters.
+@Service
+public class SearchResultCache {
+
+    static final int MAX_ENTRIES = 1000;
+    static final long TTL_MILLIS = 60_000;
+
+    private final RestaurantSearchIndex restaurantSearchIndex;
+    private final Clock clock = Clock.systemUTC();
+
+    // Access-order LinkedHashMap: ilk eleman en uzun süredir kullanılmayan
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    // Her değişiklikte artar; hesaplama sırasında değişiklik olduysa sonuç cache'e yazılmaz
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public SearchResultCache(RestaurantSearchIndex restaurantSearchIndex) {
+        this.restaurantSearchIndex = restaurantSearchIndex;
+    }
+
+    // keyword terimleri sıralanır: "sushi kadikoy" ve "kadikoy  Sushi" aynı anahtar
+    record Key(String keyword, Float minRating, boolean openNow, String cuisineType, String deliveryType) {
+
+        static Key of(RestaurantSearchIndex.Query query) {
+            String[] terms = TrigramIndex.normalize(query.keyword()).split("\\s+");
+            Arrays.sort(terms);
+            String keyword = String.join(" ", terms).trim();
+            Float minRating = query.minRating() == null || query.minRating() <= 0 ? null : query.minRating();
+            String cuisine = query.cuisineType() == null ? null : TrigramIndex.normalize(query.cuisineType());
+            String delivery = query.deliveryType() == null ? null : query.deliveryType().trim().toUpperCase(Locale.ROOT);
+            return new Key(keyword.isEmpty() ? null : keyword, minRating, query.openNow(), cuisine, delivery);
+        }
+
+        RestaurantSearchIndex.Query toQuery() {
+            return new RestaurantSearchIndex.Query(keyword, minRating, openNow, cuisineType, deliveryType);
+        }
+    }
+
+    private record Entry(RestaurantSearchIndex.Result result, long expiresAt) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, long expirations, long invalidations, int size) {
+    }
+
+    public RestaurantSearchIndex.Result search(RestaurantSearchIndex.Query query, boolean withFacets) {
+        Key key = Key.of(query);
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() <= now) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            // Facet'li sonuç facet'siz isteğe de cevap verir, tersi olmaz
+            if (entry != null && (!withFacets || entry.result().facets() != null)) {
+                hits.increment();
+                return withFacets ? entry.result() : new RestaurantSearchIndex.Result(entry.result().documents(), null);
+            }
+        }
+
+        misses.increment();
+        long observedGeneration = generation.get();
+        RestaurantSearchIndex.Result result = restaurantSearchIndex.search(key.toQuery(), withFacets);
+        synchronized (entries) {
+            if (generation.get() == observedGeneration) {
+                entries.put(key, new Entry(result, now + TTL_MILLIS));
+                evictOverflow();
+            }
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onIndexChanged(RestaurantIndexChangedEvent event) {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            if (event.fullRebuild()) {
+                invalidations.add(entries.size());
+                entries.clear();
+                return;
+            }
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> cached = it.next();
+                boolean facets = cached.getValue().result().facets() != null;
+                if (affects(cached.getKey().toQuery(), facets, event)) {
+                    it.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), invalidations.sum(),
+                    entries.size());
+        }
+    }
+
+    // Facet sayıları filtrelerin biri hariç tutularak hesaplanır, bu yüzden facet'li girdilerde sadece temel koşullara bakılır
+    private static boolean affects(RestaurantSearchIndex.Query query, boolean facets, RestaurantIndexChangedEvent event) {
+        for (RestaurantIndexChangedEvent.Change change : event.changes()) {
+            // Sadece açık/kapalı biti değiştiyse (çalışma saati dönümü) openNow filtresi olmayan sonuç aynı kalır
+            if (!query.openNow() && Objects.equals(change.before(), change.after())) {
+                continue;
+            }
+            if (RestaurantSearchIndex.matches(query, change.before(), change.openNowBefore(), facets)
+                    || RestaurantSearchIndex.matches(query, change.after(), change.openNowAfter(), facets)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evictOverflow() {
+        Iterator<Key> it = entries.keySet().iterator();
+        while (entries.size() > MAX_ENTRIES && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.backend.delivery_backend.service;
+
+import com.backend.delivery_backend.model.RestaurantOwner;
+import com.backend.delivery_backend.repository.MenuItemRepository;
+import com.backend.delivery_backend.repository.OrderRepository;
+import com.backend.delivery_backend.repository.RestaurantOwnerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Autocomplete over restaurant names, cuisine types and menu item names, backed by a radix trie.
+// Kept in sync by RestaurantIndexListener and MenuItemIndexListener.
+@Service
+public class SuggestionIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionIndex.class);
+    // Trie'den en fazla bu kadar aday toplanır, sıralama bunların üzerinde yapılır
+    private static final int MAX_CANDIDATES = 1000;
+
+    private final RestaurantOwnerRepository restaurantOwnerRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final OrderRepository orderRepository;
+    private final RestaurantSearchIndex restaurantSearchIndex;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SuggestionTrie<Entry> trie = new SuggestionTrie<>();
+    private final Map<String, RestaurantEntry> restaurants = new HashMap<>();
+    private final Map<Long, MenuItemSnapshot> menuItems = new HashMap<>();
+    // normalized cuisine -> (label, number of visible restaurants)
+    private final Map<String, Entry> cuisines = new HashMap<>();
+    private final Map<String, Integer> cuisineCounts = new HashMap<>();
+
+    // Sipariş sayıları periyodik olarak yenilenir, sadece sıralamayı etkiler
+    private volatile Map<String, Long> restaurantOrderCounts = Map.of();
+    private volatile Map<Long, Long> menuItemOrderCounts = Map.of();
+
+    public SuggestionIndex(RestaurantOwnerRepository restaurantOwnerRepository, MenuItemRepository menuItemRepository,
+                           OrderRepository orderRepository, RestaurantSearchIndex restaurantSearchIndex) {
+        this.restaurantOwnerRepository = restaurantOwnerRepository;
+        this.menuItemRepository = menuItemRepository;
+        this.orderRepository = orderRepository;
+        this.restaurantSearchIndex = restaurantSearchIndex;
+    }
+
+    public enum Kind { RESTAURANT, CUISINE, MENU_ITEM }
+
+    // restaurantId is null for cuisines, menuItemId only set for menu items
+    record Entry(Kind kind, String text, String restaurantId, Long menuItemId) {
+    }
+
+    private record RestaurantEntry(Entry entry, String cuisineKey) {
+    }
+
+    // restaurantName is the owning restaurant for menu items
+    public record Suggestion(String text, Kind type, String restaurantId, String restaurantName, Long menuItemId,
+                             int distance) {
+    }
+
+    private record Candidate(Suggestion suggestion, double score) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<RestaurantOwner> allRestaurants = restaurantOwnerRepository.findAll();
+        List<MenuItemSnapshot> allItems = menuItemRepository.findAllWithRestaurant().stream().map(MenuItemSnapshot::of).toList();
+        lock.writeLock().lock();
+        try {
+            trie.clear();
+            restaurants.clear();
+            menuItems.clear();
+            cuisines.clear();
+            cuisineCounts.clear();
+            allRestaurants.forEach(this::indexRestaurantLocked);
+            allItems.forEach(this::indexMenuItemLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        refreshPopularity();
+        logger.info("Suggestion index rebuilt with {} restaurants and {} menu items", restaurants.size(), allItems.size());
+    }
+
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void refreshPopularity() {
+        Map<String, Long> byRestaurant = new HashMap<>();
+        for (Object[] row : orderRepository.countOrdersPerRestaurant()) {
+            byRestaurant.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        Map<Long, Long> byMenuItem = new HashMap<>();
+        for (Object[] row : orderRepository.sumQuantitiesPerMenuItem()) {
+            byMenuItem.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        restaurantOrderCounts = byRestaurant;
+        menuItemOrderCounts = byMenuItem;
+    }
+
+    public void indexRestaurant(RestaurantOwner restaurant) {
+        if (restaurant.getRestaurantId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            indexRestaurantLocked(restaurant);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeRestaurant(String restaurantId) {
+        lock.writeLock().lock();
+        try {
+            removeRestaurantLocked(restaurantId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexMenuItem(MenuItemSnapshot item) {
+        lock.writeLock().lock();
+        try {
+            indexMenuItemLocked(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeMenuItem(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            removeMenuItemLocked(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Sıralama: önce düzenleme mesafesi, sonra puan + popülerlik
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String query = TrigramIndex.normalize(prefix);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        int maxEdits = query.length() <= 2 ? 0 : query.length() <= 5 ? 1 : 2;
+        Map<String, Long> restaurantOrders = restaurantOrderCounts;
+        Map<Long, Long> itemOrders = menuItemOrderCounts;
+
+        List<Candidate> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // Aynı kayıt birden fazla kelime anahtarıyla eşleşebilir, en küçük mesafe tutulur
+            Map<Entry, Integer> matches = new HashMap<>();
+            trie.search(query, maxEdits, (entry, distance) -> {
+                matches.merge(entry, distance, Math::min);
+                return matches.size() < MAX_CANDIDATES;
+            });
+            matches.forEach((entry, distance) ->
+                    toCandidate(entry, distance, restaurantOrders, itemOrders).ifPresent(candidates::add));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return candidates.stream()
+                .sorted(Comparator.comparingInt((Candidate c) -> c.suggestion().distance())
+                        .thenComparing(Comparator.comparingDouble(Candidate::score).reversed())
+                        .thenComparing(c -> c.suggestion().text()))
+                .limit(limit)
+                .map(Candidate::suggestion)
+                .toList();
+    }
+
+    private Optional<Candidate> toCandidate(Entry entry, int distance, Map<String, Long> restaurantOrders,
+                                            Map<Long, Long> itemOrders) {
+        if (entry.kind() == Kind.CUISINE) {
+            int count = cuisineCounts.getOrDefault(TrigramIndex.normalize(entry.text()), 0);
+            return Optional.of(new Candidate(new Suggestion(entry.text(), Kind.CUISINE, null, null, null, distance),
+                    Math.log1p(count)));
+        }
+        // Ban/onay durumu arama index'inden okunur, böylece restoran değişince menü anahtarları dokunulmadan kalır
+        Optional<RestaurantSearchIndex.Document> restaurant = restaurantSearchIndex.get(entry.restaurantId())
+                .filter(RestaurantSearchIndex.Document::isPubliclyVisible);
+        if (restaurant.isEmpty()) {
+            return Optional.empty();
+        }
+        float rating = restaurant.get().rating();
+        if (entry.kind() == Kind.RESTAURANT) {
+            return Optional.of(new Candidate(
+                    new Suggestion(entry.text(), Kind.RESTAURANT, entry.restaurantId(), null, null, distance),
+                    rating + Math.log1p(restaurantOrders.getOrDefault(entry.restaurantId(), 0L))));
+        }
+        return Optional.of(new Candidate(
+                new Suggestion(entry.text(), Kind.MENU_ITEM, entry.restaurantId(), restaurant.get().name(),
+                        entry.menuItemId(), distance),
+                rating + Math.log1p(itemOrders.getOrDefault(entry.menuItemId(), 0L))));
+    }
+
+    private void indexRestaurantLocked(RestaurantOwner restaurant) {
+        removeRestaurantLocked(restaurant.getRestaurantId());
+        boolean visible = restaurant.isApproved()
+                && !"BANNED".equals(restaurant.getAccountStatus()) && !"SUSPENDED".equals(restaurant.getAccountStatus());
+        if (!visible || restaurant.getName() == null) {
+            return;
+        }
+        Entry entry = new Entry(Kind.RESTAURANT, restaurant.getName().trim(), restaurant.getRestaurantId(), null);
+        keys(entry.text()).forEach(key -> trie.put(key, entry));
+
+        String cuisineKey = null;
+        if (restaurant.getCuisineType() != null && !restaurant.getCuisineType().isBlank()) {
+            cuisineKey = TrigramIndex.normalize(restaurant.getCuisineType());
+            if (cuisineCounts.merge(cuisineKey, 1, Integer::sum) == 1) {
+                Entry cuisine = new Entry(Kind.CUISINE, restaurant.getCuisineType().trim(), null, null);
+                cuisines.put(cuisineKey, cuisine);
+                keys(cuisine.text()).forEach(key -> trie.put(key, cuisine));
+            }
+        }
+        restaurants.put(restaurant.getRestaurantId(), new RestaurantEntry(entry, cuisineKey));
+    }
+
+    private void removeRestaurantLocked(String restaurantId) {
+        RestaurantEntry old = restaurants.remove(restaurantId);
+        if (old == null) {
+            return;
+        }
+        keys(old.entry().text()).forEach(key -> trie.remove(key, old.entry()));
+        if (old.cuisineKey() != null && cuisineCounts.merge(old.cuisineKey(), -1, Integer::sum) <= 0) {
+            cuisineCounts.remove(old.cuisineKey());
+            Entry cuisine = cuisines.remove(old.cuisineKey());
+            keys(cuisine.text()).forEach(key -> trie.remove(key, cuisine));
+        }
+    }
+
+    // Stoğu olmayan ürünler önerilmez
+    private void indexMenuItemLocked(MenuItemSnapshot item) {
+        removeMenuItemLocked(item.itemId());
+        if (!item.available() || item.name() == null || item.restaurantId() == null) {
+            return;
+        }
+        menuItems.put(item.itemId(), item);
+        Entry entry = menuEntry(item);
+        keys(entry.text()).forEach(key -> trie.put(key, entry));
+    }
+
+    private void removeMenuItemLocked(Long itemId) {
+        MenuItemSnapshot old = menuItems.remove(itemId);
+        if (old != null) {
+            Entry entry = menuEntry(old);
+            keys(entry.text()).forEach(key -> trie.remove(key, entry));
+        }
+    }
+
+    private static Entry menuEntry(MenuItemSnapshot item) {
+        return new Entry(Kind.MENU_ITEM, item.name().trim(), item.restaurantId(), item.itemId());
+    }
+
+    // "Margherita Pizza" hem "margherita pizza" hem "pizza" anahtarıyla bulunur
+    private static Set<String> keys(String text) {
+        String normalized = TrigramIndex.normalize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            if ((i == 0 || Character.isWhitespace(normalized.charAt(i - 1))) && !Character.isWhitespace(normalized.charAt(i))) {
+                keys.add(normalized.substring(i));
+            }
+        }
+        return keys;
+    }
+}
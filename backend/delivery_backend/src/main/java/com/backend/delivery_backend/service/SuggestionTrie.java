@@ -0,0 +1,181 @@
+package com.backend.delivery_backend.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Radix (path-compressed) trie from normalized keys to values, with bounded edit-distance prefix search.
+// Not thread-safe, SuggestionIndex guards it with its lock.
+final class SuggestionTrie<V> {
+
+    interface Sink<V> {
+        // false stops the search
+        boolean accept(V value, int distance);
+    }
+
+    private static final class Node<V> {
+        String label;
+        final Map<Character, Node<V>> children = new HashMap<>(4);
+        Set<V> values;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Node<V> root = new Node<>("");
+
+    void put(String key, V value) {
+        Node<V> node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node<V> child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node<>(key.substring(i));
+                node.children.put(key.charAt(i), child);
+                node = child;
+                i = key.length();
+                break;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Kenar ortak önekte bölünür
+                Node<V> split = new Node<>(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                node.children.put(split.label.charAt(0), split);
+                child = split;
+            }
+            node = child;
+            i += common;
+        }
+        if (node.values == null) {
+            node.values = new HashSet<>(2);
+        }
+        node.values.add(value);
+    }
+
+    void remove(String key, V value) {
+        Deque<Node<V>> path = new ArrayDeque<>();
+        Node<V> node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node<V> child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return;
+            }
+            path.push(node);
+            node = child;
+            i += child.label.length();
+        }
+        if (node.values == null || !node.values.remove(value)) {
+            return;
+        }
+        if (node.values.isEmpty()) {
+            node.values = null;
+        }
+        // Boşalan düğümler silinir, tek çocuklu düğümler çocuğuyla birleştirilir
+        while (!path.isEmpty() && node.values == null && node.children.size() <= 1) {
+            Node<V> parent = path.pop();
+            if (node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+            } else {
+                Node<V> only = node.children.values().iterator().next();
+                only.label = node.label + only.label;
+                parent.children.put(only.label.charAt(0), only);
+            }
+            node = parent;
+        }
+    }
+
+    void clear() {
+        root.children.clear();
+        root.values = null;
+    }
+
+    // Every value whose key has a prefix within maxEdits edits of query (Levenshtein), with that distance.
+    // Rows of the edit-distance matrix are computed per trie character, so shared prefixes are computed once.
+    void search(String query, int maxEdits, Sink<V> sink) {
+        int[] row = new int[query.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = j;
+        }
+        int best = row[query.length()];
+        for (Node<V> child : root.children.values()) {
+            if (!search(child, query, row, best, maxEdits, sink)) {
+                return;
+            }
+        }
+    }
+
+    private boolean search(Node<V> node, String query, int[] previousRow, int best, int maxEdits, Sink<V> sink) {
+        int[] row = previousRow;
+        for (int c = 0; c < node.label.length(); c++) {
+            row = nextRow(row, query, node.label.charAt(c));
+            best = Math.min(best, row[query.length()]);
+            if (min(row) > maxEdits) {
+                // Buradan sonra mesafe azalamaz; alt ağaç en iyi mesafeyle eşleşir ya da hiç eşleşmez
+                return best > maxEdits || collect(node, best, sink);
+            }
+        }
+        if (node.values != null && best <= maxEdits) {
+            for (V value : node.values) {
+                if (!sink.accept(value, best)) {
+                    return false;
+                }
+            }
+        }
+        for (Node<V> child : node.children.values()) {
+            if (!search(child, query, row, best, maxEdits, sink)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean collect(Node<V> node, int distance, Sink<V> sink) {
+        if (node.values != null) {
+            for (V value : node.values) {
+                if (!sink.accept(value, distance)) {
+                    return false;
+                }
+            }
+        }
+        for (Node<V> child : node.children.values()) {
+            if (!collect(child, distance, sink)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] nextRow(int[] previous, String query, char c) {
+        int[] row = new int[previous.length];
+        row[0] = previous[0] + 1;
+        for (int j = 1; j < row.length; j++) {
+            int substitution = previous[j - 1] + (query.charAt(j - 1) == c ? 0 : 1);
+            row[j] = Math.min(substitution, Math.min(previous[j] + 1, row[j - 1] + 1));
+        }
+        return row;
+    }
+
+    private static int min(int[] row) {
+        int min = row[0];
+        for (int value : row) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int n = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < n && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,147 @@
+package com.backend.delivery_backend.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// n-gram (1..3) inverted index over int document ids. Not thread-safe, owners guard it with their own lock.
+class TrigramIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Integer, Set<String>> gramsByDoc = new HashMap<>();
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Her alan ayrı ayrı parçalanır, böylece alanlar arası sahte gram oluşmaz
+    void put(int docId, String... fields) {
+        remove(docId);
+        Set<String> grams = new HashSet<>();
+        for (String field : fields) {
+            collectGrams(normalize(field), grams);
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, g -> new PostingList()).add(docId);
+        }
+        gramsByDoc.put(docId, grams);
+    }
+
+    void remove(int docId) {
+        Set<String> grams = gramsByDoc.remove(docId);
+        if (grams == null) {
+            return;
+        }
+        for (String gram : grams) {
+            PostingList list = postings.get(gram);
+            if (list != null) {
+                list.remove(docId);
+                if (list.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        gramsByDoc.clear();
+    }
+
+    // Candidate documents that contain every gram of the term. Callers still verify the substring match.
+    BitSet candidates(String term) {
+        String normalized = normalize(term);
+        BitSet result = new BitSet();
+        if (normalized.isEmpty()) {
+            return result;
+        }
+        if (normalized.length() <= GRAM_SIZE) {
+            PostingList list = postings.get(normalized);
+            if (list != null) {
+                list.copyInto(result);
+            }
+            return result;
+        }
+
+        PostingList[] lists = new PostingList[normalized.length() - GRAM_SIZE + 1];
+        for (int i = 0; i < lists.length; i++) {
+            PostingList list = postings.get(normalized.substring(i, i + GRAM_SIZE));
+            if (list == null) {
+                return result;
+            }
+            lists[i] = list;
+        }
+        // En kısa listeden başla, kesişim hızlı daralsın
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        lists[0].copyInto(result);
+        for (int i = 1; i < lists.length && !result.isEmpty(); i++) {
+            for (int doc = result.nextSetBit(0); doc >= 0; doc = result.nextSetBit(doc + 1)) {
+                if (!lists[i].contains(doc)) {
+                    result.clear(doc);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void collectGrams(String text, Set<String> grams) {
+        for (int size = 1; size <= GRAM_SIZE; size++) {
+            for (int i = 0; i + size <= text.length(); i++) {
+                grams.add(text.substring(i, i + size));
+            }
+        }
+    }
+
+    // Sorted, growable int array
+    private static final class PostingList {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+            docs[pos] = doc;
+            size++;
+        }
+
+        void remove(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+            size--;
+        }
+
+        boolean contains(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc) >= 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void copyInto(BitSet target) {
+            for (int i = 0; i < size; i++) {
+                target.set(docs[i]);
+            }
+        }
+    }
+}
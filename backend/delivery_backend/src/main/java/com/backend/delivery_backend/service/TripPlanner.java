@@ -0,0 +1,294 @@
+package com.backend.delivery_backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Groups a restaurant's READY orders into courier trips. A trip leaves the restaurant, drops its orders in the best
+// order and returns; the goal is the least total courier time. Greedy cheapest insertion (oldest order first), then
+// local search that moves single orders between trips and swaps pairs while the total keeps dropping.
+// SLA: sharing a trip may delay no drop by more than maxDetour compared with a courier leaving with it alone now.
+// The best stop order of a group is computed once per plan() call and cached, so the local search mostly does map
+// lookups; callers keep the number of drops per call small (CourierDispatcher.MAX_PLANNED_ORDERS).
+// Pure computation: used by CourierDispatcher and by bench/DispatchSimulation.java.
+public final class TripPlanner {
+
+    // Stop sırası tüm permütasyonlar denenerek seçilir, bu yüzden trip boyutu küçük tutulur
+    public static final int MAX_ORDERS_LIMIT = 5;
+    private static final int MAX_SEARCH_ROUNDS = 50;
+    private static final double EPSILON = 1e-6;
+
+    // Location of a drop: coordinates when known, else the district, else only the normalized address.
+    // Two drops without coordinates are neighbours only at the same address or in the same district.
+    public record Drop(String orderId, LocalDateTime readyAt, Double latitude, Double longitude, String district,
+                       String address) {
+    }
+
+    public record Settings(int maxOrdersPerTrip, Duration maxDetour, double speedKmh, Duration handoverTime,
+                           double sameDistrictKm, double defaultLegKm) {
+
+        public Settings {
+            maxOrdersPerTrip = Math.max(1, Math.min(maxOrdersPerTrip, MAX_ORDERS_LIMIT));
+        }
+    }
+
+    // drops in delivery order; arrivals: minutes from leaving the restaurant to each drop;
+    // minutes: whole trip including the way back to the restaurant
+    public record Trip(List<Drop> drops, List<Double> arrivals, double minutes) {
+    }
+
+    private record Plan(List<Drop> sequence, double minutes) {
+    }
+
+    private final Double originLatitude;
+    private final Double originLongitude;
+    private final Settings settings;
+    // Grup (sırasız) -> en iyi sıra; tek plan() çağrısı boyunca geçerli
+    private final Map<Set<Drop>, Plan> plans = new HashMap<>();
+
+    private TripPlanner(Double originLatitude, Double originLongitude, Settings settings) {
+        this.originLatitude = originLatitude;
+        this.originLongitude = originLongitude;
+        this.settings = settings;
+    }
+
+    // Trips ordered by their oldest order
+    public static List<Trip> plan(Double originLatitude, Double originLongitude, List<Drop> drops,
+                                  Settings settings) {
+        TripPlanner planner = new TripPlanner(originLatitude, originLongitude, settings);
+        List<List<Drop>> groups = planner.greedy(drops);
+        planner.improve(groups);
+        return planner.toTrips(groups);
+    }
+
+    // Karşılaştırma için: her sipariş ayrı trip
+    public static List<Trip> oneByOne(Double originLatitude, Double originLongitude, List<Drop> drops,
+                                      Settings settings) {
+        TripPlanner planner = new TripPlanner(originLatitude, originLongitude, settings);
+        List<List<Drop>> groups = new ArrayList<>();
+        drops.forEach(drop -> groups.add(List.of(drop)));
+        return planner.toTrips(groups);
+    }
+
+    private List<List<Drop>> greedy(List<Drop> drops) {
+        List<Drop> sorted = new ArrayList<>(drops);
+        sorted.sort(Comparator.comparing(Drop::readyAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(Drop::orderId));
+        List<List<Drop>> groups = new ArrayList<>();
+        for (Drop drop : sorted) {
+            double bestExtra = cost(List.of(drop));
+            List<Drop> bestGroup = null;
+            for (List<Drop> group : groups) {
+                if (group.size() >= settings.maxOrdersPerTrip()) {
+                    continue;
+                }
+                double extra = cost(with(group, drop)) - cost(group);
+                if (extra < bestExtra - EPSILON) {
+                    bestExtra = extra;
+                    bestGroup = group;
+                }
+            }
+            if (bestGroup == null) {
+                groups.add(new ArrayList<>(List.of(drop)));
+            } else {
+                bestGroup.add(drop);
+            }
+        }
+        return groups;
+    }
+
+    private void improve(List<List<Drop>> groups) {
+        boolean improved = true;
+        for (int round = 0; improved && round < MAX_SEARCH_ROUNDS; round++) {
+            improved = relocate(groups) || swap(groups);
+            groups.removeIf(List::isEmpty);
+        }
+    }
+
+    // Bir siparişi başka bir trip'e (ya da tek başına yeni trip'e) taşı
+    private boolean relocate(List<List<Drop>> groups) {
+        for (List<Drop> from : groups) {
+            for (Drop drop : List.copyOf(from)) {
+                List<Drop> rest = without(from, drop);
+                double before = cost(from);
+                double base = cost(rest);
+                for (List<Drop> to : groups) {
+                    if (to == from || to.size() >= settings.maxOrdersPerTrip()) {
+                        continue;
+                    }
+                    double delta = base + cost(with(to, drop)) - before - cost(to);
+                    if (delta < -EPSILON) {
+                        from.remove(drop);
+                        to.add(drop);
+                        return true;
+                    }
+                }
+                if (from.size() > 1 && base + cost(List.of(drop)) - before < -EPSILON) {
+                    from.remove(drop);
+                    groups.add(new ArrayList<>(List.of(drop)));
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean swap(List<List<Drop>> groups) {
+        for (int i = 0; i < groups.size(); i++) {
+            for (int j = i + 1; j < groups.size(); j++) {
+                List<Drop> first = groups.get(i);
+                List<Drop> second = groups.get(j);
+                double before = cost(first) + cost(second);
+                for (Drop a : List.copyOf(first)) {
+                    for (Drop b : List.copyOf(second)) {
+                        double after = cost(with(without(first, a), b)) + cost(with(without(second, b), a));
+                        if (after - before < -EPSILON) {
+                            first.set(first.indexOf(a), b);
+                            second.set(second.indexOf(b), a);
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<Trip> toTrips(List<List<Drop>> groups) {
+        List<Trip> trips = new ArrayList<>();
+        for (List<Drop> group : groups) {
+            Plan plan = plan(group);
+            trips.add(new Trip(plan.sequence(), arrivals(plan.sequence()), plan.minutes()));
+        }
+        trips.sort(Comparator.comparing((Trip trip) -> trip.drops().stream()
+                        .map(Drop::readyAt).filter(at -> at != null).min(Comparator.naturalOrder()).orElse(null),
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        return trips;
+    }
+
+    // Uygun sıra yoksa sonsuz
+    private double cost(List<Drop> group) {
+        return plan(group).minutes();
+    }
+
+    private Plan plan(List<Drop> group) {
+        if (group.size() < 2) {
+            return best(group);
+        }
+        Set<Drop> key = Set.copyOf(group);
+        Plan plan = plans.get(key);
+        if (plan == null) {
+            plan = best(group);
+            plans.put(key, plan);
+        }
+        return plan;
+    }
+
+    private Plan best(List<Drop> group) {
+        if (group.isEmpty()) {
+            return new Plan(group, 0);
+        }
+        if (group.size() == 1) {
+            Drop only = group.get(0);
+            return new Plan(group, 2 * legMinutes(null, only) + handoverMinutes());
+        }
+        Plan[] best = {new Plan(List.copyOf(group), Double.POSITIVE_INFINITY)};
+        permute(new ArrayList<>(group), 0, 0, best);
+        return best[0];
+    }
+
+    // elapsed: ilk `from` durağın teslimi dahil geçen süre. Trip süresi (dakika, dönüş dahil); SLA aşılan ya da
+    // komşu olmayan duraklarla devam eden sıralar ve şimdiden en iyiden uzun olan ön ekler budanır
+    private void permute(List<Drop> sequence, int from, double elapsed, Plan[] best) {
+        if (from == sequence.size()) {
+            double minutes = elapsed + legMinutes(sequence.get(from - 1), null);
+            if (minutes < best[0].minutes()) {
+                best[0] = new Plan(List.copyOf(sequence), minutes);
+            }
+            return;
+        }
+        Drop previous = from == 0 ? null : sequence.get(from - 1);
+        double maxDetourMinutes = settings.maxDetour().toMillis() / 60000.0;
+        for (int i = from; i < sequence.size(); i++) {
+            Collections.swap(sequence, from, i);
+            Drop drop = sequence.get(from);
+            double arrival = elapsed + legMinutes(previous, drop);
+            if (!Double.isInfinite(arrival)
+                    && arrival - legMinutes(null, drop) <= maxDetourMinutes + EPSILON
+                    && arrival + handoverMinutes() < best[0].minutes()) {
+                permute(sequence, from + 1, arrival + handoverMinutes(), best);
+            }
+            Collections.swap(sequence, from, i);
+        }
+    }
+
+    private List<Double> arrivals(List<Drop> sequence) {
+        List<Double> arrivals = new ArrayList<>();
+        double elapsed = 0;
+        Drop previous = null;
+        for (Drop drop : sequence) {
+            elapsed += legMinutes(previous, drop);
+            arrivals.add(elapsed);
+            elapsed += handoverMinutes();
+            previous = drop;
+        }
+        return arrivals;
+    }
+
+    // null: restoran
+    private double legMinutes(Drop from, Drop to) {
+        double km = distanceKm(from, to);
+        return Double.isInfinite(km) ? km : km / settings.speedKmh() * 60;
+    }
+
+    private double distanceKm(Drop from, Drop to) {
+        if (from == null || to == null) {
+            Drop drop = from == null ? to : from;
+            if (GeoGridIndex.isValid(originLatitude, originLongitude) && GeoGridIndex.isValid(drop.latitude(), drop.longitude())) {
+                return GeoGridIndex.distanceKm(originLatitude, originLongitude, drop.latitude(), drop.longitude());
+            }
+            return settings.defaultLegKm();
+        }
+        if (from.address() != null && from.address().equals(to.address())) {
+            return 0;
+        }
+        if (GeoGridIndex.isValid(from.latitude(), from.longitude()) && GeoGridIndex.isValid(to.latitude(), to.longitude())) {
+            return GeoGridIndex.distanceKm(from.latitude(), from.longitude(), to.latitude(), to.longitude());
+        }
+        if (from.district() != null && from.district().equalsIgnoreCase(to.district())) {
+            return settings.sameDistrictKm();
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private double handoverMinutes() {
+        return settings.handoverTime().toMillis() / 60000.0;
+    }
+
+    // Adresler büyük/küçük harf ve boşluk farkı gözetmeden karşılaştırılır
+    public static String normalizeAddress(String address) {
+        if (address == null || address.isBlank()) {
+            return null;
+        }
+        return address.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static List<Drop> with(List<Drop> group, Drop drop) {
+        List<Drop> copy = new ArrayList<>(group);
+        copy.add(drop);
+        return copy;
+    }
+
+    private static List<Drop> without(List<Drop> group, Drop drop) {
+        List<Drop> copy = new ArrayList<>(group);
+        copy.remove(drop);
+        return copy;
+    }
+}
@@ -2,6 +2,7 @@ package com.backend.delivery_backend.service;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import com.backend.delivery_backend.ENUM.DeliveryType;
 import org.springframework.security.core.GrantedAuthority;
@@ -9,14 +10,17 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Async;
 import com.backend.delivery_backend.model.*;
 import com.backend.delivery_backend.repository.*;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 import com.backend.delivery_backend.ENUM.DeliveryType;
 
 import com.backend.delivery_backend.DTO.UserDTO;
@@ -60,6 +64,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
 		switch (role.toLowerCase()) {
 			case "customer":
+				validateLocation(dto);
 				Customer c = new Customer();
 				c.setCustomerId(UUID.randomUUID().toString());
 				c.setName(dto.getName());
@@ -70,6 +75,8 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 				c.setCity(dto.getCity());
 				c.setDistrict(dto.getDistrict());
 				c.setAddress(dto.getAddress());
+				c.setLatitude(dto.getLatitude());
+				c.setLongitude(dto.getLongitude());
 				return customerRepository.save(c);
 
 			case "courier":
@@ -83,6 +90,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 				return courierRepository.save(cr);
 
 			case "restaurant_owner":
+				validateLocation(dto);
 				RestaurantOwner r = new RestaurantOwner();
 				r.setRestaurantId(UUID.randomUUID().toString());
 				r.setName(dto.getName());
@@ -93,6 +101,8 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 				r.setCity(dto.getCity());
 				r.setDistrict(dto.getDistrict());
 				r.setAddress(dto.getAddress());
+				r.setLatitude(dto.getLatitude());
+				r.setLongitude(dto.getLongitude());
 				r.setBusinessHoursStart(dto.getBusinessHoursStart());
 				r.setBusinessHoursEnd(dto.getBusinessHoursEnd());
 				r.setCuisineType(dto.getCuisineType());
@@ -115,6 +125,22 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 		}
 	}
 
+	// Profil güncellemesiyle aynı kurallar: konum ya hiç verilmez ya da iki koordinat birlikte ve geçerli aralıkta verilir
+	private static void validateLocation(UserDTO dto) {
+		if ((dto.getLatitude() == null) != (dto.getLongitude() == null)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "latitude and longitude must be given together.");
+		}
+		validateCoordinate("latitude", dto.getLatitude(), 90);
+		validateCoordinate("longitude", dto.getLongitude(), 180);
+	}
+
+	private static void validateCoordinate(String field, Double value, double limit) {
+		if (value != null && (!Double.isFinite(value) || Math.abs(value) > limit)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					field + " must be between -" + (int) limit + " and " + (int) limit + ".");
+		}
+	}
+
 	public String sendEmail(User user) {
 		try {
 			String resetLink = generateResetToken(user);
@@ -131,6 +157,13 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 		}
 	}
 
+	// "virtual" profilinde SMTP çağrısı istek thread'ini bekletmez, sanal thread'de çalışır (VirtualThreadsConfig);
+	// varsayılan profilde @Async kapalıdır ve mail çağıran thread'de gönderilir
+	@Async
+	public CompletableFuture<String> sendEmailAsync(User user) {
+		return CompletableFuture.completedFuture(sendEmail(user));
+	}
+
 	public String generateResetToken(User user) {
 		PasswordResetToken existingToken = tokenRepository.findByUserId(user.getId());
 		if (existingToken != null) {
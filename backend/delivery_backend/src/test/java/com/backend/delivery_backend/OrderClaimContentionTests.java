@@ -0,0 +1,136 @@
+package com.backend.delivery_backend;
+
+import com.backend.delivery_backend.ENUM.DeliveryType;
+import com.backend.delivery_backend.model.Courier;
+import com.backend.delivery_backend.model.Order;
+import com.backend.delivery_backend.model.RestaurantOwner;
+import com.backend.delivery_backend.repository.CourierRepository;
+import com.backend.delivery_backend.repository.OrderRepository;
+import com.backend.delivery_backend.repository.RestaurantOwnerRepository;
+import com.backend.delivery_backend.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// 100 kurye aynı READY siparişi aynı anda kabul etmeye çalışır: tek kazanan, 99 tane 409, version bir kez artar
+@SpringBootTest
+class OrderClaimContentionTests {
+
+	private static final int COURIERS = 100;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private CourierRepository courierRepository;
+
+	@Autowired
+	private RestaurantOwnerRepository restaurantOwnerRepository;
+
+	@Test
+	void exactlyOneCourierClaimsTheOrder() throws Exception {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		RestaurantOwner restaurant = restaurantOwnerRepository.save(restaurant(suffix));
+		List<Courier> couriers = new ArrayList<>();
+		for (int i = 0; i < COURIERS; i++) {
+			couriers.add(courierRepository.save(courier(suffix, i, restaurant)));
+		}
+		Order order = orderRepository.save(readyOrder(suffix, restaurant));
+		long versionBefore = orderRepository.findById(order.getOrderId()).orElseThrow().getVersion();
+
+		ExecutorService pool = Executors.newFixedThreadPool(COURIERS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<HttpStatus>> results = new ArrayList<>();
+			for (Courier courier : couriers) {
+				results.add(pool.submit(() -> {
+					start.await();
+					try {
+						orderService.claimForCourier(order.getOrderId(), courier);
+						return HttpStatus.OK;
+					} catch (ResponseStatusException e) {
+						return HttpStatus.valueOf(e.getStatusCode().value());
+					}
+				}));
+			}
+			start.countDown();
+
+			int claimed = 0;
+			int conflicts = 0;
+			for (Future<HttpStatus> result : results) {
+				HttpStatus status = result.get();
+				if (status == HttpStatus.OK) {
+					claimed++;
+				} else if (status == HttpStatus.CONFLICT) {
+					conflicts++;
+				}
+			}
+
+			assertEquals(1, claimed);
+			assertEquals(COURIERS - 1, conflicts);
+			Order after = orderRepository.findById(order.getOrderId()).orElseThrow();
+			assertEquals(versionBefore + 1, after.getVersion());
+		} finally {
+			pool.shutdownNow();
+			orderRepository.deleteById(order.getOrderId());
+			courierRepository.deleteAll(couriers);
+			restaurantOwnerRepository.delete(restaurant);
+		}
+	}
+
+	private static RestaurantOwner restaurant(String suffix) {
+		RestaurantOwner restaurant = new RestaurantOwner();
+		restaurant.setRestaurantId("claim-test-" + suffix);
+		restaurant.setName("Claim Test " + suffix);
+		restaurant.setEmail("claim-test-" + suffix + "@example.com");
+		restaurant.setPassword("x");
+		restaurant.setPhone("5550000000");
+		restaurant.setRole("restaurant_owner");
+		restaurant.setAddress("Test Street 1");
+		restaurant.setBusinessHoursStart("00:00");
+		restaurant.setBusinessHoursEnd("23:59");
+		restaurant.setApproved(true);
+		restaurant.setOpen(true);
+		return restaurant;
+	}
+
+	private static Courier courier(String suffix, int index, RestaurantOwner restaurant) {
+		Courier courier = new Courier();
+		courier.setCourierId("claim-test-" + suffix + "-" + index);
+		courier.setName("Courier " + index);
+		courier.setEmail("claim-test-" + suffix + "-" + index + "@example.com");
+		courier.setPassword("x");
+		courier.setPhone("555" + index);
+		courier.setRole("courier");
+		courier.setRestaurantOwner(restaurant);
+		return courier;
+	}
+
+	private static Order readyOrder(String suffix, RestaurantOwner restaurant) {
+		Order order = new Order();
+		order.setOrderId("claim-test-" + suffix);
+		order.setRestaurant(restaurant);
+		order.setOrderStatus("READY");
+		order.setOrderDate(LocalDateTime.now());
+		order.setDeliveryAddress("Test Street 2");
+		order.setPaymentMethod("CASH");
+		order.setDeliveryType(DeliveryType.DELIVERY);
+		return order;
+	}
+}
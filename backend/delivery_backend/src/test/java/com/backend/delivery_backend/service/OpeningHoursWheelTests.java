@@ -0,0 +1,90 @@
+package com.backend.delivery_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpeningHoursWheelTests {
+
+	private static int minute(String value) {
+		return OpeningHoursWheel.parseMinuteOfDay(value);
+	}
+
+	private static boolean isOpen(String open, String close, String now) {
+		return OpeningHoursWheel.isOpen(minute(open), minute(close), minute(now));
+	}
+
+	@Test
+	void bothEndsAreInclusive() {
+		assertFalse(isOpen("09:00", "22:00", "08:59"));
+		assertTrue(isOpen("09:00", "22:00", "09:00"));
+		assertTrue(isOpen("09:00", "22:00", "22:00"));
+		assertFalse(isOpen("09:00", "22:00", "22:01"));
+	}
+
+	@Test
+	void closeBeforeOpenWrapsOverMidnight() {
+		assertTrue(isOpen("18:00", "02:00", "23:30"));
+		assertTrue(isOpen("18:00", "02:00", "00:00"));
+		assertTrue(isOpen("18:00", "02:00", "02:00"));
+		assertFalse(isOpen("18:00", "02:00", "02:01"));
+		assertFalse(isOpen("18:00", "02:00", "12:00"));
+		assertFalse(isOpen("18:00", "02:00", "17:59"));
+	}
+
+	@Test
+	void midnightAsCloseMeansEndOfDay() {
+		assertEquals(24 * 60, minute("24:00"));
+		assertTrue(isOpen("08:00", "24:00", "23:59"));
+		assertFalse(isOpen("08:00", "24:00", "00:00"));
+		assertTrue(isOpen("00:00", "24:00", "00:00"));
+		assertTrue(isOpen("00:00", "24:00", "12:00"));
+		assertTrue(isOpen("00:00", "23:59", "23:59"));
+	}
+
+	@Test
+	void sameOpenAndCloseIsOpenForThatMinuteOnly() {
+		assertTrue(isOpen("12:00", "12:00", "12:00"));
+		assertFalse(isOpen("12:00", "12:00", "11:59"));
+		assertFalse(isOpen("12:00", "12:00", "12:01"));
+	}
+
+	@Test
+	void invalidHoursAreNeverOpen() {
+		assertEquals(OpeningHoursWheel.INVALID, minute("24:30"));
+		assertEquals(OpeningHoursWheel.INVALID, minute("9am"));
+		assertEquals(OpeningHoursWheel.INVALID, minute(null));
+		assertFalse(OpeningHoursWheel.isOpen(OpeningHoursWheel.INVALID, minute("22:00"), minute("12:00")));
+	}
+
+	@Test
+	void wheelFlipsDocumentsAtOpenAndAfterClose() {
+		OpeningHoursWheel wheel = new OpeningHoursWheel();
+		wheel.schedule(1, minute("09:00"), minute("22:00"));
+		wheel.schedule(2, minute("18:00"), minute("02:00"));
+
+		assertEquals(Set.of(1), wheel.due(minute("08:59"), minute("09:00")));
+		assertEquals(Set.of(), wheel.due(minute("21:59"), minute("22:00")));
+		assertEquals(Set.of(1), wheel.due(minute("22:00"), minute("22:01")));
+		// Gece yarısını geçen aralık
+		assertEquals(Set.of(2), wheel.due(minute("23:50"), minute("02:10")));
+
+		assertTrue(wheel.isOpen(2, minute("01:00")));
+		wheel.unschedule(2);
+		assertFalse(wheel.isOpen(2, minute("01:00")));
+		assertEquals(Set.of(), wheel.due(minute("23:50"), minute("02:10")));
+	}
+
+	@Test
+	void midnightCloseFlipsAtStartOfNextDay() {
+		OpeningHoursWheel wheel = new OpeningHoursWheel();
+		wheel.schedule(1, minute("08:00"), minute("24:00"));
+
+		assertEquals(Set.of(1), wheel.due(minute("23:59"), minute("00:00")));
+		assertFalse(wheel.isOpen(1, minute("00:00")));
+	}
+}
@@ -0,0 +1,116 @@
+package com.backend.delivery_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TripPlannerTests {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+	// 60 km/s: 1 km = 1 dakika. Koordinat yok: restorana her bacak 5 km, aynı semtteki iki adres arası 3 km
+	private static TripPlanner.Settings settings(int maxOrdersPerTrip, int maxDetourMinutes) {
+		return new TripPlanner.Settings(maxOrdersPerTrip, Duration.ofMinutes(maxDetourMinutes), 60, Duration.ZERO,
+				3, 5);
+	}
+
+	private static TripPlanner.Drop drop(String orderId, int readyAfterMinutes, String district, String address) {
+		return new TripPlanner.Drop(orderId, NOW.plusMinutes(readyAfterMinutes), null, null, district, address);
+	}
+
+	private static List<TripPlanner.Trip> plan(List<TripPlanner.Drop> drops, TripPlanner.Settings settings) {
+		return TripPlanner.plan(null, null, drops, settings);
+	}
+
+	private static Set<String> orderIds(TripPlanner.Trip trip) {
+		return trip.drops().stream().map(TripPlanner.Drop::orderId).collect(Collectors.toSet());
+	}
+
+	@Test
+	void mergesNeighboursWhenTheDetourFitsTheLimit() {
+		List<TripPlanner.Drop> drops = List.of(drop("1", 0, "Kadıköy", "a sk. 1"), drop("2", 1, "Kadıköy", "b sk. 2"));
+
+		List<TripPlanner.Trip> trips = plan(drops, settings(3, 5));
+
+		assertEquals(1, trips.size());
+		assertEquals(Set.of("1", "2"), orderIds(trips.get(0)));
+		// 5 (restoran -> ilk) + 3 (semt içi) + 5 (dönüş); ikinci durak tek başına gitseydi 5. dakikada varırdı
+		assertEquals(13, trips.get(0).minutes(), 1e-9);
+		assertEquals(List.of(5.0, 8.0), trips.get(0).arrivals());
+	}
+
+	@Test
+	void keepsOrdersApartWhenSharingWouldDelayOneTooMuch() {
+		List<TripPlanner.Drop> drops = List.of(drop("1", 0, "Kadıköy", "a sk. 1"), drop("2", 1, "Kadıköy", "b sk. 2"));
+
+		// Birlikte giderse ikinci durak 3 dakika gecikir, izin verilen 2 dakika
+		List<TripPlanner.Trip> trips = plan(drops, settings(3, 2));
+
+		assertEquals(2, trips.size());
+		trips.forEach(trip -> assertEquals(10, trip.minutes(), 1e-9));
+	}
+
+	@Test
+	void neverPutsMoreThanMaxOrdersPerTripInOneTrip() {
+		List<TripPlanner.Drop> drops = List.of(
+				drop("1", 0, "Moda", "moda cd. 5"), drop("2", 1, "Moda", "moda cd. 5"),
+				drop("3", 2, "Moda", "moda cd. 5"), drop("4", 3, "Moda", "moda cd. 5"),
+				drop("5", 4, "Moda", "moda cd. 5"));
+
+		List<TripPlanner.Trip> trips = plan(drops, settings(2, 30));
+
+		assertEquals(3, trips.size());
+		trips.forEach(trip -> assertTrue(trip.drops().size() <= 2, "trip too large: " + orderIds(trip)));
+		assertEquals(5, trips.stream().mapToInt(trip -> trip.drops().size()).sum());
+	}
+
+	@Test
+	void maxOrdersPerTripIsClampedToThePermutationLimit() {
+		assertEquals(TripPlanner.MAX_ORDERS_LIMIT, settings(50, 30).maxOrdersPerTrip());
+		assertEquals(1, settings(0, 30).maxOrdersPerTrip());
+	}
+
+	@Test
+	void dropsThatAreNotNeighboursAreNeverMerged() {
+		// Koordinat yok, semtler farklı ya da bilinmiyor: aralarındaki mesafe sonsuz
+		List<TripPlanner.Drop> drops = List.of(
+				drop("1", 0, "Kadıköy", "a sk. 1"), drop("2", 1, "Beşiktaş", "b sk. 2"),
+				drop("3", 2, null, "c sk. 3"));
+
+		List<TripPlanner.Trip> trips = plan(drops, settings(5, 120));
+
+		assertEquals(3, trips.size());
+		trips.forEach(trip -> {
+			assertEquals(1, trip.drops().size());
+			assertEquals(10, trip.minutes(), 1e-9);
+		});
+	}
+
+	@Test
+	void tripsAreOrderedByTheirOldestOrder() {
+		List<TripPlanner.Drop> drops = List.of(
+				drop("late-kadikoy", 20, "Kadıköy", "a sk. 1"),
+				drop("sisli", 5, "Şişli", "c sk. 3"),
+				drop("kadikoy", 10, "Kadıköy", "b sk. 2"),
+				drop("besiktas", 0, "Beşiktaş", "d sk. 4"));
+
+		List<TripPlanner.Trip> trips = plan(drops, settings(3, 5));
+
+		assertEquals(3, trips.size());
+		assertEquals(Set.of("besiktas"), orderIds(trips.get(0)));
+		assertEquals(Set.of("sisli"), orderIds(trips.get(1)));
+		assertEquals(Set.of("kadikoy", "late-kadikoy"), orderIds(trips.get(2)));
+
+		// Girdi sırası sonucu değiştirmez
+		List<TripPlanner.Trip> reversed = plan(drops.reversed(), settings(3, 5));
+		assertEquals(trips.stream().map(TripPlannerTests::orderIds).toList(),
+				reversed.stream().map(TripPlannerTests::orderIds).toList());
+	}
+}
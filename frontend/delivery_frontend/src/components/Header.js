@@ -1,9 +1,14 @@
-import React from 'react';
+import React, { useEffect } from 'react';
 import { Link, useNavigate } from 'react-router-dom';
 import { Navbar, Nav, NavDropdown } from 'react-bootstrap';
 import '../App.css';
 import '../styles/header.css';
 import { FaShoppingCart } from 'react-icons/fa';
+import { jwtDecode } from 'jwt-decode';
+import api from '../api';
+
+// Backend, bu kadar süre heartbeat gelmeyen AVAILABLE kuryeyi UNAVAILABLE yapar (courier.presence.stale-after-seconds)
+const COURIER_HEARTBEAT_MS = 60 * 1000;
 
 const Header = () => {
   const navigate = useNavigate();
@@ -13,6 +18,24 @@ const Header = () => {
   const token = localStorage.getItem('token');
   const isLoggedIn = !!token;
 
+  // Kurye sayfaları açık olduğu sürece kurye "görüldü" sayılır; her kurye sayfası Header'ı render eder
+  useEffect(() => {
+    if (role !== 'courier' || !token) {
+      return undefined;
+    }
+    let courierId;
+    try {
+      courierId = jwtDecode(token).id;
+    } catch (error) {
+      return undefined;
+    }
+    const beat = () => api.post(`/couriers/${courierId}/heartbeat`)
+      .catch(err => console.error('Heartbeat failed:', err));
+    beat();
+    const timer = setInterval(beat, COURIER_HEARTBEAT_MS);
+    return () => clearInterval(timer);
+  }, [role, token]);
+
   const handleLogOut = () => {
     localStorage.clear();
     navigate('/login');
@@ -0,0 +1,55 @@
+import api from './api';
+
+const STREAM_BASE_URL = 'http://localhost:8080/api';
+const RECONNECT_DELAY_MS = 3000;
+
+// EventSource Authorization header gönderemez: önce /stream-ticket ile tek kullanımlık bilet alınır.
+// Bilet tek kullanımlık olduğu için tarayıcının otomatik yeniden bağlanması işe yaramaz;
+// hata olunca akış kapatılır, yeni biletle tekrar açılır.
+export const subscribeToOrderStream = (path, onOrder) => {
+    let source = null;
+    let retryTimer = null;
+    let closed = false;
+
+    const connect = async () => {
+        try {
+            const res = await api.post('/stream-ticket');
+            if (closed) {
+                return;
+            }
+            source = new EventSource(`${STREAM_BASE_URL}${path}?ticket=${encodeURIComponent(res.data.ticket)}`);
+            source.addEventListener('order', (event) => {
+                try {
+                    onOrder(JSON.parse(event.data));
+                } catch (err) {
+                    console.error('Invalid order event:', err);
+                }
+            });
+            source.onerror = () => {
+                source.close();
+                scheduleReconnect();
+            };
+        } catch (err) {
+            console.error('Could not open order stream:', err);
+            if (err.response?.status !== 401) {
+                scheduleReconnect();
+            }
+        }
+    };
+
+    const scheduleReconnect = () => {
+        if (!closed) {
+            retryTimer = setTimeout(connect, RECONNECT_DELAY_MS);
+        }
+    };
+
+    connect();
+
+    return () => {
+        closed = true;
+        clearTimeout(retryTimer);
+        if (source) {
+            source.close();
+        }
+    };
+};
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 import { faCreditCard, faMoneyBill, faExclamationTriangle } from '@fortawesome/free-solid-svg-icons';
@@ -30,6 +30,9 @@ const CheckoutPage = () => {
     const [shippingFee, setShippingFee] = useState(0);
     const [tax, setTax] = useState(0);
     const [total, setTotal] = useState(0);
+    // Bir ödeme denemesi için tek Idempotency-Key: çift tıklama ve yeniden denemeler aynı anahtarla gider,
+    // backend ikinci siparişi açmaz. Başarılı siparişten sonra yeni anahtar üretilir.
+    const idempotencyKeyRef = useRef(null);
 
     // Özel kapatma butonu
     const CustomCloseButton = ({ closeToast }) => (
@@ -236,7 +239,13 @@ const CheckoutPage = () => {
                 cvv: cardCVV
             } : {};
 
-            await api.post(`/orders/create?${queryParams.toString()}`, body);
+            if (!idempotencyKeyRef.current) {
+                idempotencyKeyRef.current = crypto.randomUUID();
+            }
+            await api.post(`/orders/create?${queryParams.toString()}`, body, {
+                headers: { 'Idempotency-Key': idempotencyKeyRef.current }
+            });
+            idempotencyKeyRef.current = null;
 
             toast.success('Order placed successfully!');
 
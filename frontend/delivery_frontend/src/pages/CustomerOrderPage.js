@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 import {
@@ -10,6 +10,7 @@ import Header from '../components/Header';
 import Footer from '../components/Footer';
 import RatingModal from '../components/RatingModal';
 import api from '../api';
+import { subscribeToOrderStream } from '../orderStream';
 import { toast, ToastContainer } from 'react-toastify';
 import 'react-toastify/dist/ReactToastify.css';
 import '../styles/order.css';
@@ -58,6 +59,25 @@ const OrderPage = () => {
         fetchRatedOrders();
     }, [navigate]);
 
+    const ordersRef = useRef(orders);
+    ordersRef.current = orders;
+
+    // Sipariş durumları sayfayı yenilemeden güncellenir; listede olmayan bir sipariş gelirse liste yeniden çekilir
+    useEffect(() => {
+        if (!localStorage.getItem('token')) {
+            return undefined;
+        }
+        return subscribeToOrderStream('/orders/stream', (update) => {
+            if (!ordersRef.current.some(order => order.orderId === update.orderId)) {
+                fetchPastOrders();
+                return;
+            }
+            setOrders(prev => prev.map(order => order.orderId === update.orderId
+                ? { ...order, orderStatus: update.status }
+                : order));
+        });
+    }, []);
+
     const fetchPastOrders = async () => {
         setLoading(true);
         try {
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 import {
@@ -17,6 +17,7 @@ import { ToastContainer } from 'react-toastify';
 import '../styles/restaurant-dashboard.css';
 import '../styles/dashboard.css';
 import ReviewsModal from '../components/ReviewsModal';
+import { subscribeToOrderStream } from '../orderStream';
 
 const RestaurantDashboard = () => {
     const [orders, setOrders] = useState([]);
@@ -164,6 +165,25 @@ const RestaurantDashboard = () => {
         fetchOrders();
     }, [token, navigate, restaurantId]);
 
+    const ordersRef = useRef(orders);
+    ordersRef.current = orders;
+
+    // Yeni siparişler ve durum değişiklikleri SSE ile gelir; bilinen siparişin sadece durumu güncellenir
+    useEffect(() => {
+        if (!token) {
+            return undefined;
+        }
+        return subscribeToOrderStream('/orders/stream/restaurant', (update) => {
+            if (!ordersRef.current.some(order => order.orderId === update.orderId)) {
+                fetchOrders();
+                return;
+            }
+            setOrders(prev => prev.map(order => order.orderId === update.orderId
+                ? { ...order, orderStatus: update.status }
+                : order));
+        });
+    }, [token, restaurantId]);
+
     useEffect(() => {
         let results = orders;
 